@@ -0,0 +1,81 @@
+package org.joker.agent.loadtest;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以 loadtest profile 启动被测应用（MOCK模型 + 内存向量库），并等待其可用
+ */
+public class AppLauncher implements AutoCloseable {
+
+    private final Process process;
+
+    private AppLauncher(Process process) {
+        this.process = process;
+    }
+
+    public static AppLauncher start(LoadTestConfig config, HttpClient client) throws Exception {
+        return start(config, client, List.of(), "loadtest-app.log");
+    }
+
+    /**
+     * 附加应用启动参数（如切换执行模型）启动应用
+     *
+     * @param appArgs 附加的启动参数
+     * @param logName 应用日志文件名（位于 target 下）
+     */
+    public static AppLauncher start(LoadTestConfig config, HttpClient client, List<String> appArgs, String logName)
+            throws Exception {
+        String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        URI baseUri = URI.create(config.baseUrl());
+        List<String> command = new ArrayList<>(List.of(javaBin, "-jar", config.appJar(),
+                "--spring.profiles.active=loadtest", "--server.port=" + baseUri.getPort()));
+        command.addAll(appArgs);
+        Path log = Path.of("target", logName);
+        Files.createDirectories(log.getParent());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(log.toFile()).start();
+        AppLauncher launcher = new AppLauncher(process);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.appStartupTimeoutSeconds());
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(config.baseUrl() + "/monitor/admission"))
+                .timeout(Duration.ofSeconds(2)).GET().build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("应用启动失败，见 " + log);
+            }
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return launcher;
+                }
+            } catch (Exception ignored) {
+                // 尚未监听端口
+            }
+            Thread.sleep(500);
+        }
+        launcher.close();
+        throw new IllegalStateException("应用在" + config.appStartupTimeoutSeconds() + "秒内未就绪");
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.joker.agent.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测指标，延迟以微秒记录在HdrHistogram中
+ */
+public class LoadMetrics {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    final Histogram ttft = newHistogram();
+    final Histogram interTokenGap = newHistogram();
+    final Histogram totalLatency = newHistogram();
+    final Histogram createSessionLatency = newHistogram();
+    final Histogram tokensPerSecond = new ConcurrentHistogram(100_000, 3);
+
+    final LongAdder sessions = new LongAdder();
+    final LongAdder turns = new LongAdder();
+    final LongAdder failedTurns = new LongAdder();
+    final LongAdder frames = new LongAdder();
+    final LongAdder heartbeats = new LongAdder();
+    final LongAdder contentChars = new LongAdder();
+    final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+    }
+
+    static void recordNanos(Histogram histogram, long nanos) {
+        histogram.recordValue(Math.min(MAX_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))));
+    }
+
+    void error(String type) {
+        failedTurns.increment();
+        errors.computeIfAbsent(type, key -> new LongAdder()).increment();
+    }
+
+    static Map<String, Object> summarizeMillis(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("mean", round(histogram.getMean() / 1000));
+        summary.put("p50", round(histogram.getValueAtPercentile(50) / 1000.0));
+        summary.put("p90", round(histogram.getValueAtPercentile(90) / 1000.0));
+        summary.put("p99", round(histogram.getValueAtPercentile(99) / 1000.0));
+        summary.put("p999", round(histogram.getValueAtPercentile(99.9) / 1000.0));
+        summary.put("max", round(histogram.getMaxValue() / 1000.0));
+        return summary;
+    }
+
+    static Map<String, Object> summarize(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("mean", round(histogram.getMean()));
+        summary.put("p10", histogram.getValueAtPercentile(10));
+        summary.put("p50", histogram.getValueAtPercentile(50));
+        summary.put("p90", histogram.getValueAtPercentile(90));
+        summary.put("min", histogram.getMinValue());
+        return summary;
+    }
+
+    static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,91 @@
+package org.joker.agent.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * 压测配置，默认值取自 loadtest.properties，可用同名系统属性覆盖（如 -Dloadtest.users=1000）
+ */
+public class LoadTestConfig {
+
+    private static final String PREFIX = "loadtest.";
+
+    private final Properties properties = new Properties();
+
+    public static LoadTestConfig load() {
+        LoadTestConfig config = new LoadTestConfig();
+        try (InputStream in = LoadTestConfig.class.getResourceAsStream("/loadtest.properties")) {
+            if (in != null) {
+                config.properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("读取 loadtest.properties 失败", e);
+        }
+        System.getProperties().forEach((key, value) -> {
+            if (key.toString().startsWith(PREFIX)) {
+                config.properties.setProperty(key.toString(), value.toString());
+            }
+        });
+        return config;
+    }
+
+    public String baseUrl() {
+        return string("base-url", "http://127.0.0.1:8085");
+    }
+
+    public String appJar() {
+        return string("app-jar", "");
+    }
+
+    public long appStartupTimeoutSeconds() {
+        return number("app-startup-timeout-seconds", 120);
+    }
+
+    public boolean compareVirtualThreads() {
+        return Boolean.parseBoolean(string("compare-virtual-threads", "false"));
+    }
+
+    public int users() {
+        return (int) number("users", 200);
+    }
+
+    public int turnsPerUser() {
+        return (int) number("turns-per-user", 5);
+    }
+
+    public long rampUpSeconds() {
+        return number("ramp-up-seconds", 10);
+    }
+
+    public long thinkTimeMillis() {
+        return number("think-time-millis", 500);
+    }
+
+    public long turnTimeoutSeconds() {
+        return number("turn-timeout-seconds", 120);
+    }
+
+    public String message() {
+        return string("message", "hello");
+    }
+
+    public double threshold(String name) {
+        return Double.parseDouble(string("threshold." + name, "0"));
+    }
+
+    public String reportPath() {
+        return string("report", "target/loadtest-report.json");
+    }
+
+    private String string(String key, String defaultValue) {
+        String value = properties.getProperty(PREFIX + key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private long number(String key, long defaultValue) {
+        return Long.parseLong(string(key, String.valueOf(defaultValue)));
+    }
+}
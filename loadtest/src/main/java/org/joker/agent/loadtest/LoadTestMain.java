@@ -0,0 +1,112 @@
+package org.joker.agent.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONWriter;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端SSE压测入口：按爬坡节奏启动虚拟用户，结束后输出报告，阈值不达标时以非0退出
+ * <p>
+ * 开启 compare-virtual-threads 时以相同负载分别压测虚拟线程与平台线程池两种执行模型，报告并列输出两轮结果
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        if (config.compareVirtualThreads()) {
+            compareExecutionModels(config, client);
+            return;
+        }
+
+        AppLauncher launcher = config.appJar().isBlank() ? null : AppLauncher.start(config, client);
+        LoadTestReport report;
+        try {
+            report = run(config, client);
+        } finally {
+            if (launcher != null) {
+                launcher.close();
+            }
+        }
+
+        report.write(config.reportPath());
+        System.out.println(report.toJson());
+        System.exit(report.passed() ? 0 : 1);
+    }
+
+    /**
+     * 依次以虚拟线程、平台线程池两种执行模型启动应用并压测，写出对比报告
+     */
+    private static void compareExecutionModels(LoadTestConfig config, HttpClient client) throws Exception {
+        if (config.appJar().isBlank()) {
+            throw new IllegalStateException("对比执行模型需要配置 loadtest.app-jar，由压测工具分别启动应用");
+        }
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        boolean passed = true;
+        for (boolean virtualThreads : new boolean[]{true, false}) {
+            String mode = virtualThreads ? "virtualThreads" : "platformThreads";
+            List<String> appArgs = List.of("--chat.execution.virtual-threads=" + virtualThreads,
+                    "--spring.threads.virtual.enabled=" + virtualThreads);
+            LoadTestReport report;
+            try (AppLauncher ignored = AppLauncher.start(config, client, appArgs, "loadtest-app-" + mode + ".log")) {
+                report = run(config, client);
+            }
+            report.write(withSuffix(config.reportPath(), mode));
+            comparison.put(mode, report.summary());
+            passed &= report.passed();
+        }
+        String json = JSON.toJSONString(comparison, JSONWriter.Feature.PrettyFormat);
+        writeReport(withSuffix(config.reportPath(), "comparison"), json);
+        System.out.println(json);
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static String withSuffix(String path, String suffix) {
+        int dot = path.lastIndexOf('.');
+        return dot > 0 ? path.substring(0, dot) + "-" + suffix + path.substring(dot) : path + "-" + suffix;
+    }
+
+    private static void writeReport(String path, String json) throws IOException {
+        Path file = Path.of(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+    }
+
+    private static LoadTestReport run(LoadTestConfig config, HttpClient client) throws InterruptedException {
+        LoadMetrics metrics = new LoadMetrics();
+        int users = config.users();
+        long rampIntervalNanos = users <= 1 ? 0 : TimeUnit.SECONDS.toNanos(config.rampUpSeconds()) / (users - 1);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                long wait = start + i * rampIntervalNanos - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                executor.submit(new VirtualUser(i, config, client, metrics));
+            }
+            // close() 等待全部虚拟用户结束
+        }
+        return new LoadTestReport(config, metrics, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,109 @@
+package org.joker.agent.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 汇总压测结果为机器可读的JSON报告，并按配置阈值判定是否回归
+ */
+public class LoadTestReport {
+
+    private final Map<String, Object> report = new LinkedHashMap<>();
+    private final List<String> violations = new ArrayList<>();
+
+    public LoadTestReport(LoadTestConfig config, LoadMetrics metrics, long durationNanos) {
+        double seconds = Math.max(durationNanos / 1_000_000_000.0, 0.001);
+        long turns = metrics.turns.sum();
+        long failed = metrics.failedTurns.sum();
+        double errorRate = turns + failed == 0 ? 0 : (double) failed / (turns + failed);
+        double turnsPerSecond = turns / seconds;
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("baseUrl", config.baseUrl());
+        settings.put("users", config.users());
+        settings.put("turnsPerUser", config.turnsPerUser());
+        settings.put("rampUpSeconds", config.rampUpSeconds());
+        settings.put("thinkTimeMillis", config.thinkTimeMillis());
+        report.put("config", settings);
+
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("durationSeconds", LoadMetrics.round(seconds));
+        throughput.put("sessions", metrics.sessions.sum());
+        throughput.put("turns", turns);
+        throughput.put("failedTurns", failed);
+        throughput.put("errorRate", errorRate);
+        throughput.put("turnsPerSecond", LoadMetrics.round(turnsPerSecond));
+        throughput.put("framesPerSecond", LoadMetrics.round(metrics.frames.sum() / seconds));
+        throughput.put("charsPerSecond", LoadMetrics.round(metrics.contentChars.sum() / seconds));
+        throughput.put("heartbeats", metrics.heartbeats.sum());
+        report.put("throughput", throughput);
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("createSessionMillis", LoadMetrics.summarizeMillis(metrics.createSessionLatency));
+        latency.put("ttftMillis", LoadMetrics.summarizeMillis(metrics.ttft));
+        latency.put("interTokenMillis", LoadMetrics.summarizeMillis(metrics.interTokenGap));
+        latency.put("totalMillis", LoadMetrics.summarizeMillis(metrics.totalLatency));
+        latency.put("streamTokensPerSecond", LoadMetrics.summarize(metrics.tokensPerSecond));
+        report.put("latency", latency);
+
+        Map<String, Long> errors = new TreeMap<>();
+        metrics.errors.forEach((type, count) -> errors.put(type, count.sum()));
+        report.put("errors", errors);
+
+        checkMax(config, "ttft-p99-millis", metrics.ttft.getValueAtPercentile(99) / 1000.0);
+        checkMax(config, "inter-token-p99-millis", metrics.interTokenGap.getValueAtPercentile(99) / 1000.0);
+        checkMax(config, "total-p99-millis", metrics.totalLatency.getValueAtPercentile(99) / 1000.0);
+        checkMax(config, "max-error-rate", errorRate);
+        double minTurnsPerSecond = config.threshold("min-turns-per-second");
+        if (minTurnsPerSecond > 0 && turnsPerSecond < minTurnsPerSecond) {
+            violations.add("min-turns-per-second: " + LoadMetrics.round(turnsPerSecond) + " < " + minTurnsPerSecond);
+        }
+        report.put("violations", violations);
+        report.put("passed", violations.isEmpty());
+    }
+
+    private void checkMax(LoadTestConfig config, String name, double actual) {
+        double limit = config.threshold(name);
+        if (limit > 0 && actual > limit) {
+            violations.add(name + ": " + LoadMetrics.round(actual) + " > " + limit);
+        }
+    }
+
+    /**
+     * 吞吐与延迟部分，用于多轮压测的对比
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("throughput", report.get("throughput"));
+        summary.put("latency", report.get("latency"));
+        summary.put("errors", report.get("errors"));
+        summary.put("passed", passed());
+        return summary;
+    }
+
+    public boolean passed() {
+        return violations.isEmpty();
+    }
+
+    public String toJson() {
+        return JSON.toJSONString(report, JSONWriter.Feature.PrettyFormat);
+    }
+
+    public void write(String path) throws IOException {
+        Path file = Path.of(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, toJson(), StandardCharsets.UTF_8);
+    }
+}
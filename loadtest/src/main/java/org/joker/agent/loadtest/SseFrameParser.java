@@ -0,0 +1,62 @@
+package org.joker.agent.loadtest;
+
+import java.util.function.Consumer;
+
+/**
+ * 按行解析SSE流，空行分隔事件，注释行（如心跳）忽略，多行data以换行拼接
+ */
+public class SseFrameParser {
+
+    private final Consumer<String> onEvent;
+    private final StringBuilder data = new StringBuilder();
+    private boolean hasData;
+    private long comments;
+
+    public SseFrameParser(Consumer<String> onEvent) {
+        this.onEvent = onEvent;
+    }
+
+    public void accept(String line) {
+        if (line.isEmpty()) {
+            dispatch();
+            return;
+        }
+        if (line.startsWith(":")) {
+            comments++;
+            return;
+        }
+        int colon = line.indexOf(':');
+        String field = colon < 0 ? line : line.substring(0, colon);
+        String value = colon < 0 ? "" : line.substring(colon + 1);
+        if (value.startsWith(" ")) {
+            value = value.substring(1);
+        }
+        if ("data".equals(field)) {
+            if (hasData) {
+                data.append('\n');
+            }
+            data.append(value);
+            hasData = true;
+        }
+    }
+
+    /**
+     * 流结束时派发尚未以空行结尾的事件
+     */
+    public void finish() {
+        dispatch();
+    }
+
+    public long getComments() {
+        return comments;
+    }
+
+    private void dispatch() {
+        if (hasData) {
+            String event = data.toString();
+            data.setLength(0);
+            hasData = false;
+            onEvent.accept(event);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.joker.agent.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 虚拟用户：创建会话后串行发起多轮对话，每轮订阅 /stream 并发送 /chat，解析SSE帧记录时延
+ */
+public class VirtualUser implements Runnable {
+
+    private final int index;
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final LoadMetrics metrics;
+
+    public VirtualUser(int index, LoadTestConfig config, HttpClient client, LoadMetrics metrics) {
+        this.index = index;
+        this.config = config;
+        this.client = client;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void run() {
+        String sessionId;
+        try {
+            sessionId = createSession();
+        } catch (Exception e) {
+            metrics.error("createSession:" + e.getClass().getSimpleName());
+            return;
+        }
+        for (int turn = 0; turn < config.turnsPerUser(); turn++) {
+            runTurn(sessionId, turn);
+            if (config.thinkTimeMillis() > 0) {
+                try {
+                    Thread.sleep(config.thinkTimeMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private String createSession() throws Exception {
+        // 会话使用MOCK协议的模型，不访问外部服务
+        Map<String, Object> mockModel = Map.of("protocol", "MOCK", "modelEndpoint", "mock-chat",
+                "baseUrl", "mock://local", "apiKey", "loadtest-" + index);
+        Map<String, Object> body = Map.of("title", "loadtest-" + index, "systemPrompt", "你是压测助手",
+                "agentModelConfig", mockModel, "embeddingModelConfig", Map.of("protocol", "MOCK"));
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(jsonPost("/ai/createSession", body),
+                HttpResponse.BodyHandlers.ofString());
+        LoadMetrics.recordNanos(metrics.createSessionLatency, System.nanoTime() - start);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("createSession status " + response.statusCode());
+        }
+        metrics.sessions.increment();
+        return JSON.parseObject(response.body()).getString("id");
+    }
+
+    private void runTurn(String sessionId, int turn) {
+        long start = System.nanoTime();
+        try {
+            HttpRequest streamRequest = HttpRequest.newBuilder(URI.create(config.baseUrl() + "/ai/stream/" + sessionId))
+                    .header("Accept", "text/event-stream")
+                    .timeout(Duration.ofSeconds(config.turnTimeoutSeconds())).GET().build();
+            CompletableFuture<HttpResponse<Stream<String>>> streamFuture = client.sendAsync(streamRequest,
+                    HttpResponse.BodyHandlers.ofLines());
+
+            HttpResponse<String> chatResponse = client.send(jsonPost("/ai/chat",
+                    Map.of("sessionId", sessionId, "message", config.message() + " #" + turn)),
+                    HttpResponse.BodyHandlers.ofString());
+            if (chatResponse.statusCode() != 200) {
+                streamFuture.cancel(true);
+                metrics.error("chat:" + chatResponse.statusCode());
+                return;
+            }
+
+            HttpResponse<Stream<String>> streamResponse = streamFuture.get(config.turnTimeoutSeconds(),
+                    TimeUnit.SECONDS);
+            if (streamResponse.statusCode() != 200) {
+                metrics.error("stream:" + streamResponse.statusCode());
+                return;
+            }
+            TurnRecorder recorder = new TurnRecorder(start);
+            SseFrameParser parser = new SseFrameParser(recorder::onEvent);
+            try (Stream<String> lines = streamResponse.body()) {
+                Iterator<String> iterator = lines.iterator();
+                while (!recorder.finished && iterator.hasNext()) {
+                    parser.accept(iterator.next());
+                }
+                parser.finish();
+            }
+            metrics.heartbeats.add(parser.getComments());
+            recorder.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            metrics.error("turn:" + e.getClass().getSimpleName());
+        }
+    }
+
+    private HttpRequest jsonPost(String path, Object body) {
+        return HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(config.turnTimeoutSeconds()))
+                .POST(HttpRequest.BodyPublishers.ofString(JSON.toJSONString(body))).build();
+    }
+
+    /**
+     * 单轮时延记录：首个非空文本帧为首token，结束帧（done且为TEXT）为一轮结束
+     */
+    private final class TurnRecorder {
+
+        private final long start;
+        private long firstFrame = -1;
+        private long lastFrame;
+        private long contentFrames;
+        private boolean finished;
+        private boolean failed;
+
+        private TurnRecorder(long start) {
+            this.start = start;
+        }
+
+        private void onEvent(String data) {
+            long now = System.nanoTime();
+            metrics.frames.increment();
+            JSONObject frame = JSON.parseObject(data);
+            String content = frame.getString("content");
+            boolean done = frame.getBooleanValue("done");
+            String messageType = frame.getString("messageType");
+
+            if (!done && content != null && !content.isEmpty()) {
+                if (firstFrame < 0) {
+                    firstFrame = now;
+                    LoadMetrics.recordNanos(metrics.ttft, now - start);
+                } else {
+                    LoadMetrics.recordNanos(metrics.interTokenGap, now - lastFrame);
+                }
+                lastFrame = now;
+                contentFrames++;
+                metrics.contentChars.add(content.length());
+            } else if (done && "TEXT".equals(messageType)) {
+                // 正常结束帧内容为空，带内容的结束帧是错误信息
+                failed = content != null && !content.isEmpty();
+                finished = true;
+            }
+        }
+
+        private void complete() {
+            long end = System.nanoTime();
+            if (!finished || failed) {
+                metrics.error(finished ? "stream:errorFrame" : "stream:closedEarly");
+                return;
+            }
+            metrics.turns.increment();
+            LoadMetrics.recordNanos(metrics.totalLatency, end - start);
+            if (firstFrame > 0 && lastFrame > firstFrame && contentFrames > 1) {
+                double seconds = (lastFrame - firstFrame) / 1_000_000_000.0;
+                metrics.tokensPerSecond.recordValue(Math.min(100_000, Math.round((contentFrames - 1) / seconds)));
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.joker.agent.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.joker.agent.dto.AgentChatResponse;
+import org.joker.agent.enums.MessageType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式响应帧的SSE序列化：与SseEmitter一致使用Spring默认配置的Jackson，并拼接 data 帧
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AgentChatResponseSerializationBenchmark {
+
+    @Param({"4", "64"})
+    private int contentLength;
+
+    private ObjectMapper objectMapper;
+    private String content;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        content = BenchmarkData.text(new SplittableRandom(contentLength), contentLength, contentLength + 1);
+    }
+
+    @Benchmark
+    public String tokenFrame() throws JsonProcessingException {
+        return toSseFrame(AgentChatResponse.build(content, MessageType.TEXT));
+    }
+
+    @Benchmark
+    public String endFrame() throws JsonProcessingException {
+        return toSseFrame(AgentChatResponse.buildEndMessage(MessageType.TEXT));
+    }
+
+    private String toSseFrame(AgentChatResponse response) throws JsonProcessingException {
+        return "data:" + objectMapper.writeValueAsString(response) + "\n\n";
+    }
+}
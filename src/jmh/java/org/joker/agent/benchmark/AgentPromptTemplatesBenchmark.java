@@ -0,0 +1,34 @@
+package org.joker.agent.benchmark;
+
+import org.joker.agent.context.AgentPromptTemplates;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预设工具提示词生成
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AgentPromptTemplatesBenchmark {
+
+    @Param({"4", "32", "128"})
+    private int toolCount;
+
+    private Map<String, Map<String, Map<String, String>>> toolPresetParams;
+
+    @Setup
+    public void setup() {
+        toolPresetParams = BenchmarkData.toolPresetParams(4, toolCount / 4);
+    }
+
+    @Benchmark
+    public String generatePresetToolPrompt() {
+        return AgentPromptTemplates.generatePresetToolPrompt(toolPresetParams);
+    }
+}
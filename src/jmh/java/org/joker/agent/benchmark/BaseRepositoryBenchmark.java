@@ -0,0 +1,47 @@
+package org.joker.agent.benchmark;
+
+import org.joker.agent.model.MessageEntity;
+import org.joker.agent.repository.MessageRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存仓库按条件查询：每次查询全表扫描，关注表规模增长后的耗时与分配
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BaseRepositoryBenchmark {
+
+    private static final int MESSAGES_PER_SESSION = 100;
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private MessageRepository repository;
+    private String sessionId;
+
+    @Setup
+    public void setup() {
+        repository = new MessageRepository();
+        for (int s = 0; s < size / MESSAGES_PER_SESSION; s++) {
+            BenchmarkData.messageHistory("session-" + s, MESSAGES_PER_SESSION, false).forEach(repository::insert);
+        }
+        sessionId = "session-" + (size / MESSAGES_PER_SESSION / 2);
+    }
+
+    @Benchmark
+    public List<MessageEntity> selectList() {
+        return repository.selectList(message -> sessionId.equals(message.getSessionId()));
+    }
+
+    @Benchmark
+    public long count() {
+        return repository.count(message -> sessionId.equals(message.getSessionId()));
+    }
+}
@@ -0,0 +1,88 @@
+package org.joker.agent.benchmark;
+
+import org.joker.agent.enums.Role;
+import org.joker.agent.model.MessageEntity;
+import org.joker.agent.model.TokenMessage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试数据构造，固定种子保证每次运行输入一致
+ */
+public final class BenchmarkData {
+
+    private static final String SENTENCE = "用户询问了关于订单状态和物流进度的问题，助手给出了详细的查询步骤。";
+
+    private BenchmarkData() {
+    }
+
+    public static String text(SplittableRandom random, int minChars, int maxChars) {
+        int length = minChars + random.nextInt(Math.max(1, maxChars - minChars));
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(SENTENCE, 0, Math.min(SENTENCE.length(), length - sb.length()));
+        }
+        return sb.toString();
+    }
+
+    public static List<MessageEntity> messageHistory(String sessionId, int size, boolean withSummary) {
+        SplittableRandom random = new SplittableRandom(size);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<MessageEntity> messages = new ArrayList<>(size + 1);
+        if (withSummary) {
+            MessageEntity summary = new MessageEntity();
+            summary.setId("summary-" + sessionId);
+            summary.setSessionId(sessionId);
+            summary.setRole(Role.SUMMARY);
+            summary.setContent(text(random, 200, 800));
+            summary.setCreatedAt(base.minusSeconds(1));
+            messages.add(summary);
+        }
+        for (int i = 0; i < size; i++) {
+            MessageEntity message = new MessageEntity();
+            message.setId(sessionId + "-" + i);
+            message.setSessionId(sessionId);
+            message.setRole(i % 2 == 0 ? Role.USER : Role.ASSISTANT);
+            message.setContent(text(random, 20, 600));
+            message.setBodyTokenCount(message.getContent().length() / 2);
+            message.setTokenCount(message.getBodyTokenCount());
+            message.setCreatedAt(base.plusSeconds(i));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    public static List<TokenMessage> tokenMessages(int size) {
+        SplittableRandom random = new SplittableRandom(size);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<TokenMessage> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            TokenMessage message = new TokenMessage();
+            message.setId(String.valueOf(i));
+            message.setRole(i % 2 == 0 ? Role.USER.name() : Role.ASSISTANT.name());
+            message.setContent(text(random, 20, 600));
+            message.setBodyTokenCount(message.getContent().length() / 2);
+            message.setTokenCount(message.getBodyTokenCount());
+            message.setCreatedAt(base.plusSeconds(i));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    public static Map<String, Map<String, Map<String, String>>> toolPresetParams(int servers, int toolsPerServer) {
+        Map<String, Map<String, Map<String, String>>> params = new LinkedHashMap<>();
+        for (int s = 0; s < servers; s++) {
+            Map<String, Map<String, String>> tools = new LinkedHashMap<>();
+            for (int t = 0; t < toolsPerServer; t++) {
+                tools.put("server" + s + "_tool" + t, Map.of("token", "preset-" + s + "-" + t, "region", "cn"));
+            }
+            params.put("server" + s, tools);
+        }
+        return params;
+    }
+}
@@ -0,0 +1,27 @@
+package org.joker.agent.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * 基准测试入口，统一挂载GC分析器（输出 gc.alloc.rate.norm 等分配指标），结果写入 target/jmh-result.json 便于前后对比
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : "org.joker.agent";
+        new File("target").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+package org.joker.agent.benchmark;
+
+import org.joker.agent.config.MockProviderProperties;
+import org.joker.agent.dto.TokenOverflowConfig;
+import org.joker.agent.dto.TokenProcessResult;
+import org.joker.agent.enums.ProviderProtocol;
+import org.joker.agent.enums.TokenOverflowStrategyEnum;
+import org.joker.agent.factory.LLMProviderService;
+import org.joker.agent.mock.MockProvider;
+import org.joker.agent.model.ProviderConfig;
+import org.joker.agent.model.TokenMessage;
+import org.joker.agent.token.SlidingWindowTokenOverflowStrategy;
+import org.joker.agent.token.SummarizeTokenOverflowStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token超限策略处理长历史的开销
+ * <p>
+ * 摘要策略的模型调用走MOCK协议（零延迟、一次性输出），测得的是排序、切分、内容拼装以及模拟响应生成的CPU开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenOverflowStrategyBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    private int historySize;
+
+    private List<TokenMessage> messages;
+    private TokenOverflowConfig config;
+    private SlidingWindowTokenOverflowStrategy slidingWindow;
+    private SummarizeTokenOverflowStrategy summarize;
+    private MockProvider mockProvider;
+
+    @Setup
+    public void setup() {
+        MockProviderProperties mockProperties = new MockProviderProperties();
+        mockProperties.setFirstTokenMillis(0);
+        mockProperties.setFirstTokenJitterMillis(0);
+        mockProperties.setTokensPerSecond(0);
+        mockProperties.setSchedulerThreads(1);
+        mockProvider = new MockProvider(mockProperties);
+        // 不挂载限流与熔断，只测策略本身
+        new LLMProviderService(null, null, mockProvider);
+
+        messages = BenchmarkData.tokenMessages(historySize);
+        config = new TokenOverflowConfig();
+        config.setStrategyType(TokenOverflowStrategyEnum.SLIDING_WINDOW);
+        config.setMaxTokens(historySize * 50);
+        config.setReserveRatio(0.1);
+        config.setSummaryThreshold(20);
+        config.setProviderConfig(new ProviderConfig("mock", "mock://local", "mock-summary", ProviderProtocol.MOCK));
+
+        slidingWindow = new SlidingWindowTokenOverflowStrategy(config);
+        summarize = new SummarizeTokenOverflowStrategy(config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mockProvider.shutdown();
+    }
+
+    @Benchmark
+    public TokenProcessResult slidingWindow() {
+        return slidingWindow.process(messages, config);
+    }
+
+    @Benchmark
+    public TokenProcessResult summarize() {
+        return summarize.process(messages, config);
+    }
+}
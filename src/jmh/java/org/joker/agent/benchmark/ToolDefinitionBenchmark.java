@@ -0,0 +1,44 @@
+package org.joker.agent.benchmark;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import org.joker.agent.dto.ToolDefinition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内置工具定义转换为ToolSpecification（每轮对话构建工具时调用）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ToolDefinitionBenchmark {
+
+    @Param({"2", "8", "32"})
+    private int parameterCount;
+
+    private ToolDefinition toolDefinition;
+
+    @Setup
+    public void setup() {
+        ToolDefinition.Builder builder = ToolDefinition.builder().name("benchmark_tool")
+                .description("基准测试用工具，按参数查询知识库内容");
+        for (int i = 0; i < parameterCount; i++) {
+            switch (i % 4) {
+                case 0 -> builder.addRequiredStringParameter("text" + i, "文本参数" + i);
+                case 1 -> builder.addIntegerParameter("count" + i, "整数参数" + i);
+                case 2 -> builder.addNumberParameter("score" + i, "数值参数" + i);
+                default -> builder.addBooleanParameter("flag" + i, "布尔参数" + i);
+            }
+        }
+        toolDefinition = builder.build();
+    }
+
+    @Benchmark
+    public ToolSpecification toSpecification() {
+        return toolDefinition.toSpecification();
+    }
+}
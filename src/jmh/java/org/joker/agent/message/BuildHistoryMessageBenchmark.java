@@ -0,0 +1,71 @@
+package org.joker.agent.message;
+
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import org.joker.agent.benchmark.BenchmarkData;
+import org.joker.agent.context.ChatContext;
+import org.joker.agent.dto.MemoryResult;
+import org.joker.agent.enums.MemoryType;
+import org.joker.agent.model.AgentEntity;
+import org.joker.agent.service.MemoryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提示词组装：摘要 + 预设工具提示 + 记忆要点 + 历史消息写入聊天内存
+ * <p>
+ * 记忆召回返回固定结果，不涉及向量检索
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildHistoryMessageBenchmark {
+
+    @Param({"20", "200", "1000"})
+    private int historySize;
+
+    private AbstractMessageHandler handler;
+    private ChatContext chatContext;
+
+    @Setup
+    public void setup() {
+        List<MemoryResult> memories = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            MemoryResult memory = new MemoryResult();
+            memory.setItemId("memory-" + i);
+            memory.setType(MemoryType.FACT);
+            memory.setText("用户偏好第" + i + "条：\n回答尽量简洁，并附带示例代码。");
+            memories.add(memory);
+        }
+
+        handler = new AbstractMessageHandler();
+        handler.memoryService = new MemoryService() {
+            @Override
+            public List<MemoryResult> searchRelevant(String sessionId, String query, int topK) {
+                return memories;
+            }
+        };
+
+        AgentEntity agent = new AgentEntity();
+        agent.setSystemPrompt("你是一个乐于助人的智能助手，请基于上下文回答用户问题。");
+        agent.setToolPresetParams(BenchmarkData.toolPresetParams(2, 8));
+
+        chatContext = new ChatContext();
+        chatContext.setSessionId("benchmark-session");
+        chatContext.setUserMessage("帮我查一下最近的订单");
+        chatContext.setAgent(agent);
+        chatContext.setMessageHistory(BenchmarkData.messageHistory("benchmark-session", historySize, true));
+    }
+
+    @Benchmark
+    public MessageWindowChatMemory buildHistoryMessage() {
+        MessageWindowChatMemory memory = handler.initMemory();
+        handler.buildHistoryMessage(chatContext, memory);
+        return memory;
+    }
+}
@@ -0,0 +1,112 @@
+package org.joker.agent.message;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.joker.agent.config.MockProviderProperties;
+import org.joker.agent.config.ToolExecutionProperties;
+import org.joker.agent.context.ChatContext;
+import org.joker.agent.dto.ToolDefinition;
+import org.joker.agent.mock.MockProvider;
+import org.joker.agent.model.AgentEntity;
+import org.joker.agent.tool.BuiltInToolRegistry;
+import org.joker.agent.tool.ToolBatchExecutor;
+import org.joker.agent.tool.ToolBulkheadRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每轮对话获取流式Agent的开销：每轮重新构建AiServices代理 vs 复用缓存的代理并按会话绑定本轮状态
+ * <p>
+ * 两种方式都包含本轮聊天内存的创建，不发起模型调用
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingAgentBuildBenchmark {
+
+    @Param({"0", "8"})
+    private int toolCount;
+
+    private AbstractMessageHandler handler;
+    private MockProvider mockProvider;
+    private StreamingChatModel model;
+    private Map<ToolSpecification, ToolExecutor> tools;
+    private AgentEntity agent;
+
+    @Setup
+    public void setup() {
+        MockProviderProperties mockProperties = new MockProviderProperties();
+        mockProperties.setSchedulerThreads(1);
+        mockProvider = new MockProvider(mockProperties);
+        model = mockProvider.streamingModel("mock-chat");
+
+        Map<ToolSpecification, ToolExecutor> catalog = new LinkedHashMap<>();
+        for (int i = 0; i < toolCount; i++) {
+            ToolDefinition definition = ToolDefinition.builder().name("benchmark_tool_" + i)
+                    .description("基准测试用工具" + i).addRequiredStringParameter("query", "查询内容")
+                    .addIntegerParameter("limit", "返回条数").build();
+            catalog.put(definition.toSpecification(), (request, memoryId) -> "ok");
+        }
+        tools = toolCount == 0 ? Map.of() : Map.copyOf(catalog);
+
+        SimpleAsyncTaskExecutor toolTaskExecutor = new SimpleAsyncTaskExecutor("tool-task-");
+        toolTaskExecutor.setVirtualThreads(true);
+
+        handler = new AbstractMessageHandler();
+        ToolExecutionProperties toolExecutionProperties = new ToolExecutionProperties();
+        handler.toolBatchExecutor = new ToolBatchExecutor(toolExecutionProperties, toolTaskExecutor,
+                new ToolBulkheadRegistry(toolExecutionProperties, new SimpleMeterRegistry()));
+        handler.builtInToolRegistry = new BuiltInToolRegistry(null, null, null) {
+            @Override
+            public Map<ToolSpecification, ToolExecutor> createToolsForAgent(AgentEntity agent) {
+                return tools;
+            }
+        };
+
+        agent = new AgentEntity();
+        agent.setId("benchmark-agent");
+    }
+
+    @TearDown
+    public void tearDown() {
+        mockProvider.shutdown();
+    }
+
+    /**
+     * 改造前的方式：每轮构建代理并注册工具
+     */
+    @Benchmark
+    public Agent rebuildPerTurn() {
+        MessageWindowChatMemory memory = handler.initMemory();
+        AiServices<Agent> agentService = AiServices.builder(Agent.class).streamingChatModel(model)
+                .chatMemoryProvider(memoryId -> memory);
+        if (!tools.isEmpty()) {
+            agentService.tools(tools);
+        }
+        return agentService.build();
+    }
+
+    /**
+     * 复用缓存的代理，本轮状态按会话绑定，轮次结束时解绑
+     */
+    @Benchmark
+    public Agent cachedTemplate() {
+        ChatContext chatContext = new ChatContext();
+        chatContext.setSessionId("benchmark-session");
+        chatContext.setAgent(agent);
+        Agent bound = handler.buildStreamingAgent(model, handler.initMemory(), null, chatContext);
+        chatContext.getTurnCompletion().complete(null);
+        return bound;
+    }
+}
@@ -0,0 +1,49 @@
+package org.joker.agent.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记忆去重：文本归一化与SHA-256摘要（每条候选记忆执行一次）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemoryHashingBenchmark {
+
+    @Param({"64", "512", "4096"})
+    private int length;
+
+    private String text;
+    private String normalized;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder(length);
+        String fragment = "用户 喜欢  在周末\n\n学习 Java 并发编程\t，偏好简洁回答。 ";
+        while (sb.length() < length) {
+            sb.append(fragment);
+        }
+        text = sb.substring(0, length);
+        normalized = MemoryService.normalizeText(text);
+    }
+
+    @Benchmark
+    public String normalizeText() {
+        return MemoryService.normalizeText(text);
+    }
+
+    @Benchmark
+    public String sha256() {
+        return MemoryService.sha256(normalized);
+    }
+
+    @Benchmark
+    public String normalizeAndHash() {
+        return MemoryService.sha256(MemoryService.normalizeText(text));
+    }
+}
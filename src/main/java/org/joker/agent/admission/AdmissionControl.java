@@ -0,0 +1,307 @@
+package org.joker.agent.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.AdmissionProperties;
+import org.joker.agent.enums.RequestPriority;
+import org.joker.agent.exception.AdmissionRejectedException;
+import org.joker.agent.model.LLMModelConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 对话入口准入控制
+ * <p>
+ * 同时约束全局与单个提供商的进行中对话数，超出后进入有界等待队列，按优先级、到达顺序放行；
+ * 排队超过SLO或队列已满时快速拒绝并给出Retry-After，避免过载传导为上游429与级联超时
+ */
+@Component
+@Slf4j
+public class AdmissionControl {
+
+    /**
+     * 未配置协议时的提供商标识
+     */
+    private static final String UNKNOWN_PROVIDER = "UNKNOWN";
+
+    /**
+     * 平均占用时长的平滑系数
+     */
+    private static final double HOLD_TIME_ALPHA = 0.2;
+
+    private final AdmissionProperties properties;
+    private final AdmissionMetrics metrics;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 等待者按优先级、到达顺序排列，首个元素最先放行，末尾元素最先被挤出
+     */
+    private final NavigableSet<Waiter> waiters = new TreeSet<>(
+            Comparator.comparingInt((Waiter w) -> w.priority.getOrder()).thenComparingLong(w -> w.seq));
+
+    private final Map<String, ProviderState> providers = new HashMap<>();
+
+    private int globalInFlight;
+    private long sequence;
+
+    /**
+     * 单次对话占用许可的平滑时长（毫秒），用于估算Retry-After
+     */
+    private double avgHoldMillis = 1000;
+
+    public AdmissionControl(AdmissionProperties properties, AdmissionMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 获取提供商标识
+     */
+    public static String providerKey(LLMModelConfig llmModelConfig) {
+        if (llmModelConfig == null || llmModelConfig.getProtocol() == null) {
+            return UNKNOWN_PROVIDER;
+        }
+        return llmModelConfig.getProtocol().name();
+    }
+
+    /**
+     * 申请准入许可，必要时在当前线程上排队等待
+     *
+     * @param provider 提供商标识
+     * @param priority 请求优先级
+     * @return 准入许可，对话结束后需释放
+     * @throws AdmissionRejectedException 队列已满、排队超时或被更高优先级请求挤出时抛出
+     */
+    public AdmissionPermit acquire(String provider, RequestPriority priority) {
+        if (!properties.isEnabled()) {
+            return AdmissionPermit.NOOP;
+        }
+        RequestPriority effectivePriority = priority != null ? priority : RequestPriority.INTERACTIVE;
+        long startNanos = System.nanoTime();
+
+        lock.lock();
+        try {
+            ProviderState state = providers.computeIfAbsent(provider, this::newProviderState);
+            // 有空余时直接放行：若仍有等待者，说明它们均被各自提供商的上限阻塞，不存在插队
+            if (canAdmit(state)) {
+                return grant(state, startNanos);
+            }
+
+            if (waiters.size() >= properties.getMaxQueueSize() && !evictLowerPriority(effectivePriority)) {
+                metrics.rejectedQueueFull();
+                throw reject("服务繁忙，请稍后再试");
+            }
+
+            Waiter waiter = new Waiter(state, effectivePriority, sequence++, lock.newCondition());
+            waiters.add(waiter);
+            metrics.queued();
+
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWait(effectivePriority));
+            try {
+                while (!waiter.granted && !waiter.evicted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (waiter.granted) {
+                return newPermit(state, startNanos);
+            }
+            waiters.remove(waiter);
+            if (!waiter.evicted) {
+                metrics.rejectedTimeout();
+            }
+            log.warn("对话请求排队超时被拒绝: provider={}, priority={}, queueDepth={}", provider, effectivePriority,
+                    waiters.size());
+            throw reject("服务繁忙，排队超时，请稍后再试");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入口快速检查：请求的提供商已无空余、等待队列已满且无法挤出更低优先级的等待者时直接拒绝，不占用许可
+     * <p>
+     * 许可在轮次真正开始执行时才通过 {@link #acquire} 申请，会话内排队的轮次不占用进行中名额；
+     * 此检查让明显过载的请求仍能在入口同步得到429与Retry-After。通过检查后在执行时排队超时的轮次
+     * 经会话通道的错误帧告知订阅方（同样携带重试间隔）
+     *
+     * @param provider 提供商标识
+     * @param priority 请求优先级
+     * @throws AdmissionRejectedException 等待队列已满时抛出
+     */
+    public void checkAdmissible(String provider, RequestPriority priority) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        RequestPriority effectivePriority = priority != null ? priority : RequestPriority.INTERACTIVE;
+        lock.lock();
+        try {
+            // 与acquire一致：有空余时直接放行，其他提供商的等待者不影响本提供商
+            if (canAdmit(providers.computeIfAbsent(provider, this::newProviderState))) {
+                return;
+            }
+            if (waiters.size() >= properties.getMaxQueueSize()
+                    && (waiters.isEmpty() || waiters.last().priority.getOrder() <= effectivePriority.getOrder())) {
+                metrics.rejectedQueueFull();
+                throw reject("服务繁忙，请稍后再试");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前排队数
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前全局进行中的对话数
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return globalInFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 各提供商进行中的对话数
+     */
+    public Map<String, Integer> getProviderInFlight() {
+        lock.lock();
+        try {
+            Map<String, Integer> snapshot = new LinkedHashMap<>();
+            providers.forEach((key, state) -> snapshot.put(key, state.inFlight));
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ProviderState newProviderState(String provider) {
+        return new ProviderState(properties.getProviderLimits().getOrDefault(provider,
+                properties.getDefaultProviderLimit()));
+    }
+
+    private boolean canAdmit(ProviderState state) {
+        return globalInFlight < properties.getGlobalLimit() && state.inFlight < state.limit;
+    }
+
+    private AdmissionPermit grant(ProviderState state, long startNanos) {
+        globalInFlight++;
+        state.inFlight++;
+        return newPermit(state, startNanos);
+    }
+
+    private AdmissionPermit newPermit(ProviderState state, long startNanos) {
+        long admittedNanos = System.nanoTime();
+        metrics.admitted(TimeUnit.NANOSECONDS.toMillis(admittedNanos - startNanos));
+        return new AdmissionPermit(() -> release(state, admittedNanos));
+    }
+
+    private void release(ProviderState state, long admittedNanos) {
+        lock.lock();
+        try {
+            globalInFlight--;
+            state.inFlight--;
+            long holdMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - admittedNanos);
+            avgHoldMillis += HOLD_TIME_ALPHA * (holdMillis - avgHoldMillis);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按优先级放行所有可被容纳的等待者
+     */
+    private void dispatch() {
+        Iterator<Waiter> iterator = waiters.iterator();
+        while (iterator.hasNext() && globalInFlight < properties.getGlobalLimit()) {
+            Waiter waiter = iterator.next();
+            if (waiter.state.inFlight < waiter.state.limit) {
+                iterator.remove();
+                globalInFlight++;
+                waiter.state.inFlight++;
+                waiter.granted = true;
+                waiter.condition.signal();
+            }
+        }
+    }
+
+    /**
+     * 队列已满时挤出优先级更低的最新等待者
+     */
+    private boolean evictLowerPriority(RequestPriority priority) {
+        if (waiters.isEmpty()) {
+            return false;
+        }
+        Waiter lowest = waiters.last();
+        if (lowest.priority.getOrder() <= priority.getOrder()) {
+            return false;
+        }
+        waiters.remove(lowest);
+        lowest.evicted = true;
+        lowest.condition.signal();
+        metrics.evicted();
+        return true;
+    }
+
+    private long maxWait(RequestPriority priority) {
+        return priority == RequestPriority.BATCH ? properties.getBatchMaxWait() : properties.getInteractiveMaxWait();
+    }
+
+    /**
+     * 按平均占用时长与当前排队数估算重试间隔
+     */
+    private AdmissionRejectedException reject(String message) {
+        int limit = Math.max(properties.getGlobalLimit(), 1);
+        long estimateMillis = (long) (avgHoldMillis * (waiters.size() + 1) / limit);
+        long retryAfter = Math.min(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(estimateMillis + 999)),
+                Math.max(1, properties.getMaxRetryAfter()));
+        return new AdmissionRejectedException(message, retryAfter);
+    }
+
+    private static final class ProviderState {
+
+        private final int limit;
+        private int inFlight;
+
+        private ProviderState(int limit) {
+            this.limit = limit;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final ProviderState state;
+        private final RequestPriority priority;
+        private final long seq;
+        private final Condition condition;
+        private boolean granted;
+        private boolean evicted;
+
+        private Waiter(ProviderState state, RequestPriority priority, long seq, Condition condition) {
+            this.state = state;
+            this.priority = priority;
+            this.seq = seq;
+            this.condition = condition;
+        }
+    }
+}
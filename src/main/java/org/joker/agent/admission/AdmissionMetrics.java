@@ -0,0 +1,58 @@
+package org.joker.agent.admission;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 准入控制指标 统计放行、排队及各类拒绝情况
+ */
+@Component
+public class AdmissionMetrics {
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder totalQueueWaitMillis = new LongAdder();
+    private final LongAccumulator maxQueueWaitMillis = new LongAccumulator(Math::max, 0);
+
+    void admitted(long waitMillis) {
+        admitted.increment();
+        totalQueueWaitMillis.add(waitMillis);
+        maxQueueWaitMillis.accumulate(waitMillis);
+    }
+
+    void queued() {
+        queued.increment();
+    }
+
+    void rejectedQueueFull() {
+        rejectedQueueFull.increment();
+    }
+
+    void rejectedTimeout() {
+        rejectedTimeout.increment();
+    }
+
+    void evicted() {
+        evicted.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("admitted", admitted.sum());
+        snapshot.put("queued", queued.sum());
+        snapshot.put("rejectedQueueFull", rejectedQueueFull.sum());
+        snapshot.put("rejectedTimeout", rejectedTimeout.sum());
+        snapshot.put("evicted", evicted.sum());
+        long admittedCount = admitted.sum();
+        snapshot.put("avgQueueWaitMillis", admittedCount == 0 ? 0 : totalQueueWaitMillis.sum() / admittedCount);
+        snapshot.put("maxQueueWaitMillis", maxQueueWaitMillis.get());
+        return snapshot;
+    }
+}
@@ -0,0 +1,28 @@
+package org.joker.agent.admission;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 准入许可，对话结束时释放，重复释放无副作用
+ */
+public final class AdmissionPermit {
+
+    /**
+     * 未开启准入控制时使用的空许可
+     */
+    static final AdmissionPermit NOOP = new AdmissionPermit(() -> {
+    });
+
+    private final Runnable onRelease;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    AdmissionPermit(Runnable onRelease) {
+        this.onRelease = onRelease;
+    }
+
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            onRelease.run();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.joker.agent.annotation;
 
+import org.joker.agent.enums.ToolCacheScope;
 import org.springframework.core.annotation.AliasFor;
 import org.springframework.stereotype.Component;
 
@@ -44,6 +45,42 @@ public @interface BuiltInTool {
      */
     boolean enabled() default true;
 
+    /**
+     * 工具结果缓存有效期（秒） 大于0时该提供者的所有工具结果按参数缓存，仅用于只读、幂等的工具；
+     * 单个工具可通过 ToolDefinition.Builder#cacheable 单独声明
+     *
+     * @return 缓存有效期，默认为0（不缓存）
+     */
+    long cacheTtl() default 0;
+
+    /**
+     * 工具结果缓存的共享范围
+     *
+     * @return 共享范围，默认为会话
+     */
+    ToolCacheScope cacheScope() default ToolCacheScope.SESSION;
+
+    /**
+     * 该提供者同时执行的工具调用上限 超出后进入等待队列，配置 chat.tool-execution.bulkheads 优先
+     *
+     * @return 并发上限，默认为0（使用全局默认值）
+     */
+    int maxConcurrency() default 0;
+
+    /**
+     * 该提供者的等待队列上限 队列满时调用直接以错误结果返回给模型
+     *
+     * @return 队列上限，默认为-1（使用全局默认值）
+     */
+    int maxQueue() default -1;
+
+    /**
+     * 该提供者工具调用的超时时间（毫秒） 排队时间计入超时
+     *
+     * @return 超时时间，默认为0（使用全局默认值）
+     */
+    long timeout() default 0;
+
     /**
      * Spring组件的名称 作为@Component注解的别名
      *
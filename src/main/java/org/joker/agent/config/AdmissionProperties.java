@@ -0,0 +1,55 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 对话入口准入控制配置
+ */
+@ConfigurationProperties(prefix = "chat.admission")
+@Data
+public class AdmissionProperties {
+
+    /**
+     * 是否开启准入控制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 全局同时进行中的对话上限
+     */
+    private int globalLimit = 64;
+
+    /**
+     * 单个模型提供商同时进行中的对话上限（未在providerLimits中单独配置时使用）
+     */
+    private int defaultProviderLimit = 32;
+
+    /**
+     * 按提供商协议单独配置的并发上限，如 OPENAI: 48
+     */
+    private Map<String, Integer> providerLimits = new HashMap<>();
+
+    /**
+     * 等待队列长度上限，超出后直接拒绝（或挤出更低优先级的等待者）
+     */
+    private int maxQueueSize = 128;
+
+    /**
+     * 交互式请求最长排队时间（毫秒），即排队等待的SLO
+     */
+    private long interactiveMaxWait = 3000L;
+
+    /**
+     * 批量请求最长排队时间（毫秒）
+     */
+    private long batchMaxWait = 1000L;
+
+    /**
+     * 返回给客户端的Retry-After上限（秒）
+     */
+    private long maxRetryAfter = 30L;
+}
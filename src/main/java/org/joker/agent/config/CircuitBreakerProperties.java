@@ -0,0 +1,63 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.joker.agent.model.LLMEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 模型端点熔断配置
+ */
+@ConfigurationProperties(prefix = "chat.circuit-breaker")
+@Data
+public class CircuitBreakerProperties {
+
+    /**
+     * 是否开启熔断
+     */
+    private boolean enabled = true;
+
+    /**
+     * 统计窗口内的最近调用数
+     */
+    private int windowSize = 20;
+
+    /**
+     * 窗口内至少有该数量的调用才计算失败率
+     */
+    private int minimumCalls = 10;
+
+    /**
+     * 失败率阈值，达到后熔断
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * 慢调用比例阈值，达到后熔断
+     */
+    private double slowCallRateThreshold = 0.8;
+
+    /**
+     * 流式调用首token时间超过该值（毫秒）视为慢调用
+     */
+    private long slowFirstTokenThreshold = 30000L;
+
+    /**
+     * 非流式调用完整响应时间超过该值（毫秒）视为慢调用
+     */
+    private long slowCallThreshold = 60000L;
+
+    /**
+     * 熔断后保持打开的时间（毫秒），之后进入半开状态放行探测请求
+     */
+    private long openDuration = 30000L;
+
+    /**
+     * 半开状态放行的探测请求数，全部成功后关闭熔断
+     */
+    private int halfOpenProbes = 3;
+
+    /**
+     * 熔断打开时改用的备用模型，未配置baseUrl时直接快速失败
+     */
+    private LLMEndpoint fallback;
+}
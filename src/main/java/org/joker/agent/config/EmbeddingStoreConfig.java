@@ -2,6 +2,7 @@ package org.joker.agent.config;
 
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
 import dev.langchain4j.store.embedding.milvus.MilvusEmbeddingStore;
 import io.milvus.client.MilvusServiceClient;
 import io.milvus.common.clientenum.ConsistencyLevelEnum;
@@ -9,6 +10,7 @@ import io.milvus.param.ConnectParam;
 import io.milvus.param.IndexType;
 import io.milvus.param.MetricType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -33,6 +35,7 @@ public class EmbeddingStoreConfig {
      * 记忆向量库
      */
     @Bean(name = "memoryEmbeddingStore")
+    @ConditionalOnProperty(prefix = "vector-database.milvus", name = "type", havingValue = "milvus", matchIfMissing = true)
     public EmbeddingStore<TextSegment> memoryEmbeddingStore() {
         return MilvusEmbeddingStore.builder()
                 .milvusClient(memoryMilvusClient())
@@ -50,4 +53,13 @@ public class EmbeddingStoreConfig {
                 .build();
     }
 
+    /**
+     * 本地内存记忆向量库，不依赖Milvus
+     */
+    @Bean(name = "memoryEmbeddingStore")
+    @ConditionalOnProperty(prefix = "vector-database.milvus", name = "type", havingValue = "in-memory")
+    public EmbeddingStore<TextSegment> inMemoryEmbeddingStore() {
+        return new InMemoryEmbeddingStore<>();
+    }
+
 }
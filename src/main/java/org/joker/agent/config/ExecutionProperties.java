@@ -0,0 +1,64 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.joker.agent.enums.TurnConcurrencyPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 对话流水线执行模型配置
+ */
+@ConfigurationProperties(prefix = "chat.execution")
+@Data
+public class ExecutionProperties {
+
+    /**
+     * 是否使用虚拟线程执行后台任务与阻塞的模型/工具调用，关闭时回退为平台线程池（会话执行体始终使用虚拟线程）
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * 单个执行器的最大并发数，-1 表示不限制（仅虚拟线程模式生效）
+     */
+    private int concurrencyLimit = -1;
+
+    /**
+     * 平台线程池核心线程数（仅在关闭虚拟线程时生效）
+     */
+    private int corePoolSize = 8;
+
+    /**
+     * 平台线程池最大线程数（仅在关闭虚拟线程时生效）
+     */
+    private int maxPoolSize = 64;
+
+    /**
+     * 平台线程池队列容量（仅在关闭虚拟线程时生效）
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * 同一会话并发轮次的处理策略
+     */
+    private TurnConcurrencyPolicy turnPolicy = TurnConcurrencyPolicy.QUEUE;
+
+    /**
+     * 每个会话最多排队等待的轮次数（不含正在执行的一轮）
+     */
+    private int mailboxCapacity = 4;
+
+    /**
+     * 单轮对话的最长执行时间（毫秒），超时后执行体继续处理后续轮次
+     */
+    private long turnTimeout = 600000L;
+
+    /**
+     * 是否开启虚拟线程钉住诊断（基于JFR jdk.VirtualThreadPinned事件）
+     */
+    private boolean pinningDiagnostics = false;
+
+    /**
+     * 钉住时长超过该值（毫秒）才记录
+     */
+    private long pinnedThreshold = 20L;
+
+}
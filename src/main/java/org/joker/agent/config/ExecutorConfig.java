@@ -0,0 +1,98 @@
+package org.joker.agent.config;
+
+import io.opentelemetry.context.Context;
+import org.joker.agent.metrics.ExecutorTaskTracker;
+import org.joker.agent.monitor.jfr.BackgroundJobEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 执行器配置
+ * <p>
+ * 对话流水线中的阻塞调用（标题生成、记忆抽取、摘要、向量检索、工具执行）统一运行在这里定义的执行器上，
+ * 默认使用虚拟线程，可通过 chat.execution.virtual-threads 回退为平台线程池
+ */
+@Configuration
+@EnableAsync
+@EnableConfigurationProperties({ExecutionProperties.class, ToolExecutionProperties.class})
+public class ExecutorConfig {
+
+    /**
+     * 记忆抽取执行器
+     */
+    public static final String MEMORY_TASK_EXECUTOR = "memoryTaskExecutor";
+
+    /**
+     * 后台任务执行器（会话标题生成等）
+     */
+    public static final String BACKGROUND_TASK_EXECUTOR = "backgroundTaskExecutor";
+
+    /**
+     * 阻塞工具执行器
+     */
+    public static final String TOOL_TASK_EXECUTOR = "toolTaskExecutor";
+
+    /**
+     * 会话执行体执行器，始终使用虚拟线程
+     */
+    public static final String SESSION_ACTOR_EXECUTOR = "sessionActorExecutor";
+
+    @Bean(name = MEMORY_TASK_EXECUTOR)
+    public AsyncTaskExecutor memoryTaskExecutor(ExecutionProperties properties, ExecutorTaskTracker taskTracker) {
+        return createExecutor(MEMORY_TASK_EXECUTOR, "memory-task-", properties, taskTracker);
+    }
+
+    @Bean(name = BACKGROUND_TASK_EXECUTOR)
+    public AsyncTaskExecutor backgroundTaskExecutor(ExecutionProperties properties, ExecutorTaskTracker taskTracker) {
+        return createExecutor(BACKGROUND_TASK_EXECUTOR, "background-task-", properties, taskTracker);
+    }
+
+    @Bean(name = TOOL_TASK_EXECUTOR)
+    public AsyncTaskExecutor toolTaskExecutor(ExecutionProperties properties, ExecutorTaskTracker taskTracker) {
+        return createExecutor(TOOL_TASK_EXECUTOR, "tool-task-", properties, taskTracker);
+    }
+
+    @Bean(name = SESSION_ACTOR_EXECUTOR)
+    public AsyncTaskExecutor sessionActorExecutor(ExecutorTaskTracker taskTracker) {
+        // 执行体是协调者而非工作负载：每个执行体在整轮对话期间（含等待准入）阻塞等待，
+        // 不受 chat.execution.virtual-threads 与并发上限影响，否则同时进行的会话数会被平台线程数卡住
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("session-actor-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(taskDecorator(SESSION_ACTOR_EXECUTOR));
+        return taskTracker.track(SESSION_ACTOR_EXECUTOR, executor);
+    }
+
+    /**
+     * 提交任务时的追踪上下文随任务传播，异步任务的span关联到发起它的对话链路；执行区间记录为JFR事件
+     */
+    private static TaskDecorator taskDecorator(String executorName) {
+        return runnable -> Context.current().wrap(BackgroundJobEvent.wrap(executorName, runnable));
+    }
+
+    private AsyncTaskExecutor createExecutor(String executorName, String threadNamePrefix,
+                                             ExecutionProperties properties, ExecutorTaskTracker taskTracker) {
+        TaskDecorator taskDecorator = taskDecorator(executorName);
+        if (properties.isVirtualThreads()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(properties.getConcurrencyLimit());
+            executor.setTaskDecorator(taskDecorator);
+            return taskTracker.track(executorName, executor);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(taskDecorator);
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return taskTracker.track(executorName, executor);
+    }
+}
@@ -0,0 +1,52 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 多端点对冲请求与故障转移配置
+ */
+@ConfigurationProperties(prefix = "chat.hedge")
+@Data
+public class HedgeProperties {
+
+    /**
+     * 是否开启对冲请求，关闭后仍会在首token前故障转移
+     */
+    private boolean enabled = true;
+
+    /**
+     * 对冲延迟取主端点首token时间的该分位数
+     */
+    private double percentile = 0.95;
+
+    /**
+     * 采样不足时使用的对冲延迟（毫秒）
+     */
+    private long initialDelay = 3000L;
+
+    /**
+     * 对冲延迟下界（毫秒）
+     */
+    private long minDelay = 500L;
+
+    /**
+     * 对冲延迟上界（毫秒）
+     */
+    private long maxDelay = 10000L;
+
+    /**
+     * 计算分位数所需的最少采样数
+     */
+    private int minSamples = 20;
+
+    /**
+     * 每个端点保留的最近首token时间采样数
+     */
+    private int sampleWindow = 256;
+
+    /**
+     * 单次调用最多发出的对冲请求数（不含故障转移）
+     */
+    private int maxHedges = 1;
+}
@@ -0,0 +1,13 @@
+package org.joker.agent.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MCP工具相关配置
+ */
+@Configuration
+@EnableConfigurationProperties(McpProperties.class)
+public class McpConfig {
+
+}
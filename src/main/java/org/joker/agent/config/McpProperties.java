@@ -0,0 +1,77 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.joker.agent.enums.McpTransportType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MCP服务器连接配置
+ */
+@ConfigurationProperties(prefix = "chat.mcp")
+@Data
+public class McpProperties {
+
+    /**
+     * 是否启用MCP工具
+     */
+    private boolean enabled = true;
+
+    /**
+     * 按服务器名称配置的MCP服务器，名称与Agent工具列表及预设参数中的 mcpServerName 对应
+     */
+    private Map<String, Server> servers = new HashMap<>();
+
+    @Data
+    public static class Server {
+
+        /**
+         * 连接方式
+         */
+        private McpTransportType transport = McpTransportType.STDIO;
+
+        /**
+         * STDIO方式的启动命令及参数
+         */
+        private List<String> command = new ArrayList<>();
+
+        /**
+         * STDIO方式子进程的环境变量
+         */
+        private Map<String, String> environment = new HashMap<>();
+
+        /**
+         * HTTP方式的SSE端点地址
+         */
+        private String url;
+
+        /**
+         * 连接池大小，每个连接为一个长连接（STDIO方式为一个子进程），调用在连接间轮询
+         */
+        private int poolSize = 1;
+
+        /**
+         * 连接初始化（握手）超时时间（毫秒）
+         */
+        private long initializationTimeout = 30000L;
+
+        /**
+         * 单次工具调用超时时间（毫秒），应不小于 chat.tool-execution 中该工具的超时
+         */
+        private long toolExecutionTimeout = 60000L;
+
+        /**
+         * 工具列表缓存的最长有效期（秒），不大于0时只在连接重建后刷新
+         */
+        private long toolsRefreshInterval = 300L;
+
+        /**
+         * 是否记录收发的MCP消息
+         */
+        private boolean logEvents = false;
+    }
+}
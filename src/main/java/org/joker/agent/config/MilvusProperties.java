@@ -7,6 +7,11 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @Data
 public class MilvusProperties {
 
+    /**
+     * 向量库类型：milvus，或 in-memory（本地内存，用于离线压测与开发）
+     */
+    private String type = "milvus";
+
     private String host;
     private int port;
     private String databaseName;
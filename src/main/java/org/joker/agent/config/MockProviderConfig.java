@@ -0,0 +1,13 @@
+package org.joker.agent.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 本地模拟模型相关配置
+ */
+@Configuration
+@EnableConfigurationProperties(MockProviderProperties.class)
+public class MockProviderConfig {
+
+}
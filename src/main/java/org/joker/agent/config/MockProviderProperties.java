@@ -0,0 +1,77 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 本地模拟模型（MOCK协议）配置，用于离线压测与延迟测试
+ */
+@ConfigurationProperties(prefix = "chat.mock")
+@Data
+public class MockProviderProperties {
+
+    /**
+     * 随机种子，相同种子与相同输入产生相同的输出与时序
+     */
+    private long seed = 42L;
+
+    /**
+     * 首token时间均值（毫秒）
+     */
+    private long firstTokenMillis = 300L;
+
+    /**
+     * 首token时间的随机抖动幅度（毫秒）
+     */
+    private long firstTokenJitterMillis = 200L;
+
+    /**
+     * 输出速度（token/秒），不大于0时一次性输出
+     */
+    private double tokensPerSecond = 50;
+
+    /**
+     * 输出长度均值（token）
+     */
+    private int responseTokensMean = 200;
+
+    /**
+     * 输出长度标准差（token）
+     */
+    private int responseTokensStdDev = 80;
+
+    /**
+     * 输出长度下界（token）
+     */
+    private int minResponseTokens = 1;
+
+    /**
+     * 输出长度上界（token）
+     */
+    private int maxResponseTokens = 2000;
+
+    /**
+     * 请求携带工具时发起工具调用的概率（工具结果返回后的续轮不再调用）
+     */
+    private double toolCallProbability = 0;
+
+    /**
+     * 注入错误的概率
+     */
+    private double errorRate = 0;
+
+    /**
+     * 注入的错误中，发生在首token之前的比例，其余在输出中途发生
+     */
+    private double errorBeforeFirstTokenRatio = 0.5;
+
+    /**
+     * 注入的错误中，以限流（429）形式出现的比例，其余为服务端错误（5xx）
+     */
+    private double rateLimitErrorRatio = 0.5;
+
+    /**
+     * 驱动流式输出的调度线程数，不大于0时取CPU核数
+     */
+    private int schedulerThreads = 0;
+}
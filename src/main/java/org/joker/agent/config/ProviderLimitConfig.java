@@ -0,0 +1,25 @@
+package org.joker.agent.config;
+
+import org.joker.agent.limit.ApiKeyRateLimiter;
+import org.joker.agent.limit.LocalApiKeyRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 模型调用限制相关配置
+ */
+@Configuration
+@EnableConfigurationProperties({ProviderLimitProperties.class, RateLimitProperties.class})
+public class ProviderLimitConfig {
+
+    /**
+     * 默认使用本地内存限流，多节点部署时声明基于共享存储的 {@link ApiKeyRateLimiter} 即可替换
+     */
+    @Bean
+    @ConditionalOnMissingBean(ApiKeyRateLimiter.class)
+    public ApiKeyRateLimiter apiKeyRateLimiter(RateLimitProperties properties) {
+        return new LocalApiKeyRateLimiter(properties);
+    }
+}
@@ -0,0 +1,62 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 模型端点自适应并发限制配置
+ */
+@ConfigurationProperties(prefix = "chat.provider-limit")
+@Data
+public class ProviderLimitProperties {
+
+    /**
+     * 是否开启自适应并发限制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 8;
+
+    /**
+     * 并发上限下界
+     */
+    private int minLimit = 1;
+
+    /**
+     * 并发上限上界
+     */
+    private int maxLimit = 128;
+
+    /**
+     * 延迟容忍倍数，采样延迟超过基线的该倍数即视为延迟突增
+     */
+    private double latencyTolerance = 2.0;
+
+    /**
+     * 延迟突增时的收缩比例
+     */
+    private double latencyBackoffRatio = 0.9;
+
+    /**
+     * 上游返回429/5xx或超时时的收缩比例
+     */
+    private double overloadBackoffRatio = 0.5;
+
+    /**
+     * 延迟基线向较高采样漂移的速率，使基线能跟随服务商不同时段的延迟变化
+     */
+    private double baselineDrift = 0.02;
+
+    /**
+     * 后台请求（摘要、记忆抽取、标题生成）最多可占用的并发比例，其余留给交互式对话
+     */
+    private double backgroundRatio = 0.75;
+
+    /**
+     * 等待并发许可的最长时间（毫秒）
+     */
+    private long maxWait = 60000L;
+}
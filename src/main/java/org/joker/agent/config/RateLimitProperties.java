@@ -0,0 +1,58 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按API Key的请求数/token数限流配置
+ */
+@ConfigurationProperties(prefix = "chat.rate-limit")
+@Data
+public class RateLimitProperties {
+
+    /**
+     * 是否开启限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 默认每分钟请求数上限，0表示不限制
+     */
+    private int requestsPerMinute = 1000;
+
+    /**
+     * 默认每分钟token数上限，0表示不限制
+     */
+    private long tokensPerMinute = 400000L;
+
+    /**
+     * 允许的突发量，以多少秒的配额计
+     */
+    private long burstSeconds = 10L;
+
+    /**
+     * 未指定最大输出时预估的输出token数
+     */
+    private int expectedOutputTokens = 512;
+
+    /**
+     * 预算不足时最长延迟时间（毫秒），超出则拒绝本次调用
+     */
+    private long maxDelay = 60000L;
+
+    /**
+     * 按API Key指纹（SHA-256前12位，见监控接口）单独配置的限额
+     */
+    private Map<String, KeyLimit> keys = new HashMap<>();
+
+    @Data
+    public static class KeyLimit {
+
+        private int requestsPerMinute;
+
+        private long tokensPerMinute;
+    }
+}
@@ -0,0 +1,13 @@
+package org.joker.agent.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 模型调用容错相关配置
+ */
+@Configuration
+@EnableConfigurationProperties({HedgeProperties.class, CircuitBreakerProperties.class})
+public class ResilienceConfig {
+
+}
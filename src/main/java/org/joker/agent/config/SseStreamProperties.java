@@ -0,0 +1,69 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.joker.agent.enums.SlowConsumerPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * SSE流式传输配置
+ */
+@ConfigurationProperties(prefix = "chat.stream")
+@Data
+public class SseStreamProperties {
+
+    /**
+     * 等待另一端（订阅方或生产方）到达的最长时间（毫秒）
+     */
+    private long subscribeTimeout = 30000L;
+
+    /**
+     * 单连接出站队列的字节上限（含订阅方到达前的缓冲）
+     */
+    private long maxBufferBytes = 1024 * 1024L;
+
+    /**
+     * 单连接出站队列的帧数上限
+     */
+    private int maxBufferFrames = 4096;
+
+    /**
+     * 出站队列超限时的处理策略
+     */
+    private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.COALESCE;
+
+    /**
+     * 单帧发送耗时超过该值（毫秒）即判定为慢消费者
+     */
+    private long slowSendThreshold = 2000L;
+
+    /**
+     * 订阅方SseEmitter的超时时间（毫秒），作为兜底，正常由时间轮的首帧/空闲超时先行回收
+     */
+    private long emitterTimeout = 3000000L;
+
+    /**
+     * 空闲连接的心跳间隔（毫秒）
+     */
+    private long heartbeatInterval = 15000L;
+
+    /**
+     * 生产方绑定后等待首帧的最长时间（毫秒）
+     */
+    private long firstTokenTimeout = 120000L;
+
+    /**
+     * 两帧之间允许的最长空闲时间（毫秒），需覆盖较长的工具调用
+     */
+    private long idleTimeout = 300000L;
+
+    /**
+     * 时间轮刻度（毫秒）
+     */
+    private long timerTick = 100L;
+
+    /**
+     * 时间轮槽位数量
+     */
+    private int timerWheelSize = 512;
+
+}
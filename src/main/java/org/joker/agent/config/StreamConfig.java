@@ -0,0 +1,13 @@
+package org.joker.agent.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 流式传输相关配置
+ */
+@Configuration
+@EnableConfigurationProperties(SseStreamProperties.class)
+public class StreamConfig {
+
+}
@@ -0,0 +1,13 @@
+package org.joker.agent.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 本地分词器相关配置
+ */
+@Configuration
+@EnableConfigurationProperties(TokenizerProperties.class)
+public class TokenizerConfig {
+
+}
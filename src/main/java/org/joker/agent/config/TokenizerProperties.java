@@ -0,0 +1,47 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地分词器配置，用于计算消息的Token数与调用前的上下文窗口检查
+ */
+@ConfigurationProperties(prefix = "chat.tokenizer")
+@Data
+public class TokenizerProperties {
+
+    /**
+     * BPE词表位置（tiktoken格式：每行为 base64编码的token与rank），文件路径或 classpath: 前缀的类路径资源；
+     * 未配置或加载失败时Token数为按字符数的估算值
+     */
+    private String vocabulary;
+
+    /**
+     * 是否要求精确计数，为true时词表未配置或加载失败则启动失败
+     */
+    private boolean required = false;
+
+    /**
+     * 预分词正则，默认与 cl100k_base 一致
+     */
+    private String pattern = "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}"
+            + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+";
+
+    /**
+     * 按内容哈希缓存的Token数条目上限
+     */
+    private int cacheMaxEntries = 20000;
+
+    /**
+     * 各模型的上下文窗口（Token数），键为模型ID
+     */
+    private Map<String, Integer> contextWindows = new HashMap<>();
+
+    /**
+     * 未单独配置的模型的上下文窗口，0为不检查
+     */
+    private int defaultContextWindow = 0;
+}
@@ -0,0 +1,13 @@
+package org.joker.agent.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 工具结果缓存相关配置
+ */
+@Configuration
+@EnableConfigurationProperties(ToolCacheProperties.class)
+public class ToolCacheConfig {
+
+}
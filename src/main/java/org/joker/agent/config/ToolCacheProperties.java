@@ -0,0 +1,50 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.joker.agent.enums.ToolCacheScope;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 工具结果缓存配置
+ */
+@ConfigurationProperties(prefix = "chat.tool-cache")
+@Data
+public class ToolCacheProperties {
+
+    /**
+     * 是否开启工具结果缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存总容量（字节，按键与结果的字符数估算），超出时按最近最少使用淘汰
+     */
+    private long maxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 单条结果超过该大小（字节）不缓存
+     */
+    private long maxEntryBytes = 1024L * 1024;
+
+    /**
+     * 按工具名配置的缓存规则，用于无法在代码中声明的外部工具（如MCP工具），内置工具的声明优先
+     */
+    private Map<String, Rule> tools = new HashMap<>();
+
+    @Data
+    public static class Rule {
+
+        /**
+         * 缓存有效期（秒）
+         */
+        private long ttl = 60;
+
+        /**
+         * 共享范围
+         */
+        private ToolCacheScope scope = ToolCacheScope.SESSION;
+    }
+}
@@ -0,0 +1,69 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 工具执行配置
+ */
+@ConfigurationProperties(prefix = "chat.tool-execution")
+@Data
+public class ToolExecutionProperties {
+
+    /**
+     * 模型一步返回多个工具调用时是否并发执行
+     */
+    private boolean parallel = true;
+
+    /**
+     * 单轮对话同时执行的工具调用上限
+     */
+    private int maxConcurrencyPerTurn = 4;
+
+    /**
+     * 工具执行默认超时时间（毫秒），超时后取消执行并以超时信息作为工具结果返回给模型
+     */
+    private long defaultTimeout = 30000L;
+
+    /**
+     * 按工具名单独配置的超时时间（毫秒）
+     */
+    private Map<String, Long> timeouts = new HashMap<>();
+
+    /**
+     * 单个工具提供者同时执行的工具调用上限（隔离舱），提供者未声明时使用
+     */
+    private int defaultMaxConcurrency = 16;
+
+    /**
+     * 单个工具提供者的等待队列上限，队列满时直接拒绝，提供者未声明时使用
+     */
+    private int defaultMaxQueue = 32;
+
+    /**
+     * 按工具提供者名称配置的隔离舱，优先于@BuiltInTool上的声明
+     */
+    private Map<String, Bulkhead> bulkheads = new HashMap<>();
+
+    @Data
+    public static class Bulkhead {
+
+        /**
+         * 同时执行的工具调用上限
+         */
+        private Integer maxConcurrency;
+
+        /**
+         * 等待队列上限
+         */
+        private Integer maxQueue;
+
+        /**
+         * 该提供者工具调用的超时时间（毫秒）
+         */
+        private Long timeout;
+    }
+}
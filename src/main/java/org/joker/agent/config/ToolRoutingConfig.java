@@ -0,0 +1,13 @@
+package org.joker.agent.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 工具路由相关配置
+ */
+@Configuration
+@EnableConfigurationProperties(ToolRoutingProperties.class)
+public class ToolRoutingConfig {
+
+}
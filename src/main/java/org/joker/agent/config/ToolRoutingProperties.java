@@ -0,0 +1,45 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 工具路由配置，按用户消息只向模型提供最相关的工具
+ */
+@ConfigurationProperties(prefix = "chat.tool-routing")
+@Data
+public class ToolRoutingProperties {
+
+    /**
+     * 是否开启工具路由
+     */
+    private boolean enabled = true;
+
+    /**
+     * 可用工具数超过该值时才进行路由，工具较少时全部提供
+     */
+    private int minTools = 12;
+
+    /**
+     * 每轮提供给模型的工具数（不含固定提供的工具）
+     */
+    private int topK = 8;
+
+    /**
+     * 是否使用Agent的Embedding模型计算语义相似度，关闭或Agent未配置时只按词项匹配
+     */
+    private boolean useEmbedding = true;
+
+    /**
+     * 词项匹配得分的权重，其余为语义相似度的权重
+     */
+    private double lexicalWeight = 0.4;
+
+    /**
+     * 始终提供给模型的工具名（预设了参数的工具也始终提供）
+     */
+    private List<String> pinnedTools = new ArrayList<>();
+}
@@ -0,0 +1,80 @@
+package org.joker.agent.config;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.logging.otlp.OtlpStdoutSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.joker.agent.tracing.RecentSpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 链路追踪配置
+ * <p>
+ * 不依赖外部采集端：默认保留在内存中（/monitor/traces），也可写入OTLP JSON Lines文件离线分析
+ */
+@Configuration
+@EnableConfigurationProperties(TracingProperties.class)
+public class TracingConfig {
+
+    /**
+     * 追踪器名称
+     */
+    public static final String INSTRUMENTATION_NAME = "org.joker.agent";
+
+    @Bean
+    public RecentSpanExporter recentSpanExporter(TracingProperties properties) {
+        return new RecentSpanExporter(properties.getMemoryCapacity());
+    }
+
+    @Bean
+    public OpenTelemetry openTelemetry(TracingProperties properties, RecentSpanExporter recentSpanExporter,
+                                       @Value("${spring.application.name}") String serviceName) throws IOException {
+        if (!properties.isEnabled()) {
+            return OpenTelemetry.noop();
+        }
+        SdkTracerProviderBuilder tracerProvider = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(
+                        Attributes.builder().put("service.name", serviceName).build())))
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(properties.getSampleRatio())));
+        SpanExporter exporter = switch (properties.getExporter()) {
+            case MEMORY -> recentSpanExporter;
+            case OTLP_FILE -> otlpFileExporter(properties.getFilePath());
+            case NONE -> null;
+        };
+        if (exporter != null) {
+            tracerProvider.addSpanProcessor(BatchSpanProcessor.builder(exporter).build());
+        }
+        return OpenTelemetrySdk.builder().setTracerProvider(tracerProvider.build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance())).build();
+    }
+
+    @Bean
+    public Tracer chatTracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+
+    private static SpanExporter otlpFileExporter(String filePath) throws IOException {
+        Path path = Path.of(filePath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        return OtlpStdoutSpanExporter.builder().setOutput(new FileOutputStream(path.toFile(), true)).build();
+    }
+}
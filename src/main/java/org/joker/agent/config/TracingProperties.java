@@ -0,0 +1,38 @@
+package org.joker.agent.config;
+
+import lombok.Data;
+import org.joker.agent.enums.TraceExporterType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 对话链路追踪（OpenTelemetry）配置
+ */
+@ConfigurationProperties(prefix = "chat.tracing")
+@Data
+public class TracingProperties {
+
+    /**
+     * 是否开启链路追踪，关闭时使用无操作实现
+     */
+    private boolean enabled = true;
+
+    /**
+     * 导出方式
+     */
+    private TraceExporterType exporter = TraceExporterType.MEMORY;
+
+    /**
+     * 采样比例（按traceId，子span跟随父span的采样决定）
+     */
+    private double sampleRatio = 1.0;
+
+    /**
+     * 内存导出时保留的最近span数量
+     */
+    private int memoryCapacity = 2048;
+
+    /**
+     * OTLP文件导出路径
+     */
+    private String filePath = "logs/traces.jsonl";
+}
@@ -1,11 +1,15 @@
 package org.joker.agent.context;
 
 import lombok.Data;
+import org.joker.agent.metrics.TurnMetrics;
 import org.joker.agent.model.AgentEntity;
 import org.joker.agent.model.LLMModelConfig;
 import org.joker.agent.model.MessageEntity;
+import org.joker.agent.monitor.jfr.TurnEvents;
+import org.joker.agent.tracing.TurnTrace;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Data
 public class ChatContext {
@@ -50,4 +54,24 @@ public class ChatContext {
      */
     private String instanceId;
 
+    /**
+     * 本轮对话结束信号（成功或失败均会完成），会话执行体据此串行化同一会话的轮次
+     */
+    private CompletableFuture<Void> turnCompletion = new CompletableFuture<>();
+
+    /**
+     * 本轮指标记录器
+     */
+    private TurnMetrics turnMetrics = TurnMetrics.NOOP;
+
+    /**
+     * 本轮链路追踪
+     */
+    private TurnTrace turnTrace = TurnTrace.NOOP;
+
+    /**
+     * 本轮JFR事件
+     */
+    private TurnEvents turnEvents = TurnEvents.NOOP;
+
 }
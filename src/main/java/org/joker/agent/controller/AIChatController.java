@@ -6,7 +6,7 @@ import org.joker.agent.dto.NewSessionDTO;
 import org.joker.agent.model.MessageEntity;
 import org.joker.agent.model.SessionEntity;
 import org.joker.agent.service.AiChatService;
-import org.joker.agent.service.ChatSessionManager;
+import org.joker.agent.transport.SseStreamRendezvous;
 import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -22,7 +22,7 @@ public class AIChatController {
     private AiChatService aiChatService;
 
     @Resource
-    private ChatSessionManager chatSessionManager;
+    private SseStreamRendezvous streamRendezvous;
 
     /**
      * 发起聊天
@@ -39,31 +39,8 @@ public class AIChatController {
      */
     @GetMapping(value = "/stream/{sessionId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter stream(@PathVariable String sessionId) {
-        // 从会话管理器中获取SseEmitter
-        ChatSessionManager.SessionInfo sessionInfo = chatSessionManager.getActiveSessions().get(sessionId);
-
-        if (sessionInfo != null) {
-            // 如果会话存在，返回其SseEmitter
-            return sessionInfo.getEmitter();
-        }
-
-        // 如果会话不存在，创建一个等待的SseEmitter
-        // 最多等待30秒，让POST /chat有时间创建会话
-        SseEmitter emitter = new SseEmitter(30000L);
-
-        emitter.onCompletion(() -> {
-            chatSessionManager.removeSession(sessionId);
-        });
-
-        emitter.onTimeout(() -> {
-            chatSessionManager.removeSession(sessionId);
-        });
-
-        emitter.onError((throwable) -> {
-            chatSessionManager.removeSession(sessionId);
-        });
-
-        return emitter;
+        // 与POST /chat在会话通道上会合，无论谁先到达都不会丢失输出
+        return streamRendezvous.subscribe(sessionId);
     }
 
     /**
@@ -0,0 +1,166 @@
+package org.joker.agent.controller;
+
+import jakarta.annotation.Resource;
+import org.joker.agent.admission.AdmissionControl;
+import org.joker.agent.admission.AdmissionMetrics;
+import org.joker.agent.limit.ProviderLimiterRegistry;
+import org.joker.agent.mcp.McpClientPool;
+import org.joker.agent.monitor.VirtualThreadPinningMonitor;
+import org.joker.agent.resilience.CircuitBreakerRegistry;
+import org.joker.agent.resilience.HedgePolicy;
+import org.joker.agent.token.TokenCountService;
+import org.joker.agent.tool.ToolBulkheadRegistry;
+import org.joker.agent.tracing.RecentSpanExporter;
+import org.joker.agent.transport.SseStreamMetrics;
+import org.joker.agent.transport.SseStreamRendezvous;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运行指标查询接口
+ */
+@RestController
+@RequestMapping("/monitor")
+public class MonitorController {
+
+    @Resource
+    private SseStreamMetrics sseStreamMetrics;
+
+    @Resource
+    private SseStreamRendezvous streamRendezvous;
+
+    @Resource
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @Resource
+    private AdmissionControl admissionControl;
+
+    @Resource
+    private AdmissionMetrics admissionMetrics;
+
+    @Resource
+    private ProviderLimiterRegistry providerLimiterRegistry;
+
+    @Resource
+    private HedgePolicy hedgePolicy;
+
+    @Resource
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Resource
+    private RecentSpanExporter recentSpanExporter;
+
+    @Resource
+    private ToolBulkheadRegistry toolBulkheadRegistry;
+
+    @Resource
+    private McpClientPool mcpClientPool;
+
+    @Resource
+    private TokenCountService tokenCountService;
+
+    /**
+     * SSE流传输指标（出站队列、慢消费者、心跳与超时等）
+     */
+    @GetMapping("/stream")
+    public Map<String, Object> stream() {
+        Map<String, Object> snapshot = new LinkedHashMap<>(sseStreamMetrics.snapshot());
+        snapshot.put("pendingTimers", streamRendezvous.getPendingTimers());
+        return snapshot;
+    }
+
+    /**
+     * 执行模型指标（虚拟线程钉住诊断）
+     */
+    @GetMapping("/execution")
+    public Map<String, Object> execution() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("pinningDiagnostics", pinningMonitor.isEnabled());
+        snapshot.put("pinnedCount", pinningMonitor.getPinnedCount());
+        return snapshot;
+    }
+
+    /**
+     * 准入控制指标（进行中对话数、排队深度与拒绝情况）
+     */
+    @GetMapping("/admission")
+    public Map<String, Object> admission() {
+        Map<String, Object> snapshot = new LinkedHashMap<>(admissionMetrics.snapshot());
+        snapshot.put("inFlight", admissionControl.getInFlight());
+        snapshot.put("queueDepth", admissionControl.getQueueDepth());
+        snapshot.put("providerInFlight", admissionControl.getProviderInFlight());
+        return snapshot;
+    }
+
+    /**
+     * 各模型端点的自适应并发上限与延迟基线
+     */
+    @GetMapping("/providers")
+    public Map<String, Object> providers() {
+        return providerLimiterRegistry.snapshot();
+    }
+
+    /**
+     * 各API Key（指纹）的请求数/token数限流统计
+     */
+    @GetMapping("/rate-limits")
+    public Map<String, Object> rateLimits() {
+        return providerLimiterRegistry.rateLimitSnapshot();
+    }
+
+    /**
+     * 多端点对冲请求与故障转移统计
+     */
+    @GetMapping("/hedge")
+    public Map<String, Object> hedge() {
+        return hedgePolicy.snapshot();
+    }
+
+    /**
+     * 各模型端点熔断状态
+     */
+    @GetMapping("/circuit-breakers")
+    public Map<String, Object> circuitBreakers() {
+        return circuitBreakerRegistry.snapshot();
+    }
+
+    /**
+     * 各工具提供者隔离舱的执行、排队、拒绝与超时统计
+     */
+    @GetMapping("/tool-bulkheads")
+    public Map<String, Object> toolBulkheads() {
+        return toolBulkheadRegistry.snapshot();
+    }
+
+    /**
+     * 各MCP服务器的连接池与工具列表缓存统计
+     */
+    @GetMapping("/mcp")
+    public Map<String, Object> mcp() {
+        return mcpClientPool.snapshot();
+    }
+
+    /**
+     * 本地分词器的计数方式、词表与计数缓存统计
+     */
+    @GetMapping("/tokenizer")
+    public Map<String, Object> tokenizer() {
+        return tokenCountService.snapshot();
+    }
+
+    /**
+     * 最近的链路span（内存导出方式），可按traceId过滤
+     */
+    @GetMapping("/traces")
+    public List<Map<String, Object>> traces(@RequestParam(required = false) String traceId,
+                                            @RequestParam(defaultValue = "200") int limit) {
+        return recentSpanExporter.recent(traceId, Math.max(1, Math.min(limit, 2000)));
+    }
+
+}
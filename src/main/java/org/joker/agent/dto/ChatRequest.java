@@ -3,6 +3,7 @@ package org.joker.agent.dto;
 import jakarta.validation.constraints.NotBlank;
 
 import lombok.Data;
+import org.joker.agent.enums.RequestPriority;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,4 +25,9 @@ public class ChatRequest {
 
     private List<String> fileUrls = new ArrayList<>();
 
+    /**
+     * 请求优先级，过载时批量请求先被削减
+     */
+    private RequestPriority priority = RequestPriority.INTERACTIVE;
+
 }
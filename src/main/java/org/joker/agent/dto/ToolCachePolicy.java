@@ -0,0 +1,12 @@
+package org.joker.agent.dto;
+
+import org.joker.agent.enums.ToolCacheScope;
+
+/**
+ * 工具结果缓存策略，只应声明在只读、幂等的工具上
+ *
+ * @param ttlSeconds 缓存有效期（秒）
+ * @param scope      共享范围
+ */
+public record ToolCachePolicy(long ttlSeconds, ToolCacheScope scope) {
+}
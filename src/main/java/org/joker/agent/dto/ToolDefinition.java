@@ -3,6 +3,7 @@ package org.joker.agent.dto;
 
 import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.model.chat.request.json.*;
+import org.joker.agent.enums.ToolCacheScope;
 
 import java.util.*;
 
@@ -18,6 +19,7 @@ public class ToolDefinition {
     private final Map<String, ParameterDefinition> parameters;
     private final Set<String> requiredParameters;
     private final int priority;
+    private final ToolCachePolicy cachePolicy;
 
     private ToolDefinition(Builder builder) {
         this.name = builder.name;
@@ -25,6 +27,7 @@ public class ToolDefinition {
         this.parameters = new HashMap<>(builder.parameters);
         this.requiredParameters = new HashSet<>(builder.requiredParameters);
         this.priority = builder.priority;
+        this.cachePolicy = builder.cachePolicy;
     }
 
     /**
@@ -95,6 +98,10 @@ public class ToolDefinition {
         return priority;
     }
 
+    public ToolCachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
     /**
      * 创建构建器
      */
@@ -111,6 +118,7 @@ public class ToolDefinition {
         private Map<String, ParameterDefinition> parameters = new HashMap<>();
         private Set<String> requiredParameters = new HashSet<>();
         private int priority = 100;
+        private ToolCachePolicy cachePolicy;
 
         /**
          * 设置工具名称
@@ -136,6 +144,14 @@ public class ToolDefinition {
             return this;
         }
 
+        /**
+         * 声明工具结果可缓存（仅用于只读、幂等的工具），相同参数在有效期内直接返回缓存结果
+         */
+        public Builder cacheable(long ttlSeconds, ToolCacheScope scope) {
+            this.cachePolicy = new ToolCachePolicy(ttlSeconds, scope);
+            return this;
+        }
+
         /**
          * 添加字符串参数
          */
@@ -0,0 +1,17 @@
+package org.joker.agent.enums;
+
+/**
+ * MCP服务器连接方式
+ */
+public enum McpTransportType {
+
+    /**
+     * 标准输入输出 - 以子进程方式启动服务器，进程随连接保持
+     */
+    STDIO,
+
+    /**
+     * HTTP - 通过SSE端点连接远程服务器
+     */
+    HTTP
+}
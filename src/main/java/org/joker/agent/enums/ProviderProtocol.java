@@ -5,7 +5,12 @@ package org.joker.agent.enums;
  */
 public enum ProviderProtocol {
 
-    OPENAI, ANTHROPIC;
+    OPENAI, ANTHROPIC,
+
+    /**
+     * 本地模拟模型，用于离线压测，不发起任何网络请求
+     */
+    MOCK;
 
     public static ProviderProtocol fromCode(String code) {
         for (ProviderProtocol protocol : values()) {
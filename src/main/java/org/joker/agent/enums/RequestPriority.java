@@ -0,0 +1,27 @@
+package org.joker.agent.enums;
+
+/**
+ * 请求优先级，准入排队时数值越小越先被放行
+ */
+public enum RequestPriority {
+
+    /**
+     * 交互式对话 - 用户正在等待输出
+     */
+    INTERACTIVE(0),
+
+    /**
+     * 批量/后台请求 - 过载时优先被削减
+     */
+    BATCH(1);
+
+    private final int order;
+
+    RequestPriority(int order) {
+        this.order = order;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+}
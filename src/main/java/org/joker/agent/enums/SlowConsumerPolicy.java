@@ -0,0 +1,39 @@
+package org.joker.agent.enums;
+
+/**
+ * 慢消费者处理策略 出站队列超过上限时的处理方式
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * 合并策略 - 将队列中连续的文本增量合并为一帧，客户端仍能看到进度
+     */
+    COALESCE,
+
+    /**
+     * 丢弃中间增量 - 丢弃排队的文本增量，在下一帧非增量消息前一次性补发完整文本
+     */
+    DROP_INTERMEDIATE,
+
+    /**
+     * 断开策略 - 直接断开慢连接，客户端可通过历史消息恢复
+     */
+    DISCONNECT;
+
+    /**
+     * 从字符串转换为枚举值，如果不存在则返回默认值COALESCE
+     *
+     * @param value 策略名称字符串
+     * @return 对应的策略枚举值
+     */
+    public static SlowConsumerPolicy fromString(String value) {
+        if (value == null) {
+            return COALESCE;
+        }
+        try {
+            return SlowConsumerPolicy.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return COALESCE;
+        }
+    }
+}
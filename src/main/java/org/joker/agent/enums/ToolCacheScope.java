@@ -0,0 +1,22 @@
+package org.joker.agent.enums;
+
+/**
+ * 工具结果缓存的共享范围
+ */
+public enum ToolCacheScope {
+
+    /**
+     * 全局共享 - 结果与调用方无关（如公开数据查询）
+     */
+    GLOBAL,
+
+    /**
+     * 同一Agent共享 - 结果依赖Agent的工具配置（如知识库检索）
+     */
+    AGENT,
+
+    /**
+     * 同一会话共享 - 结果依赖会话上下文
+     */
+    SESSION
+}
@@ -0,0 +1,22 @@
+package org.joker.agent.enums;
+
+/**
+ * 链路追踪导出方式
+ */
+public enum TraceExporterType {
+
+    /**
+     * 不导出 - 仍创建上下文用于传播，但不保留任何span
+     */
+    NONE,
+
+    /**
+     * 内存 - 保留最近的span，通过 /monitor/traces 查询，无需外部依赖
+     */
+    MEMORY,
+
+    /**
+     * OTLP文件 - 以OTLP JSON Lines格式追加写入本地文件，可离线导入Jaeger/Tempo等工具
+     */
+    OTLP_FILE
+}
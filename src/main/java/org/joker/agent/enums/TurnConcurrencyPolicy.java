@@ -0,0 +1,17 @@
+package org.joker.agent.enums;
+
+/**
+ * 同一会话并发轮次的处理策略
+ */
+public enum TurnConcurrencyPolicy {
+
+    /**
+     * 排队 - 按到达顺序依次执行，超出邮箱容量时拒绝
+     */
+    QUEUE,
+
+    /**
+     * 拒绝 - 会话正在处理上一轮对话时直接拒绝新的轮次
+     */
+    REJECT
+}
@@ -0,0 +1,20 @@
+package org.joker.agent.exception;
+
+/**
+ * 准入拒绝异常，携带建议的重试间隔
+ */
+public class AdmissionRejectedException extends BusinessException {
+
+    public static final String OVERLOADED = "OVERLOADED";
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(OVERLOADED, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
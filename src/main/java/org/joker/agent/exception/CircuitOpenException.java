@@ -0,0 +1,13 @@
+package org.joker.agent.exception;
+
+/**
+ * 熔断打开异常，端点熔断期间快速失败时抛出
+ */
+public class CircuitOpenException extends BusinessException {
+
+    public static final String CIRCUIT_OPEN = "CIRCUIT_OPEN";
+
+    public CircuitOpenException(String endpoint) {
+        super(CIRCUIT_OPEN, "模型服务暂时不可用，请稍后再试: " + endpoint);
+    }
+}
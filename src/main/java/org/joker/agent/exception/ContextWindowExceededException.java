@@ -0,0 +1,16 @@
+package org.joker.agent.exception;
+
+/**
+ * 上下文窗口不足异常，输入加预留输出超出模型上下文窗口时抛出
+ * <p>
+ * 受理请求时检查不通过以413返回；调用模型前检查不通过（历史消息或工具结果过长）则经会话通道告知订阅方
+ */
+public class ContextWindowExceededException extends BusinessException {
+
+    public static final String CONTEXT_WINDOW_EXCEEDED = "CONTEXT_WINDOW_EXCEEDED";
+
+    public ContextWindowExceededException(long promptTokens, long outputTokens, int contextWindow) {
+        super(CONTEXT_WINDOW_EXCEEDED, "输入内容超出模型上下文窗口: " + promptTokens + " + " + outputTokens
+                + "(预留输出) > " + contextWindow + "，请开启Token溢出策略或缩短消息");
+    }
+}
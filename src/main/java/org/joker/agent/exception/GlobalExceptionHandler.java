@@ -0,0 +1,60 @@
+package org.joker.agent.exception;
+
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.limit.ApiKeyRateLimiter;
+import org.joker.agent.service.SessionActorRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 全局异常处理
+ */
+@Slf4j
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleAdmissionRejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(buildBody(e.getErrorCode(), e.getMessage()));
+    }
+
+    @ExceptionHandler(BusinessException.class)
+    public ResponseEntity<Map<String, Object>> handleBusinessException(BusinessException e) {
+        log.warn("业务异常: code={}, message={}", e.getErrorCode(), e.getMessage());
+        return ResponseEntity.status(resolveStatus(e.getErrorCode())).body(buildBody(e.getErrorCode(), e.getMessage()));
+    }
+
+    /**
+     * 根据错误码映射HTTP状态
+     */
+    private HttpStatus resolveStatus(String errorCode) {
+        if (SessionActorRegistry.SESSION_BUSY.equals(errorCode)) {
+            return HttpStatus.CONFLICT;
+        }
+        if (ProviderBusyException.PROVIDER_BUSY.equals(errorCode)
+                || SessionActorRegistry.ACTOR_UNAVAILABLE.equals(errorCode)
+                || CircuitOpenException.CIRCUIT_OPEN.equals(errorCode)
+                || ApiKeyRateLimiter.RATE_LIMITED.equals(errorCode)) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        if (ContextWindowExceededException.CONTEXT_WINDOW_EXCEEDED.equals(errorCode)) {
+            return HttpStatus.PAYLOAD_TOO_LARGE;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    private Map<String, Object> buildBody(String errorCode, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", errorCode);
+        body.put("message", message);
+        return body;
+    }
+}
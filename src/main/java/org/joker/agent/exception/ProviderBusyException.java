@@ -0,0 +1,13 @@
+package org.joker.agent.exception;
+
+/**
+ * 模型端点繁忙异常，等待并发许可超时时抛出
+ */
+public class ProviderBusyException extends BusinessException {
+
+    public static final String PROVIDER_BUSY = "PROVIDER_BUSY";
+
+    public ProviderBusyException(String endpoint, Throwable cause) {
+        super(PROVIDER_BUSY, "模型服务繁忙，请稍后再试: " + endpoint, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package org.joker.agent.exception;
+
+/**
+ * 工具调用被拒绝异常，工具提供者隔离舱的并发与等待队列均已满时抛出
+ */
+public class ToolRejectedException extends BusinessException {
+
+    public static final String TOOL_REJECTED = "TOOL_REJECTED";
+
+    public ToolRejectedException(String provider, String toolName) {
+        super(TOOL_REJECTED, "工具提供者繁忙，调用被拒绝: " + provider + "/" + toolName);
+    }
+}
@@ -1,6 +1,9 @@
 package org.joker.agent.factory;
 
+import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import org.joker.agent.enums.ProviderProtocol;
+import org.joker.agent.mock.MockEmbeddingModel;
 import org.springframework.stereotype.Component;
 
 /**
@@ -16,6 +19,7 @@ public class EmbeddingModelFactory {
         private String apiKey;
         private String baseUrl;
         private String modelEndpoint;
+        private ProviderProtocol protocol;
 
         public EmbeddingConfig() {
         }
@@ -26,6 +30,11 @@ public class EmbeddingModelFactory {
             this.modelEndpoint = modelName;
         }
 
+        public EmbeddingConfig(String apiKey, String baseUrl, String modelName, ProviderProtocol protocol) {
+            this(apiKey, baseUrl, modelName);
+            this.protocol = protocol;
+        }
+
         public String getApiKey() {
             return apiKey;
         }
@@ -49,15 +58,26 @@ public class EmbeddingModelFactory {
         public void setModelEndpoint(String modelEndpoint) {
             this.modelEndpoint = modelEndpoint;
         }
+
+        public ProviderProtocol getProtocol() {
+            return protocol;
+        }
+
+        public void setProtocol(ProviderProtocol protocol) {
+            this.protocol = protocol;
+        }
     }
 
     /**
-     * 根据配置创建OpenAI嵌入模型实例
+     * 根据配置创建嵌入模型实例，MOCK协议返回本地模拟模型，其余按OpenAI兼容接口创建
      *
      * @param config 嵌入模型配置
-     * @return OpenAiEmbeddingModel实例
+     * @return 嵌入模型实例
      */
-    public OpenAiEmbeddingModel createEmbeddingModel(EmbeddingConfig config) {
+    public EmbeddingModel createEmbeddingModel(EmbeddingConfig config) {
+        if (config.getProtocol() == ProviderProtocol.MOCK) {
+            return new MockEmbeddingModel();
+        }
         return OpenAiEmbeddingModel.builder().apiKey(config.getApiKey()).baseUrl(config.getBaseUrl())
                 .modelName(config.getModelEndpoint()).build();
     }
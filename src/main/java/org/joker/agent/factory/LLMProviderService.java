@@ -7,15 +7,104 @@ import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import org.joker.agent.enums.ProviderProtocol;
+import org.joker.agent.enums.RequestPriority;
+import org.joker.agent.limit.ProviderLimiterRegistry;
+import org.joker.agent.mock.MockProvider;
 import org.joker.agent.model.ProviderConfig;
+import org.joker.agent.resilience.CircuitBreakerRegistry;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.function.Supplier;
 
 @Component
 public class LLMProviderService {
 
+    /**
+     * 端点调用限制与熔断，静态入口（摘要策略等非Spring管理的调用方）同样共享该预算与熔断状态
+     */
+    private static volatile ProviderLimiterRegistry limiterRegistry;
+    private static volatile CircuitBreakerRegistry circuitBreakerRegistry;
+
+    /**
+     * 本地模拟模型提供方（MOCK协议）
+     */
+    private static volatile MockProvider mockProvider;
+
+    public LLMProviderService(ProviderLimiterRegistry limiterRegistry, CircuitBreakerRegistry circuitBreakerRegistry,
+                              MockProvider mockProvider) {
+        LLMProviderService.limiterRegistry = limiterRegistry;
+        LLMProviderService.circuitBreakerRegistry = circuitBreakerRegistry;
+        LLMProviderService.mockProvider = mockProvider;
+    }
+
+    /**
+     * 获取非流式模型，按后台请求优先级占用端点并发
+     */
     public static ChatModel getStrand(ProviderProtocol protocol, ProviderConfig providerConfig) {
+        return getStrand(protocol, providerConfig, RequestPriority.BATCH);
+    }
+
+    public static ChatModel getStrand(ProviderProtocol protocol, ProviderConfig providerConfig,
+                                      RequestPriority priority) {
+        ChatModel model = limitedStrand(protocol, providerConfig, priority);
+        CircuitBreakerRegistry breakers = circuitBreakerRegistry;
+        if (breakers == null) {
+            return model;
+        }
+        ProviderConfig fallbackConfig = breakers.fallbackConfig(providerConfig);
+        Supplier<ChatModel> fallback = fallbackConfig == null ? null
+                : () -> limitedStrand(fallbackConfig.getProtocol(), fallbackConfig, priority);
+        return breakers.withFallback(model, protocol, providerConfig, fallback);
+    }
+
+    /**
+     * 获取流式模型，按交互式优先级占用端点并发
+     */
+    public static StreamingChatModel getStream(ProviderProtocol protocol, ProviderConfig providerConfig) {
+        return getStream(protocol, providerConfig, RequestPriority.INTERACTIVE);
+    }
+
+    public static StreamingChatModel getStream(ProviderProtocol protocol, ProviderConfig providerConfig,
+                                               RequestPriority priority) {
+        StreamingChatModel model = limitedStream(protocol, providerConfig, priority);
+        CircuitBreakerRegistry breakers = circuitBreakerRegistry;
+        if (breakers == null) {
+            return model;
+        }
+        ProviderConfig fallbackConfig = breakers.fallbackConfig(providerConfig);
+        Supplier<StreamingChatModel> fallback = fallbackConfig == null ? null
+                : () -> limitedStream(fallbackConfig.getProtocol(), fallbackConfig, priority);
+        return breakers.withFallback(model, protocol, providerConfig, fallback);
+    }
+
+    /**
+     * 调用链由外到内为：熔断备用路由 → 调用限制（API Key预算、端点并发） → 熔断器 → 上游模型，
+     * 熔断器只对真正发出的请求计时
+     */
+    private static ChatModel limitedStrand(ProviderProtocol protocol, ProviderConfig providerConfig,
+                                           RequestPriority priority) {
+        ChatModel model = createStrand(protocol, providerConfig);
+        CircuitBreakerRegistry breakers = circuitBreakerRegistry;
+        if (breakers != null) {
+            model = breakers.protect(model, protocol, providerConfig);
+        }
+        ProviderLimiterRegistry registry = limiterRegistry;
+        return registry != null ? registry.limit(model, protocol, providerConfig, priority) : model;
+    }
+
+    private static StreamingChatModel limitedStream(ProviderProtocol protocol, ProviderConfig providerConfig,
+                                                    RequestPriority priority) {
+        StreamingChatModel model = createStream(protocol, providerConfig);
+        CircuitBreakerRegistry breakers = circuitBreakerRegistry;
+        if (breakers != null) {
+            model = breakers.protect(model, protocol, providerConfig);
+        }
+        ProviderLimiterRegistry registry = limiterRegistry;
+        return registry != null ? registry.limit(model, protocol, providerConfig, priority) : model;
+    }
+
+    private static ChatModel createStrand(ProviderProtocol protocol, ProviderConfig providerConfig) {
         ChatModel model = null;
         if (protocol == ProviderProtocol.OPENAI) {
             OpenAiChatModel.OpenAiChatModelBuilder openAiChatModelBuilder = new OpenAiChatModel.OpenAiChatModelBuilder();
@@ -28,11 +117,13 @@ public class LLMProviderService {
         } else if (protocol == ProviderProtocol.ANTHROPIC) {
             model = AnthropicChatModel.builder().apiKey(providerConfig.getApiKey()).baseUrl(providerConfig.getBaseUrl())
                     .modelName(providerConfig.getModel()).version("2023-06-01").timeout(Duration.ofHours(1)).build();
+        } else if (protocol == ProviderProtocol.MOCK && mockProvider != null) {
+            model = mockProvider.chatModel(providerConfig.getModel());
         }
         return model;
     }
 
-    public static StreamingChatModel getStream(ProviderProtocol protocol, ProviderConfig providerConfig) {
+    private static StreamingChatModel createStream(ProviderProtocol protocol, ProviderConfig providerConfig) {
         StreamingChatModel model = null;
         if (protocol == ProviderProtocol.OPENAI) {
             model = new OpenAiStreamingChatModel.OpenAiStreamingChatModelBuilder().apiKey(providerConfig.getApiKey())
@@ -42,6 +133,8 @@ public class LLMProviderService {
             model = AnthropicStreamingChatModel.builder().apiKey(providerConfig.getApiKey())
                     .baseUrl(providerConfig.getBaseUrl()).version("2023-06-01").modelName(providerConfig.getModel())
                     .timeout(Duration.ofHours(1)).build();
+        } else if (protocol == ProviderProtocol.MOCK && mockProvider != null) {
+            model = mockProvider.streamingModel(providerConfig.getModel());
         }
         return model;
     }
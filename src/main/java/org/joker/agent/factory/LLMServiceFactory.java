@@ -2,40 +2,111 @@ package org.joker.agent.factory;
 
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
+import org.joker.agent.model.LLMEndpoint;
 import org.joker.agent.model.LLMModelConfig;
 import org.joker.agent.model.ProviderConfig;
+import org.joker.agent.resilience.FailoverChatModel;
+import org.joker.agent.resilience.HedgePolicy;
+import org.joker.agent.resilience.HedgingStreamingChatModel;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * LLM服务工厂，用于创建LLM客户端
  */
 @Component
 public class LLMServiceFactory {
 
+    private final HedgePolicy hedgePolicy;
+
+    /**
+     * 流式客户端缓存，按解析后的端点列表复用
+     * <p>
+     * 客户端及其限流、熔断、对冲包装均无调用级状态，复用后可作为Agent代理缓存的键
+     */
+    private final Map<List<ProviderConfig>, StreamingChatModel> streamingClients = new ConcurrentHashMap<>();
+
+    public LLMServiceFactory(HedgePolicy hedgePolicy) {
+        this.hedgePolicy = hedgePolicy;
+    }
+
     /**
-     * 获取流式LLM客户端
+     * 获取流式LLM客户端，配置了备用端点时支持对冲请求与首token前故障转移，相同端点配置复用同一客户端
      *
      * @param config 模型配置
      * @return 流式聊天语言模型
      */
     public StreamingChatModel getStreamingClient(LLMModelConfig config) {
-        ProviderConfig providerConfig = new ProviderConfig(config.getApiKey(), config.getBaseUrl(),
-                config.getModelEndpoint(), config.getProtocol());
+        List<ProviderConfig> providerConfigs = resolveEndpoints(config);
+        StreamingChatModel client = streamingClients.get(providerConfigs);
+        if (client != null) {
+            return client;
+        }
+        client = createStreamingClient(providerConfigs);
+        StreamingChatModel existing = streamingClients.putIfAbsent(providerConfigs, client);
+        return existing != null ? existing : client;
+    }
+
+    private StreamingChatModel createStreamingClient(List<ProviderConfig> providerConfigs) {
+        if (providerConfigs.size() == 1) {
+            ProviderConfig providerConfig = providerConfigs.getFirst();
+            return LLMProviderService.getStream(providerConfig.getProtocol(), providerConfig);
+        }
 
-        return LLMProviderService.getStream(config.getProtocol(), providerConfig);
+        List<StreamingChatModel> models = new ArrayList<>();
+        for (ProviderConfig providerConfig : providerConfigs) {
+            models.add(LLMProviderService.getStream(providerConfig.getProtocol(), providerConfig));
+        }
+        return new HedgingStreamingChatModel(models, endpointKeys(providerConfigs), hedgePolicy);
     }
 
     /**
-     * 获取标准LLM客户端
+     * 获取标准LLM客户端，用于后台任务（如会话标题生成），配置了备用端点时按顺序故障转移
      *
      * @param config 模型配置
      * @return 流式聊天语言模型
      */
     public ChatModel getStrandClient(LLMModelConfig config) {
-        ProviderConfig providerConfig = new ProviderConfig(config.getApiKey(), config.getBaseUrl(),
-                config.getModelEndpoint(), config.getProtocol());
+        List<ProviderConfig> providerConfigs = resolveEndpoints(config);
+        if (providerConfigs.size() == 1) {
+            ProviderConfig providerConfig = providerConfigs.getFirst();
+            return LLMProviderService.getStrand(providerConfig.getProtocol(), providerConfig);
+        }
+
+        List<ChatModel> models = new ArrayList<>();
+        for (ProviderConfig providerConfig : providerConfigs) {
+            models.add(LLMProviderService.getStrand(providerConfig.getProtocol(), providerConfig));
+        }
+        return new FailoverChatModel(models, endpointKeys(providerConfigs), hedgePolicy);
+    }
 
+    /**
+     * 解析主端点及备用端点，备用端点未配置的字段沿用主端点
+     */
+    private List<ProviderConfig> resolveEndpoints(LLMModelConfig config) {
+        List<ProviderConfig> providerConfigs = new ArrayList<>();
+        providerConfigs.add(new ProviderConfig(config.getApiKey(), config.getBaseUrl(), config.getModelEndpoint(),
+                config.getProtocol()));
+        if (config.getEndpoints() != null) {
+            for (LLMEndpoint endpoint : config.getEndpoints()) {
+                providerConfigs.add(new ProviderConfig(
+                        endpoint.getApiKey() != null ? endpoint.getApiKey() : config.getApiKey(),
+                        endpoint.getBaseUrl() != null ? endpoint.getBaseUrl() : config.getBaseUrl(),
+                        endpoint.getModelEndpoint() != null ? endpoint.getModelEndpoint() : config.getModelEndpoint(),
+                        endpoint.getProtocol() != null ? endpoint.getProtocol() : config.getProtocol()));
+            }
+        }
+        return providerConfigs;
+    }
 
-        return LLMProviderService.getStrand(config.getProtocol(), providerConfig);
+    private List<String> endpointKeys(List<ProviderConfig> providerConfigs) {
+        return providerConfigs.stream()
+                .map(providerConfig -> providerConfig.getProtocol() + "|" + providerConfig.getBaseUrl() + "|"
+                        + providerConfig.getModel())
+                .toList();
     }
 }
@@ -0,0 +1,270 @@
+package org.joker.agent.limit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.ProviderLimitProperties;
+import org.joker.agent.enums.RequestPriority;
+import org.joker.agent.exception.ProviderBusyException;
+import org.joker.agent.resilience.ProviderFailures;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个模型端点的自适应并发限制器（AIMD）
+ * <p>
+ * 以首token时间（流式）或完整响应时间（非流式）为采样，延迟稳定且并发被充分使用时按 1/limit 加性增长，
+ * 延迟超过基线容忍倍数时小幅收缩，上游返回429/5xx或超时时按比例大幅收缩。
+ * 交互式请求优先放行，后台请求只能占用部分并发
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final ProviderLimitProperties properties;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Deque<Waiter> interactiveWaiters = new ArrayDeque<>();
+    private final Deque<Waiter> backgroundWaiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+
+    /**
+     * 首token时间与完整响应时间的延迟基线（毫秒），0表示尚无采样
+     */
+    private double ttftBaseline;
+    private double latencyBaseline;
+
+    /**
+     * 最近一次采样值（毫秒）
+     */
+    private volatile long lastTtftMillis;
+    private volatile long lastLatencyMillis;
+
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder overloads = new LongAdder();
+    private final LongAdder latencySpikes = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+
+    AdaptiveConcurrencyLimiter(String name, ProviderLimitProperties properties) {
+        this.name = name;
+        this.properties = properties;
+        this.limit = Math.max(properties.getMinLimit(), properties.getInitialLimit());
+    }
+
+    /**
+     * 申请并发许可，许可不足时排队，超过最长等待时间后以 {@link TimeoutException} 失败
+     */
+    public CompletableFuture<Permit> acquire(RequestPriority priority) {
+        boolean interactive = priority != RequestPriority.BATCH;
+        lock.lock();
+        try {
+            if (canAcquire(interactive)) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            Waiter waiter = new Waiter(new CompletableFuture<>());
+            (interactive ? interactiveWaiters : backgroundWaiters).addLast(waiter);
+            waiter.future.orTimeout(properties.getMaxWait(), TimeUnit.MILLISECONDS)
+                    .whenComplete((permit, throwable) -> {
+                        if (throwable != null) {
+                            onWaitTimeout(waiter, interactive);
+                        }
+                    });
+            return waiter.future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 同步申请并发许可
+     */
+    public Permit acquireBlocking(RequestPriority priority) {
+        try {
+            return acquire(priority).join();
+        } catch (RuntimeException e) {
+            throw new ProviderBusyException(name, e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            snapshot.put("limit", Math.round(limit * 100) / 100.0);
+            snapshot.put("inFlight", inFlight);
+            snapshot.put("interactiveWaiting", interactiveWaiters.size());
+            snapshot.put("backgroundWaiting", backgroundWaiters.size());
+            snapshot.put("ttftBaselineMillis", Math.round(ttftBaseline));
+            snapshot.put("latencyBaselineMillis", Math.round(latencyBaseline));
+        } finally {
+            lock.unlock();
+        }
+        snapshot.put("lastTtftMillis", lastTtftMillis);
+        snapshot.put("lastLatencyMillis", lastLatencyMillis);
+        snapshot.put("successes", successes.sum());
+        snapshot.put("overloads", overloads.sum());
+        snapshot.put("latencySpikes", latencySpikes.sum());
+        snapshot.put("waitTimeouts", waitTimeouts.sum());
+        return snapshot;
+    }
+
+    private boolean canAcquire(boolean interactive) {
+        int current = Math.max(properties.getMinLimit(), (int) limit);
+        if (interactive) {
+            return inFlight < current;
+        }
+        // 后台请求只能使用部分并发，且交互式请求排队时让行
+        int backgroundLimit = Math.max(1, (int) (current * properties.getBackgroundRatio()));
+        return interactiveWaiters.isEmpty() && inFlight < backgroundLimit;
+    }
+
+    private void onWaitTimeout(Waiter waiter, boolean interactive) {
+        lock.lock();
+        try {
+            (interactive ? interactiveWaiters : backgroundWaiters).remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+        waitTimeouts.increment();
+        log.warn("等待模型端点并发许可超时: endpoint={}, priority={}", name,
+                interactive ? RequestPriority.INTERACTIVE : RequestPriority.BATCH);
+    }
+
+    /**
+     * 归还许可并调整并发上限
+     *
+     * @param ttftMillis    首token时间，无采样时为-1
+     * @param latencyMillis 完整响应时间，未完成时为-1
+     * @param overload      是否为上游过载
+     */
+    private void release(long ttftMillis, long latencyMillis, boolean overload) {
+        List<Waiter> granted = new ArrayList<>();
+        lock.lock();
+        try {
+            // 以释放前的并发数判断上限是否被充分使用
+            boolean saturated = inFlight >= limit / 2;
+            inFlight--;
+            if (overload) {
+                overloads.increment();
+                limit = Math.max(properties.getMinLimit(), limit * properties.getOverloadBackoffRatio());
+            } else if (ttftMillis >= 0) {
+                ttftBaseline = adjust(ttftMillis, ttftBaseline, saturated);
+            } else if (latencyMillis >= 0) {
+                latencyBaseline = adjust(latencyMillis, latencyBaseline, saturated);
+            }
+            if (latencyMillis >= 0 && ttftMillis >= 0) {
+                // 流式请求的完整时长随输出长度变化，只更新基线不参与调整
+                latencyBaseline = updateBaseline(latencyMillis, latencyBaseline);
+            }
+            dispatch(interactiveWaiters, true, granted);
+            dispatch(backgroundWaiters, false, granted);
+        } finally {
+            lock.unlock();
+        }
+        // 在锁外唤醒等待者，回调中会直接发起上游请求
+        for (Waiter waiter : granted) {
+            if (!waiter.future.complete(new Permit())) {
+                cancelGrant();
+            }
+        }
+    }
+
+    private double adjust(long sampleMillis, double baseline, boolean saturated) {
+        double newBaseline = updateBaseline(sampleMillis, baseline);
+        if (sampleMillis > newBaseline * properties.getLatencyTolerance()) {
+            latencySpikes.increment();
+            limit = Math.max(properties.getMinLimit(), limit * properties.getLatencyBackoffRatio());
+        } else if (saturated) {
+            limit = Math.min(properties.getMaxLimit(), limit + 1.0 / limit);
+        }
+        return newBaseline;
+    }
+
+    private double updateBaseline(long sampleMillis, double baseline) {
+        if (baseline <= 0 || sampleMillis < baseline) {
+            return sampleMillis;
+        }
+        return baseline + (sampleMillis - baseline) * properties.getBaselineDrift();
+    }
+
+    private void dispatch(Deque<Waiter> waiters, boolean interactive, List<Waiter> granted) {
+        while (!waiters.isEmpty() && canAcquire(interactive)) {
+            Waiter waiter = waiters.pollFirst();
+            if (!waiter.future.isDone()) {
+                inFlight++;
+                granted.add(waiter);
+            }
+        }
+    }
+
+    /**
+     * 等待者在授予许可的同时已超时，归还该许可
+     */
+    private void cancelGrant() {
+        release(-1, -1, false);
+    }
+
+    private record Waiter(CompletableFuture<Permit> future) {
+    }
+
+    /**
+     * 并发许可，记录本次调用的延迟采样，首次结束调用后归还，重复调用无副作用
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile long ttftMillis = -1;
+
+        /**
+         * 收到首个token
+         */
+        public void onFirstToken() {
+            if (ttftMillis < 0) {
+                ttftMillis = elapsedMillis();
+                lastTtftMillis = ttftMillis;
+            }
+        }
+
+        /**
+         * 调用成功完成
+         */
+        public void onSuccess() {
+            if (released.compareAndSet(false, true)) {
+                successes.increment();
+                long latency = elapsedMillis();
+                lastLatencyMillis = latency;
+                release(ttftMillis, latency, false);
+            }
+        }
+
+        /**
+         * 调用失败
+         */
+        public void onError(Throwable throwable) {
+            if (released.compareAndSet(false, true)) {
+                release(-1, -1, ProviderFailures.isOverload(throwable));
+            }
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.joker.agent.limit;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 按API Key的请求数与token数限流
+ * <p>
+ * 单机部署使用本地实现 {@link LocalApiKeyRateLimiter}，多节点部署可替换为基于共享存储的实现
+ */
+public interface ApiKeyRateLimiter {
+
+    /**
+     * 超出限额且无法在最长延迟内获得预算时的错误码
+     */
+    String RATE_LIMITED = "RATE_LIMITED";
+
+    /**
+     * 预占一次请求及预估的token数，预算不足时返回的Future会延迟到预算可用时才完成
+     *
+     * @param apiKey          API Key
+     * @param estimatedTokens 预估token数（输入+输出）
+     * @return 预占凭证，调用结束后需以实际用量校正
+     */
+    CompletableFuture<Reservation> reserve(String apiKey, long estimatedTokens);
+
+    /**
+     * 各API Key的限流统计
+     */
+    Map<String, Object> snapshot();
+
+    /**
+     * 预占凭证
+     */
+    interface Reservation {
+
+        /**
+         * 以实际用量校正预估值，差额计入后续预算，重复调用无副作用
+         *
+         * @param actualTokens 实际token数
+         */
+        void reconcile(long actualTokens);
+
+        /**
+         * 调用未发起（如端点并发许可获取失败）时撤销预占，请求数与token数都不计入，重复调用无副作用
+         */
+        default void cancel() {
+            reconcile(0);
+        }
+    }
+}
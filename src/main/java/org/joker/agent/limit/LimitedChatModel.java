@@ -0,0 +1,84 @@
+package org.joker.agent.limit;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.joker.agent.enums.RequestPriority;
+import org.joker.agent.exception.CircuitOpenException;
+
+import java.util.Set;
+
+/**
+ * 受API Key限额与端点并发限制的非流式模型，以完整响应时间作为延迟采样
+ */
+public class LimitedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final ProviderLimiterRegistry registry;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final String apiKey;
+    private final RequestPriority priority;
+    private final int contextWindow;
+
+    public LimitedChatModel(ChatModel delegate, ProviderLimiterRegistry registry, AdaptiveConcurrencyLimiter limiter,
+                            String apiKey, RequestPriority priority, int contextWindow) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.limiter = limiter;
+        this.apiKey = apiKey;
+        this.priority = priority;
+        this.contextWindow = contextWindow;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        // 先检查上下文窗口并等待API Key预算，再占用端点并发，避免许可在限流等待期间被白白占住
+        ApiKeyRateLimiter.Reservation reservation = registry.reserveBlocking(apiKey, chatRequest, contextWindow);
+        AdaptiveConcurrencyLimiter.Permit permit;
+        try {
+            permit = limiter != null ? limiter.acquireBlocking(priority) : null;
+        } catch (RuntimeException e) {
+            // 未发起调用，撤销预占
+            reservation.cancel();
+            throw e;
+        }
+        try {
+            ChatResponse chatResponse = delegate.chat(chatRequest);
+            reservation.reconcile(TokenEstimator.actual(chatResponse));
+            if (permit != null) {
+                permit.onSuccess();
+            }
+            return chatResponse;
+        } catch (RuntimeException e) {
+            if (e instanceof CircuitOpenException) {
+                // 熔断器拒绝，请求未发出
+                reservation.cancel();
+            } else {
+                // 失败的调用不产生输出，归还预估的token数
+                reservation.reconcile(0);
+            }
+            if (permit != null) {
+                permit.onError(e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
@@ -0,0 +1,132 @@
+package org.joker.agent.limit;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.joker.agent.enums.RequestPriority;
+import org.joker.agent.exception.CircuitOpenException;
+import org.joker.agent.exception.ProviderBusyException;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 受API Key限额与端点并发限制的流式模型，以首token时间作为延迟采样
+ * <p>
+ * 预算或许可不足时不阻塞调用线程（工具调用后的续轮请求由HTTP回调线程发起），条件满足后再发起上游请求。
+ * 获得许可后的上游请求在执行器上发起，而不是在完成许可的线程上：
+ * 排队的许可由另一条流归还许可时在其回调线程上完成，不应在那里发起新的请求
+ */
+public class LimitedStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    private final ProviderLimiterRegistry registry;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final String apiKey;
+    private final RequestPriority priority;
+    private final int contextWindow;
+    private final Executor executor;
+
+    public LimitedStreamingChatModel(StreamingChatModel delegate, ProviderLimiterRegistry registry,
+                                     AdaptiveConcurrencyLimiter limiter, String apiKey, RequestPriority priority,
+                                     int contextWindow, Executor executor) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.limiter = limiter;
+        this.apiKey = apiKey;
+        this.priority = priority;
+        this.contextWindow = contextWindow;
+        this.executor = executor;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        // 先检查上下文窗口并等待API Key预算，再占用端点并发，避免许可在限流等待期间被白白占住
+        registry.reserve(apiKey, chatRequest, contextWindow).whenComplete((reservation, rateError) -> {
+            if (rateError != null) {
+                handler.onError(ProviderLimiterRegistry.unwrap(rateError));
+                return;
+            }
+            CompletableFuture<AdaptiveConcurrencyLimiter.Permit> permitFuture = limiter != null
+                    ? limiter.acquire(priority) : CompletableFuture.completedFuture(null);
+            permitFuture.whenCompleteAsync((permit, throwable) -> {
+                if (throwable != null) {
+                    // 未发起调用，撤销预占
+                    reservation.cancel();
+                    handler.onError(new ProviderBusyException(limiter.getName(), throwable));
+                    return;
+                }
+                try {
+                    delegate.chat(chatRequest, new LimitReleasingHandler(handler, reservation, permit));
+                } catch (RuntimeException e) {
+                    reservation.reconcile(0);
+                    if (permit != null) {
+                        permit.onError(e);
+                    }
+                    handler.onError(e);
+                }
+            }, executor);
+        });
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    /**
+     * 记录首token时间，流结束（含失败）时校正token用量并归还许可
+     */
+    private record LimitReleasingHandler(StreamingChatResponseHandler delegate,
+                                         ApiKeyRateLimiter.Reservation reservation,
+                                         AdaptiveConcurrencyLimiter.Permit permit)
+            implements StreamingChatResponseHandler {
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            if (permit != null) {
+                permit.onFirstToken();
+            }
+            delegate.onPartialResponse(partialResponse);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            reservation.reconcile(TokenEstimator.actual(completeResponse));
+            if (permit != null) {
+                permit.onSuccess();
+            }
+            delegate.onCompleteResponse(completeResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (error instanceof CircuitOpenException) {
+                // 熔断器拒绝，请求未发出
+                reservation.cancel();
+            } else {
+                // 失败的流不计费，归还预估的token数
+                reservation.reconcile(0);
+            }
+            if (permit != null) {
+                permit.onError(error);
+            }
+            delegate.onError(error);
+        }
+    }
+}
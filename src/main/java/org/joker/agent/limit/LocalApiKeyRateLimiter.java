@@ -0,0 +1,217 @@
+package org.joker.agent.limit;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.RateLimitProperties;
+import org.joker.agent.exception.BusinessException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地内存令牌桶限流
+ * <p>
+ * 每个API Key的请求数与token数各用一个GCRA令牌桶（理论到达时间），预占与校正都只是一次CAS，不加锁；
+ * 统计计数使用分段的 LongAdder，高并发下不会在同一缓存行上争用
+ */
+@Slf4j
+public class LocalApiKeyRateLimiter implements ApiKeyRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final RateLimitProperties properties;
+    private final ConcurrentHashMap<String, KeyBudget> budgets = new ConcurrentHashMap<>();
+
+    public LocalApiKeyRateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public CompletableFuture<Reservation> reserve(String apiKey, long estimatedTokens) {
+        if (!properties.isEnabled()) {
+            return CompletableFuture.completedFuture(actualTokens -> {
+            });
+        }
+        KeyBudget budget = budgets.computeIfAbsent(fingerprint(apiKey), this::newBudget);
+        long now = System.nanoTime();
+        long requestWait = budget.requests.reserve(1, now);
+        long tokenWait = budget.tokens.reserve(estimatedTokens, now);
+        long waitNanos = Math.max(requestWait, tokenWait);
+
+        if (waitNanos > TimeUnit.MILLISECONDS.toNanos(properties.getMaxDelay())) {
+            // 预算长期不足，归还预占并拒绝，被拒绝的调用不计入请求数与预估token数
+            budget.requests.refund(1);
+            budget.tokens.refund(estimatedTokens);
+            budget.rejected.increment();
+            CompletableFuture<Reservation> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new BusinessException(RATE_LIMITED, "模型调用超出API Key限额，请稍后再试"));
+            return rejected;
+        }
+
+        budget.requestCount.increment();
+        budget.estimatedTokens.add(estimatedTokens);
+        Reservation reservation = new LocalReservation(budget, estimatedTokens);
+
+        if (waitNanos <= 0) {
+            return CompletableFuture.completedFuture(reservation);
+        }
+
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1;
+        budget.delayed.increment();
+        budget.totalDelayMillis.add(waitMillis);
+        log.debug("API Key预算不足，延迟{}ms后调用: key={}", waitMillis, budget.fingerprint);
+        Executor delayed = CompletableFuture.delayedExecutor(waitMillis, TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> reservation, delayed);
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        budgets.forEach((key, budget) -> snapshot.put(key, budget.snapshot()));
+        return snapshot;
+    }
+
+    private KeyBudget newBudget(String fingerprint) {
+        RateLimitProperties.KeyLimit keyLimit = properties.getKeys().get(fingerprint);
+        int requestsPerMinute = keyLimit != null ? keyLimit.getRequestsPerMinute() : properties.getRequestsPerMinute();
+        long tokensPerMinute = keyLimit != null ? keyLimit.getTokensPerMinute() : properties.getTokensPerMinute();
+        long burstNanos = TimeUnit.SECONDS.toNanos(properties.getBurstSeconds());
+        return new KeyBudget(fingerprint, new TokenBucket(requestsPerMinute, burstNanos),
+                new TokenBucket(tokensPerMinute, burstNanos));
+    }
+
+    /**
+     * API Key指纹，避免明文Key出现在日志与监控中
+     */
+    private static String fingerprint(String apiKey) {
+        return apiKey == null ? "anonymous" : DigestUtil.sha256Hex(apiKey).substring(0, 12);
+    }
+
+    /**
+     * GCRA令牌桶
+     * <p>
+     * 以理论到达时间（TAT）表示桶状态：每消耗n个单位，TAT后移 n*间隔；TAT超出当前时间的部分超过突发容忍时需等待
+     */
+    private static final class TokenBucket {
+
+        private final long perMinute;
+        private final double intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+        private TokenBucket(long perMinute, long burstNanos) {
+            this.perMinute = perMinute;
+            this.intervalNanos = perMinute > 0 ? (double) NANOS_PER_MINUTE / perMinute : 0;
+            this.burstNanos = burstNanos;
+        }
+
+        /**
+         * 预占，返回需等待的纳秒数（不大于0表示可立即执行）
+         */
+        private long reserve(long units, long now) {
+            if (perMinute <= 0 || units <= 0) {
+                return 0;
+            }
+            long cost = (long) (units * intervalNanos);
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long newTat = Math.max(tat, now) + cost;
+                if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                    return newTat - now - burstNanos;
+                }
+            }
+        }
+
+        /**
+         * 归还或追加用量，units为负表示归还
+         */
+        private void adjust(long units) {
+            if (perMinute <= 0 || units == 0) {
+                return;
+            }
+            long delta = (long) (units * intervalNanos);
+            long now = System.nanoTime();
+            // 归还时TAT不早于当前时间，空闲期的额度不会累积超过突发容忍
+            theoreticalArrival.accumulateAndGet(delta, (tat, d) -> d >= 0 ? tat + d : Math.max(now, tat + d));
+        }
+
+        private void refund(long units) {
+            adjust(-units);
+        }
+    }
+
+    private static final class KeyBudget {
+
+        private final String fingerprint;
+        private final TokenBucket requests;
+        private final TokenBucket tokens;
+
+        private final LongAdder requestCount = new LongAdder();
+        private final LongAdder estimatedTokens = new LongAdder();
+        private final LongAdder actualTokens = new LongAdder();
+        private final LongAdder delayed = new LongAdder();
+        private final LongAdder totalDelayMillis = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+
+        private KeyBudget(String fingerprint, TokenBucket requests, TokenBucket tokens) {
+            this.fingerprint = fingerprint;
+            this.requests = requests;
+            this.tokens = tokens;
+        }
+
+        private Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("requestsPerMinute", requests.perMinute);
+            snapshot.put("tokensPerMinute", tokens.perMinute);
+            snapshot.put("requests", requestCount.sum());
+            snapshot.put("estimatedTokens", estimatedTokens.sum());
+            snapshot.put("actualTokens", actualTokens.sum());
+            snapshot.put("delayed", delayed.sum());
+            snapshot.put("totalDelayMillis", totalDelayMillis.sum());
+            snapshot.put("rejected", rejected.sum());
+            snapshot.put("cancelled", cancelled.sum());
+            return snapshot;
+        }
+    }
+
+    private static final class LocalReservation implements Reservation {
+
+        private final KeyBudget budget;
+        private final long estimatedTokens;
+        private final AtomicBoolean reconciled = new AtomicBoolean(false);
+
+        private LocalReservation(KeyBudget budget, long estimatedTokens) {
+            this.budget = budget;
+            this.estimatedTokens = estimatedTokens;
+        }
+
+        @Override
+        public void reconcile(long actualTokens) {
+            if (actualTokens < 0 || !reconciled.compareAndSet(false, true)) {
+                return;
+            }
+            budget.actualTokens.add(actualTokens);
+            budget.tokens.adjust(actualTokens - estimatedTokens);
+        }
+
+        @Override
+        public void cancel() {
+            if (!reconciled.compareAndSet(false, true)) {
+                return;
+            }
+            budget.requests.refund(1);
+            budget.tokens.refund(estimatedTokens);
+            budget.requestCount.decrement();
+            budget.estimatedTokens.add(-estimatedTokens);
+            budget.cancelled.increment();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.joker.agent.limit;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import org.joker.agent.config.ExecutorConfig;
+import org.joker.agent.config.ProviderLimitProperties;
+import org.joker.agent.config.RateLimitProperties;
+import org.joker.agent.enums.ProviderProtocol;
+import org.joker.agent.enums.RequestPriority;
+import org.joker.agent.exception.ContextWindowExceededException;
+import org.joker.agent.model.ProviderConfig;
+import org.joker.agent.token.TokenCountService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 模型调用限制注册表
+ * <p>
+ * 以 (协议, baseUrl, 模型) 区分端点并自适应限制并发，以API Key限制请求数与token数；
+ * 对话流、摘要、记忆抽取与标题生成共享同一端点与同一Key的预算；
+ * 调用前按本地Token计数检查输入是否超出模型上下文窗口，超出时不发起调用
+ */
+@Component
+public class ProviderLimiterRegistry {
+
+    private final ProviderLimitProperties properties;
+    private final RateLimitProperties rateLimitProperties;
+    private final ApiKeyRateLimiter rateLimiter;
+    private final TokenCountService tokenCountService;
+    private final Executor continuationExecutor;
+    private final ConcurrentHashMap<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ProviderLimiterRegistry(ProviderLimitProperties properties, RateLimitProperties rateLimitProperties,
+                                   ApiKeyRateLimiter rateLimiter, TokenCountService tokenCountService,
+                                   @Qualifier(ExecutorConfig.TOOL_TASK_EXECUTOR) AsyncTaskExecutor executor) {
+        this.properties = properties;
+        this.rateLimitProperties = rateLimitProperties;
+        this.rateLimiter = rateLimiter;
+        this.tokenCountService = tokenCountService;
+        // 执行器拒绝时退回在完成预算/许可的线程上执行，保证续轮请求一定被发起或以错误结束
+        this.continuationExecutor = task -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * 为流式模型套上调用限制
+     */
+    public StreamingChatModel limit(StreamingChatModel model, ProviderProtocol protocol, ProviderConfig providerConfig,
+                                    RequestPriority priority) {
+        if (model == null) {
+            return null;
+        }
+        return new LimitedStreamingChatModel(model, this, concurrencyLimiter(protocol, providerConfig),
+                providerConfig.getApiKey(), priority, tokenCountService.contextWindow(providerConfig.getModel()),
+                continuationExecutor);
+    }
+
+    /**
+     * 为非流式模型套上调用限制
+     */
+    public ChatModel limit(ChatModel model, ProviderProtocol protocol, ProviderConfig providerConfig,
+                           RequestPriority priority) {
+        if (model == null) {
+            return null;
+        }
+        return new LimitedChatModel(model, this, concurrencyLimiter(protocol, providerConfig),
+                providerConfig.getApiKey(), priority, tokenCountService.contextWindow(providerConfig.getModel()));
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter(ProviderProtocol protocol, ProviderConfig providerConfig) {
+        String key = protocol + "|" + providerConfig.getBaseUrl() + "|" + providerConfig.getModel();
+        return limiters.computeIfAbsent(key, name -> new AdaptiveConcurrencyLimiter(name, properties));
+    }
+
+    /**
+     * 受理请求时的上下文窗口检查，只计本轮必然发送的内容（如系统提示词与用户消息）加预留输出；
+     * 历史消息可由Token溢出策略截断，留到调用模型前再检查
+     *
+     * @param model           模型
+     * @param maxOutputTokens 配置的最大输出token数，可为null
+     * @param texts           必然发送的文本
+     * @throws ContextWindowExceededException 超出上下文窗口时抛出
+     */
+    public void checkContextWindow(String model, Integer maxOutputTokens, String... texts) {
+        int contextWindow = tokenCountService.contextWindow(model);
+        if (contextWindow <= 0) {
+            return;
+        }
+        long promptTokens = 0;
+        for (String text : texts) {
+            promptTokens += tokenCountService.count(text);
+        }
+        long outputTokens = TokenEstimator.outputTokens(maxOutputTokens,
+                rateLimitProperties.getExpectedOutputTokens());
+        if (promptTokens + outputTokens > contextWindow) {
+            throw new ContextWindowExceededException(promptTokens, outputTokens, contextWindow);
+        }
+    }
+
+    /**
+     * 检查上下文窗口并按预估token数预占API Key预算，输入加预留输出超出上下文窗口时以 {@link ContextWindowExceededException} 失败
+     *
+     * @param contextWindow 模型上下文窗口，0为不检查
+     */
+    CompletableFuture<ApiKeyRateLimiter.Reservation> reserve(String apiKey, ChatRequest chatRequest,
+                                                             int contextWindow) {
+        long promptTokens = TokenEstimator.promptTokens(chatRequest, tokenCountService::count);
+        long outputTokens = TokenEstimator.outputTokens(chatRequest.maxOutputTokens(),
+                rateLimitProperties.getExpectedOutputTokens());
+        if (contextWindow > 0 && promptTokens + outputTokens > contextWindow) {
+            return CompletableFuture.failedFuture(
+                    new ContextWindowExceededException(promptTokens, outputTokens, contextWindow));
+        }
+        return rateLimiter.reserve(apiKey, promptTokens + outputTokens);
+    }
+
+    /**
+     * 同步检查上下文窗口并预占API Key预算，预算不足时在当前线程上等待
+     */
+    ApiKeyRateLimiter.Reservation reserveBlocking(String apiKey, ChatRequest chatRequest, int contextWindow) {
+        try {
+            return reserve(apiKey, chatRequest, contextWindow).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待API Key预算时被中断", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 各端点的并发上限、延迟基线与调整统计
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        limiters.forEach((key, limiter) -> snapshot.put(key, limiter.snapshot()));
+        return snapshot;
+    }
+
+    /**
+     * 各API Key的限流统计
+     */
+    public Map<String, Object> rateLimitSnapshot() {
+        return rateLimiter.snapshot();
+    }
+
+    static RuntimeException unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtimeException ? runtimeException : new IllegalStateException(cause);
+    }
+
+    private AdaptiveConcurrencyLimiter concurrencyLimiter(ProviderProtocol protocol, ProviderConfig providerConfig) {
+        return properties.isEnabled() ? getLimiter(protocol, providerConfig) : null;
+    }
+}
@@ -0,0 +1,91 @@
+package org.joker.agent.limit;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.Content;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * 调用前的token估算（输入按本地分词器计数，输出按预期值），调用后以模型返回的 tokenUsage 校正
+ */
+final class TokenEstimator {
+
+    /**
+     * 非文本内容（图片等）按固定token数估算
+     */
+    private static final int NON_TEXT_CONTENT_TOKENS = 800;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 统计本次调用的输入token数，文本按本地分词器计数（未加载词表时为字符数估算）
+     */
+    static long promptTokens(ChatRequest chatRequest, ToIntFunction<String> counter) {
+        long tokens = 0;
+        for (ChatMessage message : chatRequest.messages()) {
+            if (message instanceof SystemMessage systemMessage) {
+                tokens += counter.applyAsInt(systemMessage.text());
+            } else if (message instanceof UserMessage userMessage) {
+                for (Content content : userMessage.contents()) {
+                    if (content instanceof TextContent textContent) {
+                        tokens += counter.applyAsInt(textContent.text());
+                    } else {
+                        tokens += NON_TEXT_CONTENT_TOKENS;
+                    }
+                }
+            } else if (message instanceof AiMessage aiMessage) {
+                tokens += counter.applyAsInt(aiMessage.text());
+                if (aiMessage.hasToolExecutionRequests()) {
+                    for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                        tokens += counter.applyAsInt(request.name()) + counter.applyAsInt(request.arguments());
+                    }
+                }
+            } else if (message instanceof ToolExecutionResultMessage resultMessage) {
+                tokens += counter.applyAsInt(resultMessage.text());
+            }
+        }
+        if (chatRequest.toolSpecifications() != null) {
+            for (ToolSpecification specification : chatRequest.toolSpecifications()) {
+                tokens += counter.applyAsInt(specification.name()) + counter.applyAsInt(specification.description());
+                if (specification.parameters() != null) {
+                    tokens += counter.applyAsInt(specification.parameters().toString());
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 预计的输出token数
+     *
+     * @param maxOutputTokens 请求或模型配置的最大输出token数，可为null
+     */
+    static long outputTokens(Integer maxOutputTokens, int expectedOutputTokens) {
+        return maxOutputTokens != null ? Math.min(maxOutputTokens, expectedOutputTokens) : expectedOutputTokens;
+    }
+
+    /**
+     * 模型返回的实际token数，未返回时为-1
+     */
+    static long actual(ChatResponse chatResponse) {
+        if (chatResponse == null) {
+            return -1;
+        }
+        TokenUsage tokenUsage = chatResponse.tokenUsage();
+        if (tokenUsage == null || tokenUsage.totalTokenCount() == null) {
+            return -1;
+        }
+        return tokenUsage.totalTokenCount();
+    }
+}
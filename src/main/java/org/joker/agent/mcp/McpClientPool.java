@@ -0,0 +1,86 @@
+package org.joker.agent.mcp;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.McpProperties;
+import org.joker.agent.exception.BusinessException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MCP客户端连接池
+ * <p>
+ * 每个已配置的MCP服务器对应一组长连接（STDIO方式为常驻子进程），首次使用时建立并完成握手，之后所有会话和轮次共享；
+ * 各服务器的工具列表同样在首次需要时拉取并缓存，轮次内获取工具不产生任何MCP请求
+ */
+@Slf4j
+@Component
+public class McpClientPool {
+
+    private final McpProperties properties;
+    private final Map<String, McpServerConnection> connections = new ConcurrentHashMap<>();
+
+    public McpClientPool(McpProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 服务器是否已配置且MCP工具已启用
+     */
+    public boolean isAvailable(String serverName) {
+        return properties.isEnabled() && serverName != null && properties.getServers().containsKey(serverName);
+    }
+
+    /**
+     * 获取服务器的工具列表（缓存）
+     */
+    public List<ToolSpecification> listTools(String serverName) {
+        return connection(serverName).tools();
+    }
+
+    /**
+     * 在服务器的连接上执行工具调用
+     */
+    public String executeTool(String serverName, ToolExecutionRequest request) {
+        return connection(serverName).execute(request);
+    }
+
+    /**
+     * 使服务器的工具列表缓存过期，服务器工具变更后调用
+     */
+    public void refreshTools(String serverName) {
+        McpServerConnection connection = connections.get(serverName);
+        if (connection != null) {
+            connection.invalidateTools();
+        }
+    }
+
+    /**
+     * 各服务器的连接与工具列表统计
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        connections.forEach((name, connection) -> snapshot.put(name, connection.snapshot()));
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.values().forEach(McpServerConnection::close);
+        connections.clear();
+    }
+
+    private McpServerConnection connection(String serverName) {
+        if (!isAvailable(serverName)) {
+            throw new BusinessException("MCP服务器未配置: " + serverName);
+        }
+        return connections.computeIfAbsent(serverName,
+                name -> new McpServerConnection(name, properties.getServers().get(name)));
+    }
+}
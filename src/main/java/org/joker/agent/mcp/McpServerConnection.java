@@ -0,0 +1,209 @@
+package org.joker.agent.mcp;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.mcp.client.DefaultMcpClient;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.mcp.client.transport.McpTransport;
+import dev.langchain4j.mcp.client.transport.http.HttpMcpTransport;
+import dev.langchain4j.mcp.client.transport.stdio.StdioMcpTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.McpProperties;
+import org.joker.agent.enums.McpTransportType;
+import org.joker.agent.exception.BusinessException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个MCP服务器的连接池与工具列表缓存
+ * <p>
+ * 连接在首次使用时建立（含握手），之后跨轮次复用；调用失败且健康检查不通过的连接被关闭，下次使用时重建。
+ * 工具列表在首次需要时拉取，连接重建（服务器可能已重启或升级）或超过刷新间隔后重新拉取
+ */
+@Slf4j
+class McpServerConnection {
+
+    private final String name;
+    private final McpProperties.Server config;
+    private final AtomicReferenceArray<McpClient> clients;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder toolListFetches = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private volatile ToolList toolList;
+
+    McpServerConnection(String name, McpProperties.Server config) {
+        this.name = name;
+        this.config = config;
+        this.clients = new AtomicReferenceArray<>(Math.max(1, config.getPoolSize()));
+    }
+
+    /**
+     * 服务器提供的工具列表，命中缓存时不发起请求
+     */
+    List<ToolSpecification> tools() {
+        ToolList current = toolList;
+        if (current != null && !current.isExpired(config.getToolsRefreshInterval())) {
+            return current.tools();
+        }
+        lock.lock();
+        try {
+            current = toolList;
+            if (current != null && !current.isExpired(config.getToolsRefreshInterval())) {
+                return current.tools();
+            }
+            List<ToolSpecification> tools = List.copyOf(client(0).listTools());
+            toolListFetches.increment();
+            toolList = new ToolList(tools, System.nanoTime());
+            log.info("MCP服务器 {} 工具列表已刷新，共 {} 个工具", name, tools.size());
+            return tools;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 标记工具列表过期，下次获取时重新拉取
+     */
+    void invalidateTools() {
+        toolList = null;
+    }
+
+    String execute(ToolExecutionRequest request) {
+        int slot = Math.floorMod(next.getAndIncrement(), clients.length());
+        McpClient client = client(slot);
+        calls.increment();
+        try {
+            return client.executeTool(request);
+        } catch (RuntimeException e) {
+            failures.increment();
+            recoverIfUnhealthy(slot, client);
+            throw e;
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            for (int i = 0; i < clients.length(); i++) {
+                closeQuietly(clients.getAndSet(i, null));
+            }
+            toolList = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        int open = 0;
+        for (int i = 0; i < clients.length(); i++) {
+            open += clients.get(i) != null ? 1 : 0;
+        }
+        ToolList current = toolList;
+        snapshot.put("transport", config.getTransport());
+        snapshot.put("poolSize", clients.length());
+        snapshot.put("openConnections", open);
+        snapshot.put("connects", connects.sum());
+        snapshot.put("reconnects", reconnects.sum());
+        snapshot.put("cachedTools", current != null ? current.tools().size() : -1);
+        snapshot.put("toolListFetches", toolListFetches.sum());
+        snapshot.put("calls", calls.sum());
+        snapshot.put("failures", failures.sum());
+        return snapshot;
+    }
+
+    private McpClient client(int slot) {
+        McpClient client = clients.get(slot);
+        if (client != null) {
+            return client;
+        }
+        lock.lock();
+        try {
+            client = clients.get(slot);
+            if (client == null) {
+                client = connect();
+                clients.set(slot, client);
+                connects.increment();
+            }
+            return client;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用失败后检查连接健康，不健康时关闭并在下次使用时重建，同时使工具列表过期
+     */
+    private void recoverIfUnhealthy(int slot, McpClient client) {
+        try {
+            client.checkHealth();
+            return;
+        } catch (RuntimeException e) {
+            log.warn("MCP服务器 {} 连接 {} 不可用，将重建: {}", name, slot, e.getMessage());
+        }
+        if (clients.compareAndSet(slot, client, null)) {
+            reconnects.increment();
+            toolList = null;
+        }
+        closeQuietly(client);
+    }
+
+    private McpClient connect() {
+        log.info("连接MCP服务器: {} ({})", name, config.getTransport());
+        try {
+            return new DefaultMcpClient.Builder().clientName("agent-" + name).transport(transport())
+                    .initializationTimeout(Duration.ofMillis(config.getInitializationTimeout()))
+                    .toolExecutionTimeout(Duration.ofMillis(config.getToolExecutionTimeout())).build();
+        } catch (RuntimeException e) {
+            throw new BusinessException("连接MCP服务器失败: " + name, e);
+        }
+    }
+
+    private McpTransport transport() {
+        if (config.getTransport() == McpTransportType.HTTP) {
+            return new HttpMcpTransport.Builder().sseUrl(config.getUrl())
+                    .timeout(Duration.ofMillis(config.getToolExecutionTimeout()))
+                    .logRequests(config.isLogEvents()).logResponses(config.isLogEvents()).build();
+        }
+        return new StdioMcpTransport.Builder().command(config.getCommand()).environment(config.getEnvironment())
+                .logEvents(config.isLogEvents()).build();
+    }
+
+    private void closeQuietly(McpClient client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (Exception e) {
+            log.debug("关闭MCP服务器 {} 连接时发生异常: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * 缓存的工具列表
+     *
+     * @param tools          工具规范
+     * @param fetchedAtNanos 拉取时间
+     */
+    private record ToolList(List<ToolSpecification> tools, long fetchedAtNanos) {
+
+        private boolean isExpired(long refreshIntervalSeconds) {
+            return refreshIntervalSeconds > 0
+                    && System.nanoTime() - fetchedAtNanos > TimeUnit.SECONDS.toNanos(refreshIntervalSeconds);
+        }
+    }
+}
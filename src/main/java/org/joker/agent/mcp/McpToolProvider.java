@@ -0,0 +1,121 @@
+package org.joker.agent.mcp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
+import dev.langchain4j.model.chat.request.json.JsonSchemaElement;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProvider;
+import dev.langchain4j.service.tool.ToolProviderRequest;
+import dev.langchain4j.service.tool.ToolProviderResult;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.joker.agent.exception.BusinessException;
+import org.joker.agent.model.AgentEntity;
+import org.joker.agent.tool.ToolBulkheadRegistry;
+import org.joker.agent.tool.ToolResultCache;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MCP工具提供者，每轮按Agent使用的MCP服务器创建
+ * <p>
+ * 工具列表与连接均来自 {@link McpClientPool}，创建与提供工具都不会建立连接或发起握手；
+ * 每个服务器的工具套上独立的隔离舱（mcp:服务器名）和按配置规则的结果缓存。
+ * Agent的预设参数（toolPresetParams）在执行时合并到调用参数中，并从提供给模型的参数定义里移除，模型无需也无法填写
+ */
+@Slf4j
+public class McpToolProvider implements ToolProvider {
+
+    /**
+     * MCP服务器隔离舱名称前缀
+     */
+    public static final String BULKHEAD_PREFIX = "mcp:";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final McpClientPool clientPool;
+    private final ToolBulkheadRegistry bulkheadRegistry;
+    private final ToolResultCache toolResultCache;
+    private final List<String> serverNames;
+    private final AgentEntity agent;
+
+    public McpToolProvider(McpClientPool clientPool, ToolBulkheadRegistry bulkheadRegistry,
+                           ToolResultCache toolResultCache, List<String> serverNames, AgentEntity agent) {
+        this.clientPool = clientPool;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.toolResultCache = toolResultCache;
+        this.serverNames = serverNames;
+        this.agent = agent;
+    }
+
+    @Override
+    public ToolProviderResult provideTools(ToolProviderRequest request) {
+        ToolProviderResult.Builder builder = ToolProviderResult.builder();
+        Map<String, Map<String, Map<String, String>>> presetParams = agent.getToolPresetParams() != null
+                ? agent.getToolPresetParams() : Map.of();
+        for (String serverName : serverNames) {
+            List<ToolSpecification> tools;
+            try {
+                tools = clientPool.listTools(serverName);
+            } catch (RuntimeException e) {
+                // 单个服务器不可用不影响其他工具，本轮不提供该服务器的工具
+                log.warn("获取MCP服务器 {} 工具列表失败，本轮跳过: {}", serverName, e.getMessage());
+                continue;
+            }
+            Map<String, Map<String, String>> serverPresets = presetParams.getOrDefault(serverName, Map.of());
+            for (ToolSpecification tool : tools) {
+                Map<String, String> presets = serverPresets.getOrDefault(tool.name(), Map.of());
+                builder.add(withoutPresets(tool, presets), executor(serverName, tool.name(), presets));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 预设参数在缓存之外合并，缓存键包含预设值，不同Agent的预设不会串用结果
+     */
+    private ToolExecutor executor(String serverName, String toolName, Map<String, String> presets) {
+        ToolExecutor executor = (request, memoryId) -> clientPool.executeTool(serverName, request);
+        executor = bulkheadRegistry.guard(BULKHEAD_PREFIX + serverName, null, toolName, executor);
+        ToolExecutor cached = toolResultCache.cached(toolName, null, agent.getId(), executor);
+        if (presets.isEmpty()) {
+            return cached;
+        }
+        return (request, memoryId) -> cached.execute(withPresets(request, presets), memoryId);
+    }
+
+    private ToolExecutionRequest withPresets(ToolExecutionRequest request, Map<String, String> presets) {
+        ObjectNode arguments;
+        try {
+            arguments = StringUtils.isBlank(request.arguments()) ? OBJECT_MAPPER.createObjectNode()
+                    : (ObjectNode) OBJECT_MAPPER.readTree(request.arguments());
+        } catch (Exception e) {
+            throw new BusinessException("工具参数不是合法的JSON对象: " + request.name(), e);
+        }
+        presets.forEach(arguments::put);
+        return ToolExecutionRequest.builder().id(request.id()).name(request.name()).arguments(arguments.toString())
+                .build();
+    }
+
+    private ToolSpecification withoutPresets(ToolSpecification tool, Map<String, String> presets) {
+        JsonObjectSchema parameters = tool.parameters();
+        if (presets.isEmpty() || parameters == null) {
+            return tool;
+        }
+        Map<String, JsonSchemaElement> properties = new LinkedHashMap<>(parameters.properties());
+        properties.keySet().removeAll(presets.keySet());
+        List<String> required = parameters.required() == null ? List.of()
+                : parameters.required().stream().filter(name -> !presets.containsKey(name)).toList();
+        JsonObjectSchema visible = JsonObjectSchema.builder().description(parameters.description())
+                .addProperties(properties).required(required)
+                .additionalProperties(parameters.additionalProperties()).definitions(parameters.definitions())
+                .build();
+        return ToolSpecification.builder().name(tool.name()).description(tool.description()).parameters(visible)
+                .build();
+    }
+}
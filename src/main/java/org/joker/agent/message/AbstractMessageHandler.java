@@ -1,8 +1,8 @@
 package org.joker.agent.message;
 
-import cn.hutool.core.collection.CollectionUtil;
 import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.data.message.*;
+import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
@@ -12,9 +12,15 @@ import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.tool.ToolExecution;
 import dev.langchain4j.service.tool.ToolExecutor;
 import dev.langchain4j.service.tool.ToolProvider;
+import dev.langchain4j.service.tool.ToolProviderResult;
 import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.joker.agent.config.ExecutorConfig;
 import org.joker.agent.context.AgentPromptTemplates;
 import org.joker.agent.context.ChatContext;
 import org.joker.agent.dto.AgentChatResponse;
@@ -25,18 +31,28 @@ import org.joker.agent.enums.ExecutionPhase;
 import org.joker.agent.enums.MessageType;
 import org.joker.agent.enums.Role;
 import org.joker.agent.factory.LLMServiceFactory;
+import org.joker.agent.mcp.McpToolProvider;
 import org.joker.agent.model.AgentEntity;
 import org.joker.agent.model.MessageEntity;
+import org.joker.agent.monitor.jfr.ToolExecutionEvent;
 import org.joker.agent.repository.SessionRepository;
 import org.joker.agent.service.MemoryExtractorService;
 import org.joker.agent.service.MemoryService;
 import org.joker.agent.service.MessageService;
 import org.joker.agent.tool.BuiltInToolRegistry;
+import org.joker.agent.tool.ToolBatchExecutor;
+import org.joker.agent.tool.ToolBulkheadRegistry;
+import org.joker.agent.tool.ToolResultCache;
+import org.joker.agent.tool.ToolRouter;
+import org.joker.agent.tracing.ChatTracing;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 public class AbstractMessageHandler {
@@ -44,7 +60,7 @@ public class AbstractMessageHandler {
     /**
      * 连接超时时间（毫秒）
      */
-    protected static final long CONNECTION_TIMEOUT = 3000000L;
+    public static final long CONNECTION_TIMEOUT = 3000000L;
 
     @Autowired
     protected LLMServiceFactory llmServiceFactory;
@@ -58,10 +74,35 @@ public class AbstractMessageHandler {
     protected MemoryService memoryService;
     @Autowired
     protected SessionRepository sessionRepository;
+    @Autowired
+    protected ChatTracing chatTracing;
+    @Autowired
+    protected ToolBatchExecutor toolBatchExecutor;
+    @Autowired
+    protected ToolResultCache toolResultCache;
+    @Autowired
+    protected ToolBulkheadRegistry toolBulkheadRegistry;
+    @Autowired
+    protected ToolRouter toolRouter;
+    @Resource(name = ExecutorConfig.BACKGROUND_TASK_EXECUTOR)
+    protected AsyncTaskExecutor backgroundTaskExecutor;
     // 无需事件或单独服务，直接调用异步方法
     // 记忆注入常量（默认开启）
     private static final String MEMORY_SECTION_TITLE = "[记忆要点]";
     private static final int MEMORY_TOP_K = 5;
+    // Agent代理缓存上限
+    private static final int MAX_AGENT_TEMPLATES = 256;
+
+    /**
+     * 复用的Agent代理，按访问顺序淘汰最久未用的代理
+     */
+    private final LinkedHashMap<AgentTemplateKey, Agent> agentTemplates = new LinkedHashMap<>(64, 0.75f, true);
+    private final ReentrantLock agentTemplatesLock = new ReentrantLock();
+
+    /**
+     * 进行中的轮次，键为记忆ID（会话ID）
+     */
+    private final Map<Object, TurnBinding> turnBindings = new ConcurrentHashMap<>();
 
 
     /**
@@ -74,30 +115,56 @@ public class AbstractMessageHandler {
      */
     public <T> T chat(ChatContext chatContext, MessageTransport<T> transport) {
         // 创建连接
-        T connection = transport.createConnection(CONNECTION_TIMEOUT);
-
-        // 调用对话开始钩子
-        onChatStart(chatContext);
-
-        // 创建消息实体
-        MessageEntity llmMessageEntity = createLlmMessage(chatContext);
-        MessageEntity userMessageEntity = createUserMessage(chatContext);
-
-        // 调用用户消息处理完成钩子
-        onUserMessageProcessed(chatContext, userMessageEntity);
-
-        // 初始化聊天内存
-        MessageWindowChatMemory memory = initMemory();
-
-        // 构建历史消息
-        buildHistoryMessage(chatContext, memory);
+        return chat(chatContext, transport, transport.createConnection(chatContext.getSessionId(), CONNECTION_TIMEOUT));
+    }
 
-        // 根据子类决定是否需要工具
-        ToolProvider toolProvider = provideTools(chatContext);
+    /**
+     * 在调用方已建立的连接上处理对话
+     *
+     * @param chatContext 对话环境
+     * @param transport   消息传输实现
+     * @param connection  连接对象
+     * @param <T>         连接类型
+     * @return 连接对象
+     */
+    public <T> T chat(ChatContext chatContext, MessageTransport<T> transport, T connection) {
+        long phaseStart = System.nanoTime();
+        onPhaseStart(chatContext, ExecutionPhase.INITIALIZATION);
 
-        // 流式流程
-        processStreamingChat(chatContext, connection, transport, userMessageEntity, llmMessageEntity, memory,
-                toolProvider);
+        try {
+            // 调用对话开始钩子
+            onChatStart(chatContext);
+
+            // 创建消息实体
+            MessageEntity llmMessageEntity = createLlmMessage(chatContext);
+            MessageEntity userMessageEntity = createUserMessage(chatContext);
+
+            // 调用用户消息处理完成钩子
+            onUserMessageProcessed(chatContext, userMessageEntity);
+            onPhaseCompleted(chatContext, ExecutionPhase.INITIALIZATION, System.nanoTime() - phaseStart);
+
+            // 初始化聊天内存
+            phaseStart = System.nanoTime();
+            onPhaseStart(chatContext, ExecutionPhase.MEMORY_INITIALIZATION);
+            MessageWindowChatMemory memory = initMemory();
+
+            // 构建历史消息
+            buildHistoryMessage(chatContext, memory);
+            onPhaseCompleted(chatContext, ExecutionPhase.MEMORY_INITIALIZATION, System.nanoTime() - phaseStart);
+
+            // 根据子类决定是否需要工具
+            ToolProvider toolProvider = provideTools(chatContext);
+
+            // 流式流程
+            processStreamingChat(chatContext, connection, transport, userMessageEntity, llmMessageEntity, memory,
+                    toolProvider);
+        } catch (RuntimeException e) {
+            // 模型流启动前失败，通知客户端并结束本轮
+            onChatError(chatContext, ExecutionPhase.INITIALIZATION, e);
+            transport.handleError(connection, e);
+            chatContext.getTurnCompletion().complete(null);
+            throw e;
+        }
 
         return connection;
     }
@@ -121,6 +188,46 @@ public class AbstractMessageHandler {
         // 默认空实现，子类可选择性覆盖
     }
 
+    /**
+     * 追踪钩子方法 - 执行阶段开始时调用
+     *
+     * @param chatContext 对话上下文
+     * @param phase       执行阶段
+     */
+    protected void onPhaseStart(ChatContext chatContext, ExecutionPhase phase) {
+        // 默认空实现，子类可选择性覆盖
+    }
+
+    /**
+     * 追踪钩子方法 - 执行阶段完成时调用
+     *
+     * @param chatContext   对话上下文
+     * @param phase         执行阶段
+     * @param durationNanos 阶段耗时（纳秒）
+     */
+    protected void onPhaseCompleted(ChatContext chatContext, ExecutionPhase phase, long durationNanos) {
+        // 默认空实现，子类可选择性覆盖
+    }
+
+    /**
+     * 追踪钩子方法 - 模型流开始时调用
+     *
+     * @param chatContext 对话上下文
+     */
+    protected void onModelCallStart(ChatContext chatContext) {
+        // 默认空实现，子类可选择性覆盖
+    }
+
+    /**
+     * 追踪钩子方法 - 收到模型流式片段时调用（逐token路径，实现中避免分配对象）
+     *
+     * @param chatContext     对话上下文
+     * @param partialResponse 流式片段
+     */
+    protected void onPartialResponse(ChatContext chatContext, String partialResponse) {
+        // 默认空实现，子类可选择性覆盖
+    }
+
     /**
      * 追踪钩子方法 - 模型调用完成时调用
      *
@@ -143,6 +250,19 @@ public class AbstractMessageHandler {
         // 默认空实现，子类可选择性覆盖
     }
 
+    /**
+     * 追踪钩子方法 - 工具执行结束时调用（在执行工具的线程上，包含失败的执行）
+     *
+     * @param chatContext   对话上下文
+     * @param toolName      工具名称
+     * @param durationNanos 执行耗时（纳秒）
+     * @param error         执行异常（成功时为null）
+     */
+    protected void onToolExecutionFinished(ChatContext chatContext, String toolName, long durationNanos,
+                                           @Nullable Throwable error) {
+        // 默认空实现，子类可选择性覆盖
+    }
+
     /**
      * 追踪钩子方法 - 对话完成时调用
      *
@@ -160,8 +280,8 @@ public class AbstractMessageHandler {
         if (StringUtils.isBlank(sessionId) || StringUtils.isBlank(userText))
             return;
 
-        // 直接调用异步方法，避免阻塞主流程
-        try {
+        // 直接调用异步方法，避免阻塞主流程；提交时设置本轮上下文，异步任务关联到本轮链路
+        try (Scope ignored = chatContext.getTurnTrace().context().makeCurrent()) {
             memoryExtractorService.extractAndPersistAsync(sessionId, userText);
         } catch (Exception ignore) {
             // 异步任务调度异常不影响主流程
@@ -197,7 +317,7 @@ public class AbstractMessageHandler {
         StreamingChatModel streamingClient = llmServiceFactory.getStreamingClient(chatContext.getLlmModelConfig());
 
         // 创建流式Agent
-        Agent agent = buildStreamingAgent(streamingClient, memory, toolProvider, chatContext.getAgent());
+        Agent agent = buildStreamingAgent(streamingClient, memory, toolProvider, chatContext);
 
         // 使用现有的流式处理逻辑
         processChat(agent, connection, transport, chatContext, userEntity, llmEntity);
@@ -229,23 +349,31 @@ public class AbstractMessageHandler {
         this.saveMessageAndUpdateContext(chatContext, userEntity);
 
         AtomicReference<StringBuilder> messageBuilder = new AtomicReference<>(new StringBuilder());
-        TokenStream tokenStream = agent.chat(chatContext.getUserMessage());
+        TokenStream tokenStream = agent.chat(chatContext.getSessionId(), chatContext.getUserMessage());
 
         // 记录调用开始时间
         long startTime = System.currentTimeMillis();
+        long modelStartNanos = System.nanoTime();
+        onPhaseStart(chatContext, ExecutionPhase.MODEL_CALL);
+        onModelCallStart(chatContext);
 
         tokenStream.onError(throwable -> {
-            // 直接发送错误消息，transport内部处理连接异常
-            transport.sendMessage(connection,
-                    AgentChatResponse.buildEndMessage(throwable.getMessage(), MessageType.TEXT));
-
-            // 调用错误处理钩子
-            onChatError(chatContext, ExecutionPhase.MODEL_CALL, throwable);
-            onChatCompleted(chatContext, false, throwable.getMessage());
+            try {
+                // 直接发送错误消息并结束连接，transport内部处理连接异常
+                transport.sendEndMessage(connection,
+                        AgentChatResponse.buildEndMessage(throwable.getMessage(), MessageType.TEXT));
+
+                // 调用错误处理钩子
+                onChatError(chatContext, ExecutionPhase.MODEL_CALL, throwable);
+                onChatCompleted(chatContext, false, throwable.getMessage());
+            } finally {
+                chatContext.getTurnCompletion().complete(null);
+            }
         });
 
         // 部分响应处理
         tokenStream.onPartialResponse(reply -> {
+            onPartialResponse(chatContext, reply);
             messageBuilder.get().append(reply);
             // 删除换行后消息为空字符串
             if (messageBuilder.get().toString().trim().isEmpty()) {
@@ -258,27 +386,35 @@ public class AbstractMessageHandler {
 
         // 完整响应处理
         tokenStream.onCompleteResponse(chatResponse -> {
+            try {
+                onPhaseCompleted(chatContext, ExecutionPhase.MODEL_CALL, System.nanoTime() - modelStartNanos);
+                long resultStart = System.nanoTime();
+                onPhaseStart(chatContext, ExecutionPhase.RESULT_PROCESSING);
+                this.setMessageTokenCount(userEntity, llmEntity, chatResponse);
 
-            this.setMessageTokenCount(chatContext.getMessageHistory(), userEntity, llmEntity, chatResponse);
+                // 按仅用户抽取策略，不记录AI文本
 
-            // 按仅用户抽取策略，不记录AI文本
-
-            messageService.updateMessage(userEntity);
-            // 保存AI消息
-            messageService.saveMessage(Collections.singletonList(llmEntity));
+                messageService.updateMessage(userEntity);
+                // 保存AI消息
+                messageService.saveMessage(Collections.singletonList(llmEntity));
 
-            // 发送结束消息
-            transport.sendEndMessage(connection, AgentChatResponse.buildEndMessage(MessageType.TEXT));
+                // 发送结束消息
+                transport.sendEndMessage(connection, AgentChatResponse.buildEndMessage(MessageType.TEXT));
+                onPhaseCompleted(chatContext, ExecutionPhase.RESULT_PROCESSING, System.nanoTime() - resultStart);
 
-            // 调用模型调用完成钩子
-            long latency = System.currentTimeMillis() - startTime;
-            ModelCallInfo modelCallInfo = buildModelCallInfo(chatContext, chatResponse, latency, true);
-            onModelCallCompleted(chatContext, chatResponse, modelCallInfo);
+                // 调用模型调用完成钩子
+                long latency = System.currentTimeMillis() - startTime;
+                ModelCallInfo modelCallInfo = buildModelCallInfo(chatContext, chatResponse, latency, true);
+                onModelCallCompleted(chatContext, chatResponse, modelCallInfo);
 
-            // 调用对话完成钩子
-            onChatCompleted(chatContext, true, null);
+                // 调用对话完成钩子
+                onChatCompleted(chatContext, true, null);
 
-            smartRenameSession(chatContext);
+                smartRenameSession(chatContext);
+            } finally {
+                // 本轮消息已落库，允许同一会话的下一轮开始
+                chatContext.getTurnCompletion().complete(null);
+            }
         });
 
         // 错误处理
@@ -322,24 +458,18 @@ public class AbstractMessageHandler {
     }
 
     /**
-     * 根据历史消息的本体token算出本次消息的本体token
+     * 记录模型返回的token用量，消息本体token在保存时由本地分词器计算
      *
-     * @param historyMessages 历史消息列表
-     * @param userEntity      用户请求消息实体
-     * @param llmEntity       llm回复消息实体
-     * @param chatResponse    llm响应
+     * @param userEntity   用户请求消息实体
+     * @param llmEntity    llm回复消息实体
+     * @param chatResponse llm响应
      */
-    private void setMessageTokenCount(List<MessageEntity> historyMessages, MessageEntity userEntity,
-                                      MessageEntity llmEntity, ChatResponse chatResponse) {
+    private void setMessageTokenCount(MessageEntity userEntity, MessageEntity llmEntity, ChatResponse chatResponse) {
+        // AI消息本体token先以输出token数记录，保存后以分词结果校正
         llmEntity.setTokenCount(chatResponse.tokenUsage().outputTokenCount());
         llmEntity.setBodyTokenCount(chatResponse.tokenUsage().outputTokenCount());
         llmEntity.setContent(chatResponse.aiMessage().text());
-        int bodyTokenSum = 0;
-        if (CollectionUtil.isNotEmpty(historyMessages)) {
-            bodyTokenSum = historyMessages.stream().mapToInt(MessageEntity::getBodyTokenCount).sum();
-        }
         userEntity.setTokenCount(chatResponse.tokenUsage().inputTokenCount());
-        userEntity.setBodyTokenCount(chatResponse.tokenUsage().inputTokenCount() - bodyTokenSum);
     }
 
     /**
@@ -351,29 +481,217 @@ public class AbstractMessageHandler {
     }
 
     /**
-     * 构建流式Agent
+     * 获取本轮的流式Agent
+     * <p>
+     * Agent代理按 (模型客户端, 内置工具规范集合, 是否有外部工具) 缓存复用，避免每轮反射创建代理和注册工具；
+     * 工具规范相同的Agent共用同一个代理，工具执行器不进入代理，本轮的聊天内存、对话上下文、Agent自己的内置工具目录、
+     * 路由选出的内置工具和外部工具提供者以会话ID为记忆ID绑定，本轮结束时解绑
      */
     protected Agent buildStreamingAgent(StreamingChatModel model, MessageWindowChatMemory memory,
-                                        ToolProvider toolProvider, AgentEntity agent) {
+                                        ToolProvider toolProvider, ChatContext chatContext) {
+
+        // 通过内置工具注册器获取所有适用的内置工具（按Agent缓存的不可变目录），再按本轮用户消息选出相关工具；
+        // 代理按完整目录缓存，选择结果经每次请求的工具提供者交给模型，不同的选择不会产生新的代理
+        Map<ToolSpecification, ToolExecutor> builtInTools = builtInToolRegistry
+                .createToolsForAgent(chatContext.getAgent());
+        Map<ToolSpecification, ToolExecutor> routedTools = toolRouter != null
+                ? toolRouter.selectBuiltInTools(chatContext, builtInTools) : null;
+
+        AgentTemplateKey key = new AgentTemplateKey(model, Set.copyOf(builtInTools.keySet()), toolProvider != null);
+        Agent agent = agentTemplate(key);
+
+        // 同一会话的轮次串行执行，会话ID在进行中的轮次内唯一
+        String memoryId = chatContext.getSessionId();
+        Map<String, ToolExecutor> builtInExecutors = new HashMap<>(builtInTools.size());
+        builtInTools.forEach((specification, executor) -> builtInExecutors.put(specification.name(), executor));
+        TurnBinding binding = new TurnBinding(chatContext, memory, builtInTools, builtInExecutors, routedTools,
+                toolProvider, toolProvider != null ? new ConcurrentHashMap<>() : Map.of());
+        turnBindings.put(memoryId, binding);
+        // 代理按记忆ID缓存聊天内存：上一轮的解绑回调可能晚于本轮绑定执行（此时不再驱逐），
+        // 或上一轮用的是其他代理，绑定时先驱逐，保证本轮从绑定中取到自己的内存
+        agent.evictChatMemory(memoryId);
+        Agent boundAgent = agent;
+        chatContext.getTurnCompletion().whenComplete((result, throwable) -> {
+            if (turnBindings.remove(memoryId, binding)) {
+                boundAgent.evictChatMemory(memoryId);
+            }
+        });
+        return agent;
+    }
 
-        // 通过内置工具注册器获取所有适用的内置工具
-        Map<ToolSpecification, ToolExecutor> builtInTools = builtInToolRegistry.createToolsForAgent(agent);
+    /**
+     * 获取缓存的Agent代理，未命中时创建；超过上限时淘汰最久未用的代理，常用代理不受影响
+     * <p>
+     * 创建代理只注册工具规范，在锁内完成，同一个键只创建一次
+     */
+    private Agent agentTemplate(AgentTemplateKey key) {
+        agentTemplatesLock.lock();
+        try {
+            Agent agent = agentTemplates.get(key);
+            if (agent == null) {
+                agent = createAgentTemplate(key);
+                agentTemplates.put(key, agent);
+                if (agentTemplates.size() > MAX_AGENT_TEMPLATES) {
+                    agentTemplates.pollFirstEntry();
+                }
+            }
+            return agent;
+        } finally {
+            agentTemplatesLock.unlock();
+        }
+    }
 
-        AiServices<Agent> agentService = AiServices.builder(Agent.class).streamingChatModel(model).chatMemory(memory);
+    /**
+     * 创建可跨轮次复用的Agent代理，所有本轮状态（包括内置工具执行器）通过记忆ID从 {@link #turnBindings} 获取
+     * <p>
+     * 注册给langchain4j的工具执行器交由 {@link ToolBatchExecutor} 调度，同一步的多个工具调用并发执行
+     */
+    private Agent createAgentTemplate(AgentTemplateKey key) {
+        AiServices<Agent> agentService = AiServices.builder(Agent.class)
+                .streamingChatModel(toolBatchExecutor.batching(key.model()))
+                .chatMemoryProvider(memoryId -> {
+                    TurnBinding binding = turnBindings.get(memoryId);
+                    if (binding == null) {
+                        throw new IllegalStateException("会话未绑定本轮聊天内存: " + memoryId);
+                    }
+                    return binding.memory();
+                });
 
-        // 添加内置工具（如RAG等）
-        if (builtInTools != null && !builtInTools.isEmpty()) {
-            agentService.tools(builtInTools);
+        boolean routed = toolRouter != null;
+        // 未启用路由时内置工具（如RAG等）静态注册；启用路由时与外部工具一起由每次请求的工具提供者给出本轮选中的子集
+        if (!routed && !key.tools().isEmpty()) {
+            agentService.tools(batchedTools(key.tools()));
         }
 
-        // 添加外部工具提供者
-        if (toolProvider != null) {
-            agentService.toolProvider(toolProvider);
+        // 按记忆ID分派到本轮的内置工具选择与外部工具提供者
+        if (routed || key.dynamicTools()) {
+            ToolExecutor batched = batchedExecutor();
+            agentService.toolProvider(request -> {
+                TurnBinding binding = turnBindings.get(request.chatMemoryId());
+                if (binding == null) {
+                    return null;
+                }
+                ToolProviderResult.Builder builder = ToolProviderResult.builder();
+                if (routed) {
+                    Map<ToolSpecification, ToolExecutor> selected = binding.routedTools() != null
+                            ? binding.routedTools() : binding.builtInTools();
+                    selected.keySet().forEach(specification -> builder.add(specification, batched));
+                }
+                if (binding.toolProvider() != null) {
+                    ToolProviderResult result = binding.toolProvider().provideTools(request);
+                    if (result != null && result.tools() != null) {
+                        // MCP工具已按服务器套上隔离舱与缓存
+                        Map<ToolSpecification, ToolExecutor> tools = binding.toolProvider() instanceof McpToolProvider
+                                ? result.tools() : guardedTools(result.tools(), binding);
+                        if (routed) {
+                            tools = toolRouter.selectExternalTools(binding.chatContext(), tools);
+                        }
+                        timedTools(tools).forEach((specification, executor) -> {
+                            binding.dynamicExecutors().put(specification.name(), executor);
+                            builder.add(specification, batched);
+                        });
+                    }
+                }
+                return builder.build();
+            });
         }
 
         return agentService.build();
     }
 
+    /**
+     * 注册给langchain4j的工具执行器，按工具名解析到本轮的执行器后交由批量执行器调度
+     */
+    private Map<ToolSpecification, ToolExecutor> batchedTools(Set<ToolSpecification> specifications) {
+        ToolExecutor executor = batchedExecutor();
+        Map<ToolSpecification, ToolExecutor> batched = new LinkedHashMap<>(specifications.size());
+        specifications.forEach(specification -> batched.put(specification, executor));
+        return batched;
+    }
+
+    /**
+     * 内置工具解析到本轮所属Agent的目录并计时，外部工具解析到本轮已计时的执行器
+     */
+    private ToolExecutor batchedExecutor() {
+        return (request, memoryId) -> toolBatchExecutor.execute(request, memoryId, toolName -> {
+            TurnBinding binding = turnBindings.get(memoryId);
+            if (binding == null) {
+                return null;
+            }
+            ToolExecutor executor = binding.builtInExecutors().get(toolName);
+            return executor != null ? timed(executor) : binding.dynamicExecutors().get(toolName);
+        });
+    }
+
+    /**
+     * 外部工具共用 {@link ToolBulkheadRegistry#EXTERNAL_PROVIDER} 隔离舱，结果缓存按配置的工具名规则
+     */
+    private Map<ToolSpecification, ToolExecutor> guardedTools(Map<ToolSpecification, ToolExecutor> tools,
+                                                              TurnBinding binding) {
+        if (toolResultCache == null || toolBulkheadRegistry == null) {
+            return tools;
+        }
+        AgentEntity agent = binding.chatContext().getAgent();
+        String agentId = agent != null ? agent.getId() : null;
+        Map<ToolSpecification, ToolExecutor> wrapped = new LinkedHashMap<>(tools.size());
+        tools.forEach((specification, executor) -> {
+            ToolExecutor guarded = toolBulkheadRegistry.guard(ToolBulkheadRegistry.EXTERNAL_PROVIDER, null,
+                    specification.name(), executor);
+            wrapped.put(specification, toolResultCache.cached(specification.name(), null, agentId, guarded));
+        });
+        return wrapped;
+    }
+
+    /**
+     * 包装工具执行器，执行结束时回调 {@link #onToolExecutionFinished}
+     */
+    private Map<ToolSpecification, ToolExecutor> timedTools(Map<ToolSpecification, ToolExecutor> tools) {
+        Map<ToolSpecification, ToolExecutor> timed = new LinkedHashMap<>(tools.size());
+        tools.forEach((specification, executor) -> timed.put(specification, timed(executor)));
+        return timed;
+    }
+
+    private ToolExecutor timed(ToolExecutor executor) {
+        return (request, memoryId) -> {
+            TurnBinding binding = turnBindings.get(memoryId);
+            if (binding == null) {
+                return executor.execute(request, memoryId);
+            }
+            ChatContext chatContext = binding.chatContext();
+            ToolExecutionEvent event = new ToolExecutionEvent();
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                String result = executor.execute(request, memoryId);
+                onToolExecutionFinished(chatContext, request.name(), System.nanoTime() - start, null);
+                event.end(chatContext.getSessionId(), request.name(), true, request.arguments(), result);
+                return result;
+            } catch (RuntimeException e) {
+                onToolExecutionFinished(chatContext, request.name(), System.nanoTime() - start, e);
+                event.end(chatContext.getSessionId(), request.name(), false, request.arguments(), null);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Agent代理缓存键，模型客户端为缓存对象（按引用比较），工具按规范内容比较：
+     * 工具名、描述与参数相同的Agent共用代理，Agent配置变更导致规范变化时自然落到新的键
+     */
+    private record AgentTemplateKey(StreamingChatModel model, Set<ToolSpecification> tools, boolean dynamicTools) {
+    }
+
+    /**
+     * 本轮绑定到会话的状态，builtInTools 为Agent完整的内置工具目录，builtInExecutors 为其按工具名的索引，
+     * routedTools 为路由选出的内置工具（未启用路由时为null），dynamicExecutors 为外部工具提供者本轮提供的计时执行器（按工具名）
+     */
+    private record TurnBinding(ChatContext chatContext, ChatMemory memory,
+                               Map<ToolSpecification, ToolExecutor> builtInTools,
+                               Map<String, ToolExecutor> builtInExecutors,
+                               @Nullable Map<ToolSpecification, ToolExecutor> routedTools,
+                               @Nullable ToolProvider toolProvider, Map<String, ToolExecutor> dynamicExecutors) {
+    }
+
     /**
      * 创建用户消息实体
      */
@@ -454,8 +772,15 @@ public class AbstractMessageHandler {
                     || !StringUtils.isNotBlank(chatContext.getUserMessage())) {
                 return "";
             }
-            var results = memoryService.searchRelevant(chatContext.getSessionId(), chatContext.getUserMessage(),
-                    topK);
+            Span recallSpan = chatContext.getTurnTrace().startSpan("chat.memory_recall");
+            List<MemoryResult> results;
+            try {
+                results = memoryService.searchRelevant(chatContext.getSessionId(), chatContext.getUserMessage(),
+                        topK);
+                recallSpan.setAttribute("chat.memory_results", results == null ? 0 : results.size());
+            } finally {
+                recallSpan.end();
+            }
             if (results == null || results.isEmpty()) {
                 return "";
             }
@@ -478,25 +803,35 @@ public class AbstractMessageHandler {
         }
     }
 
-    // 智能重命名会话
+    // 智能重命名会话（在后台执行器上运行，默认为虚拟线程）
     protected void smartRenameSession(ChatContext chatContext) {
-        Thread thread = new Thread(() -> {
-            // 获取会话 id
-            String sessionId = chatContext.getSessionId();
-            // 是否是首次对话
-            boolean isFirstConversation = messageService.isFirstConversation(sessionId);
-            // 如果首次对话，则重命名会话
-            if (isFirstConversation) {
-                ChatModel strandClient = llmServiceFactory.getStrandClient(chatContext.getLlmModelConfig());
-                ArrayList<ChatMessage> chatMessages = new ArrayList<>();
-                chatMessages.add(new SystemMessage(AgentPromptTemplates.getStartConversationPrompt()));
-                chatMessages.add(new UserMessage(chatContext.getUserMessage()));
-                ChatResponse chat = strandClient.chat(chatMessages);
-                String sessionTitle = chat.aiMessage().text();
-                sessionRepository.updateSession(chatContext.getSessionId(), sessionTitle);
-            }
-        });
-        thread.start();
+        try (Scope ignored = chatContext.getTurnTrace().context().makeCurrent()) {
+            backgroundTaskExecutor.execute(() -> {
+                // 获取会话 id
+                String sessionId = chatContext.getSessionId();
+                // 是否是首次对话
+                boolean isFirstConversation = messageService.isFirstConversation(sessionId);
+                // 如果首次对话，则重命名会话
+                if (isFirstConversation) {
+                    Span span = chatTracing.startBackgroundSpan("chat.title_generation", sessionId);
+                    try {
+                        ChatModel strandClient = llmServiceFactory.getStrandClient(chatContext.getLlmModelConfig());
+                        ArrayList<ChatMessage> chatMessages = new ArrayList<>();
+                        chatMessages.add(new SystemMessage(AgentPromptTemplates.getStartConversationPrompt()));
+                        chatMessages.add(new UserMessage(chatContext.getUserMessage()));
+                        ChatResponse chat = strandClient.chat(chatMessages);
+                        String sessionTitle = chat.aiMessage().text();
+                        sessionRepository.updateSession(chatContext.getSessionId(), sessionTitle);
+                    } catch (RuntimeException e) {
+                        span.recordException(e);
+                        span.setStatus(StatusCode.ERROR);
+                        throw e;
+                    } finally {
+                        span.end();
+                    }
+                }
+            });
+        }
     }
 
     /**
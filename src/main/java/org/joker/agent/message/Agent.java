@@ -1,7 +1,13 @@
 package org.joker.agent.message;
 
+import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.memory.ChatMemoryAccess;
 
-public interface Agent {
-    TokenStream chat(String message);
+/**
+ * 流式对话Agent，代理跨轮次复用，记忆ID为会话ID
+ */
+public interface Agent extends ChatMemoryAccess {
+    TokenStream chat(@MemoryId String sessionId, @UserMessage String message);
 }
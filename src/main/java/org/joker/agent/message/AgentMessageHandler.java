@@ -1,11 +1,94 @@
 package org.joker.agent.message;
 
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.service.tool.ToolProvider;
+import org.joker.agent.context.ChatContext;
+import org.joker.agent.dto.ModelCallInfo;
+import org.joker.agent.enums.ExecutionPhase;
+import org.joker.agent.mcp.McpClientPool;
+import org.joker.agent.mcp.McpToolProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
+import java.util.List;
+
 /**
  * Agent消息处理器 用于支持工具调用的对话模式 实现任务拆分、执行和结果汇总的工作流 使用事件驱动架构进行状态转换
+ * <p>
+ * 追踪钩子将阶段耗时、首token时间、token数与工具执行情况记录到本轮指标、链路与JFR事件中
  */
 @Component(value = "agentMessageHandler")
 public class AgentMessageHandler extends AbstractMessageHandler {
 
+    @Autowired
+    private McpClientPool mcpClientPool;
+
+    /**
+     * 提供Agent使用的MCP服务器的工具，连接与工具列表来自连接池，未配置的服务器忽略
+     */
+    @Override
+    protected ToolProvider provideTools(ChatContext chatContext) {
+        if (chatContext.getMcpServerNames() == null) {
+            return null;
+        }
+        List<String> serverNames = chatContext.getMcpServerNames().stream().filter(mcpClientPool::isAvailable)
+                .distinct().toList();
+        if (serverNames.isEmpty()) {
+            return null;
+        }
+        return new McpToolProvider(mcpClientPool, toolBulkheadRegistry, toolResultCache, serverNames,
+                chatContext.getAgent());
+    }
+
+    @Override
+    protected void onPhaseStart(ChatContext chatContext, ExecutionPhase phase) {
+        chatContext.getTurnEvents().phaseStarted(phase);
+    }
+
+    @Override
+    protected void onPhaseCompleted(ChatContext chatContext, ExecutionPhase phase, long durationNanos) {
+        chatContext.getTurnMetrics().recordPhase(phase, durationNanos);
+        chatContext.getTurnTrace().recordPhase(phase, durationNanos);
+        chatContext.getTurnEvents().phaseCompleted(phase);
+    }
+
+    @Override
+    protected void onModelCallStart(ChatContext chatContext) {
+        chatContext.getTurnMetrics().onModelCallStart();
+        chatContext.getTurnTrace().onModelCallStart(chatContext.getLlmModelConfig().getModelEndpoint());
+        chatContext.getTurnEvents().onModelCallStart();
+    }
+
+    @Override
+    protected void onPartialResponse(ChatContext chatContext, String partialResponse) {
+        chatContext.getTurnMetrics().onToken();
+        chatContext.getTurnTrace().onToken();
+        chatContext.getTurnEvents().onToken();
+    }
+
+    @Override
+    protected void onModelCallCompleted(ChatContext chatContext, ChatResponse chatResponse,
+                                        ModelCallInfo modelCallInfo) {
+        chatContext.getTurnMetrics().onModelCallCompleted(modelCallInfo.getInputTokens(),
+                modelCallInfo.getOutputTokens());
+        chatContext.getTurnTrace().onModelCallCompleted(modelCallInfo.getInputTokens(),
+                modelCallInfo.getOutputTokens());
+        chatContext.getTurnEvents().onModelCallCompleted(modelCallInfo.getInputTokens(),
+                modelCallInfo.getOutputTokens());
+    }
+
+    @Override
+    protected void onToolExecutionFinished(ChatContext chatContext, String toolName, long durationNanos,
+                                           @Nullable Throwable error) {
+        chatContext.getTurnMetrics().onToolExecuted(toolName, durationNanos, error == null);
+        chatContext.getTurnTrace().onToolExecuted(toolName, durationNanos, error);
+    }
+
+    @Override
+    protected void onChatError(ChatContext chatContext, ExecutionPhase errorPhase, Throwable throwable) {
+        chatContext.getTurnMetrics().onError(errorPhase);
+        chatContext.getTurnTrace().onError(errorPhase, throwable);
+        chatContext.getTurnEvents().onError(errorPhase);
+    }
 }
@@ -4,10 +4,11 @@ import org.joker.agent.dto.AgentChatResponse;
 
 /** 消息传输接口，用于抽象不同的消息传输方式(SSE、WebSocket等) */
 public interface MessageTransport<T> {
-    /** 创建连接
+    /** 创建会话级连接
+     * @param sessionId 会话ID
      * @param timeout 超时时间(毫秒)
      * @return 连接对象 */
-    T createConnection(long timeout);
+    T createConnection(String sessionId, long timeout);
 
     /** 发送消息
      * @param connection 连接对象
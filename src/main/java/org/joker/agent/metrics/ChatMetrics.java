@@ -0,0 +1,122 @@
+package org.joker.agent.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.joker.agent.admission.AdmissionControl;
+import org.joker.agent.context.ChatContext;
+import org.joker.agent.enums.ExecutionPhase;
+import org.joker.agent.enums.TokenOverflowStrategyEnum;
+import org.joker.agent.model.LLMModelConfig;
+import org.joker.agent.transport.SseStreamMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话流水线指标（Micrometer），通过 /actuator/prometheus 暴露
+ * <p>
+ * 阶段耗时、首token时间、token数与输出速度按 (模型, Token策略) 打标签；工具耗时与错误按 (模型, Token策略, 工具名) 打标签；
+ * 活跃SSE流与准入排队以Gauge形式采集，执行器积压见 {@link ExecutorTaskTracker}
+ */
+@Component
+public class ChatMetrics {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry registry;
+    private final Map<String, TurnMetrics.Meters> turnMeters = new ConcurrentHashMap<>();
+
+    public ChatMetrics(MeterRegistry registry, SseStreamMetrics sseStreamMetrics, AdmissionControl admissionControl) {
+        this.registry = registry;
+        Gauge.builder("chat.sse.active.streams", sseStreamMetrics, SseStreamMetrics::getOpenChannels)
+                .description("打开的SSE流数量").register(registry);
+        Gauge.builder("chat.sse.queued.bytes", sseStreamMetrics, SseStreamMetrics::getQueuedBytes)
+                .description("SSE出站队列积压字节数").baseUnit("bytes").register(registry);
+        Gauge.builder("chat.admission.in.flight", admissionControl, AdmissionControl::getInFlight)
+                .description("进行中的对话数").register(registry);
+        Gauge.builder("chat.admission.queue.depth", admissionControl, AdmissionControl::getQueueDepth)
+                .description("准入等待队列深度").register(registry);
+    }
+
+    /**
+     * 开始记录一轮对话
+     *
+     * @param chatContext 对话上下文
+     * @return 本轮指标记录器
+     */
+    public TurnMetrics startTurn(ChatContext chatContext) {
+        LLMModelConfig modelConfig = chatContext.getLlmModelConfig();
+        String model = modelConfig != null && modelConfig.getModelEndpoint() != null ? modelConfig.getModelEndpoint()
+                : UNKNOWN;
+        TokenOverflowStrategyEnum strategyType = modelConfig != null ? modelConfig.getStrategyType() : null;
+        String strategy = strategyType != null ? strategyType.name() : TokenOverflowStrategyEnum.NONE.name();
+        TurnMetrics.Meters meters = turnMeters.computeIfAbsent(model + '|' + strategy,
+                key -> createTurnMeters(model, strategy));
+        return new TurnMetrics(meters, this);
+    }
+
+    void recordTool(TurnMetrics.Meters turnMeters, String toolName, long durationNanos, boolean success) {
+        String name = toolName != null ? toolName : UNKNOWN;
+        ToolMeters meters = turnMeters.toolMeters.computeIfAbsent(name,
+                key -> createToolMeters(turnMeters.model, turnMeters.strategy, key));
+        (success ? meters.success : meters.failure).record(durationNanos, TimeUnit.NANOSECONDS);
+        if (!success) {
+            meters.errors.increment();
+        }
+    }
+
+    private TurnMetrics.Meters createTurnMeters(String model, String strategy) {
+        TurnMetrics.Meters meters = new TurnMetrics.Meters(model, strategy);
+        for (ExecutionPhase phase : ExecutionPhase.values()) {
+            meters.phaseTimers.put(phase, Timer.builder("chat.phase.duration").description("对话各执行阶段耗时")
+                    .tags("phase", phase.getCode(), "model", model, "strategy", strategy)
+                    .publishPercentileHistogram().register(registry));
+            meters.errors.put(phase, Counter.builder("chat.errors").description("对话各执行阶段错误数")
+                    .tags("phase", phase.getCode(), "model", model, "strategy", strategy).register(registry));
+        }
+        meters.ttft = Timer.builder("chat.ttft").description("模型首token时间")
+                .tags("model", model, "strategy", strategy).publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(2)).register(registry);
+        meters.turnSuccess = turnTimer(model, strategy, "success");
+        meters.turnFailure = turnTimer(model, strategy, "error");
+        meters.tokensPerSecond = DistributionSummary.builder("chat.tokens.per.second").description("模型输出速度")
+                .tags("model", model, "strategy", strategy).publishPercentileHistogram().register(registry);
+        meters.inputTokens = tokenSummary(model, strategy, "input");
+        meters.outputTokens = tokenSummary(model, strategy, "output");
+        return meters;
+    }
+
+    private Timer turnTimer(String model, String strategy, String outcome) {
+        return Timer.builder("chat.turn.duration").description("单轮对话总耗时")
+                .tags("model", model, "strategy", strategy, "outcome", outcome).publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(10)).register(registry);
+    }
+
+    private DistributionSummary tokenSummary(String model, String strategy, String direction) {
+        return DistributionSummary.builder("chat.tokens").description("单次模型调用的token数").baseUnit("tokens")
+                .tags("model", model, "strategy", strategy, "direction", direction).publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private ToolMeters createToolMeters(String model, String strategy, String toolName) {
+        return new ToolMeters(toolTimer(model, strategy, toolName, "success"),
+                toolTimer(model, strategy, toolName, "error"),
+                Counter.builder("chat.tool.errors").description("工具执行失败次数")
+                        .tags("model", model, "strategy", strategy, "tool", toolName).register(registry));
+    }
+
+    private Timer toolTimer(String model, String strategy, String toolName, String outcome) {
+        return Timer.builder("chat.tool.duration").description("工具执行耗时")
+                .tags("model", model, "strategy", strategy, "tool", toolName, "outcome", outcome)
+                .publishPercentileHistogram().register(registry);
+    }
+
+    record ToolMeters(Timer success, Timer failure, Counter errors) {
+    }
+}
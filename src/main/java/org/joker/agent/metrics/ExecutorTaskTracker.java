@@ -0,0 +1,73 @@
+package org.joker.agent.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 执行器任务跟踪 以Gauge暴露各执行器已提交未完成（排队 + 执行中）的任务数
+ * <p>
+ * 虚拟线程执行器没有显式队列，以提交到完成之间的任务数作为积压深度。计数在包装执行器的提交入口上进行，
+ * 而不是在任务装饰器中：有界线程池拒绝任务时装饰器已执行而任务永远不会运行，计数会持续偏高
+ */
+@Component
+public class ExecutorTaskTracker {
+
+    private final MeterRegistry registry;
+
+    public ExecutorTaskTracker(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 包装执行器，统计已提交未完成的任务数
+     *
+     * @param executorName 执行器名称
+     * @param executor     被包装的执行器
+     * @return 带计数的执行器，关闭时一并关闭被包装的执行器
+     */
+    public AsyncTaskExecutor track(String executorName, AsyncTaskExecutor executor) {
+        AtomicInteger pending = new AtomicInteger();
+        Gauge.builder("chat.executor.pending", pending, AtomicInteger::get).description("执行器已提交未完成的任务数")
+                .tag("executor", executorName).register(registry);
+        return new TrackedTaskExecutor(executor, pending);
+    }
+
+    /**
+     * 带计数的执行器，submit 系列方法经 {@link AsyncTaskExecutor} 的默认实现同样走 execute
+     */
+    private record TrackedTaskExecutor(AsyncTaskExecutor delegate, AtomicInteger pending)
+            implements AsyncTaskExecutor, AutoCloseable {
+
+        @Override
+        public void execute(Runnable task) {
+            pending.incrementAndGet();
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 被拒绝的任务不会运行
+                pending.decrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (delegate instanceof DisposableBean disposable) {
+                disposable.destroy();
+            } else if (delegate instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.joker.agent.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import org.joker.agent.enums.ExecutionPhase;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单轮对话的指标记录器
+ * <p>
+ * 计量器在轮次开始时按 (模型, 策略) 一次性解析，逐token路径只做基本类型运算，不产生对象分配
+ */
+public final class TurnMetrics {
+
+    /**
+     * 未接入指标时使用的空记录器
+     */
+    public static final TurnMetrics NOOP = new TurnMetrics(null, null);
+
+    private final Meters meters;
+    private final ChatMetrics owner;
+    private final long startNanos;
+
+    private long modelStartNanos;
+    private long firstTokenNanos;
+    private long lastTokenNanos;
+    private volatile boolean failed;
+
+    TurnMetrics(Meters meters, ChatMetrics owner) {
+        this.meters = meters;
+        this.owner = owner;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录阶段耗时
+     */
+    public void recordPhase(ExecutionPhase phase, long durationNanos) {
+        if (meters != null) {
+            meters.phaseTimers.get(phase).record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 模型流开始，作为首token时间的起点
+     */
+    public void onModelCallStart() {
+        modelStartNanos = System.nanoTime();
+        firstTokenNanos = 0;
+    }
+
+    /**
+     * 收到流式片段（逐token调用）
+     */
+    public void onToken() {
+        if (meters == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (firstTokenNanos == 0) {
+            firstTokenNanos = now;
+            meters.ttft.record(now - (modelStartNanos != 0 ? modelStartNanos : startNanos), TimeUnit.NANOSECONDS);
+        }
+        lastTokenNanos = now;
+    }
+
+    /**
+     * 模型调用完成，记录输入/输出token数及输出速度（首token之后的生成速度）
+     */
+    public void onModelCallCompleted(Integer inputTokens, Integer outputTokens) {
+        if (meters == null) {
+            return;
+        }
+        if (inputTokens != null) {
+            meters.inputTokens.record(inputTokens);
+        }
+        if (outputTokens != null) {
+            meters.outputTokens.record(outputTokens);
+            long generationNanos = lastTokenNanos - firstTokenNanos;
+            if (firstTokenNanos != 0 && generationNanos > 0 && outputTokens > 1) {
+                meters.tokensPerSecond.record((outputTokens - 1) * 1_000_000_000.0 / generationNanos);
+            }
+        }
+    }
+
+    /**
+     * 记录单次工具执行
+     */
+    public void onToolExecuted(String toolName, long durationNanos, boolean success) {
+        if (meters == null) {
+            return;
+        }
+        meters.phaseTimers.get(ExecutionPhase.TOOL_EXECUTION).record(durationNanos, TimeUnit.NANOSECONDS);
+        owner.recordTool(meters, toolName, durationNanos, success);
+    }
+
+    /**
+     * 记录阶段错误，本轮以失败结束
+     */
+    public void onError(ExecutionPhase phase) {
+        failed = true;
+        if (meters != null) {
+            meters.errors.get(phase).increment();
+        }
+    }
+
+    /**
+     * 本轮结束（成功或失败），记录整轮耗时
+     */
+    public void finish() {
+        if (meters != null) {
+            (failed ? meters.turnFailure : meters.turnSuccess).record(System.nanoTime() - startNanos,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 按 (模型, 策略) 缓存的计量器集合
+     */
+    static final class Meters {
+        final String model;
+        final String strategy;
+        final Map<ExecutionPhase, Timer> phaseTimers = new EnumMap<>(ExecutionPhase.class);
+        final Map<ExecutionPhase, Counter> errors = new EnumMap<>(ExecutionPhase.class);
+        Timer ttft;
+        Timer turnSuccess;
+        Timer turnFailure;
+        DistributionSummary tokensPerSecond;
+        DistributionSummary inputTokens;
+        DistributionSummary outputTokens;
+        /**
+         * 本 (模型, 策略) 下按工具名缓存的工具计量器
+         */
+        final Map<String, ChatMetrics.ToolMeters> toolMeters = new ConcurrentHashMap<>();
+
+        Meters(String model, String strategy) {
+            this.model = model;
+            this.strategy = strategy;
+        }
+    }
+}
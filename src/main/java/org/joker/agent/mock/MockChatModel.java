@@ -0,0 +1,39 @@
+package org.joker.agent.mock;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.joker.agent.config.MockProviderProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟非流式模型，阻塞首token时间加完整输出时间后返回
+ */
+public class MockChatModel implements ChatModel {
+
+    private final String modelName;
+    private final MockProviderProperties properties;
+
+    MockChatModel(String modelName, MockProviderProperties properties) {
+        this.modelName = modelName;
+        this.properties = properties;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        MockResponsePlan plan = MockResponsePlan.create(chatRequest, modelName, properties);
+        long tokens = plan.errorAtToken >= 0 ? plan.errorAtToken : plan.tokens.size();
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(plan.firstTokenMillis) + tokens * plan.tokenIntervalNanos;
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("mock provider interrupted", e);
+        }
+        if (plan.errorAtToken >= 0) {
+            throw plan.injectedError();
+        }
+        return plan.toResponse();
+    }
+}
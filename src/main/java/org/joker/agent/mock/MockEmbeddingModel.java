@@ -0,0 +1,57 @@
+package org.joker.agent.mock;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模拟向量模型（MOCK协议），以字符二元组哈希生成确定性向量，相近文本的向量也相近
+ */
+public class MockEmbeddingModel implements EmbeddingModel {
+
+    /**
+     * 与记忆向量库的维度一致
+     */
+    private static final int DIMENSION = 128;
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+        for (TextSegment segment : textSegments) {
+            embeddings.add(Embedding.from(vectorOf(segment.text())));
+        }
+        return Response.from(embeddings);
+    }
+
+    @Override
+    public int dimension() {
+        return DIMENSION;
+    }
+
+    private static float[] vectorOf(String text) {
+        float[] vector = new float[DIMENSION];
+        String value = text == null ? "" : text;
+        for (int i = 0; i < value.length(); i++) {
+            int bigram = value.charAt(i) * 31 + (i + 1 < value.length() ? value.charAt(i + 1) : 0);
+            int hash = Integer.rotateLeft(bigram * 0x9E3779B9, 7);
+            vector[Math.floorMod(hash, DIMENSION)] += (hash & 1) == 0 ? 1 : -1;
+        }
+        double norm = 0;
+        for (float component : vector) {
+            norm += component * component;
+        }
+        if (norm == 0) {
+            vector[0] = 1;
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,138 @@
+package org.joker.agent.mock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+
+/**
+ * 本地模拟MCP服务器（STDIO方式），用于离线联调与压测MCP工具链路
+ * <p>
+ * 按行读取标准输入的JSON-RPC消息并在标准输出逐行应答（PrintStream自身同步，并发应答不会交错），日志只写标准错误。提供三个工具：
+ * echo（原样返回文本）、current_time（当前时间）、sleep（休眠指定毫秒，用于验证超时与隔离舱）。
+ * 配置示例：command: [java, -cp, "${java.class.path}", org.joker.agent.mock.MockMcpServer]
+ */
+public final class MockMcpServer {
+
+    private static final String DEFAULT_PROTOCOL_VERSION = "2024-11-05";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final PrintStream out;
+
+    private MockMcpServer(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        MockMcpServer server = new MockMcpServer(out);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!line.isBlank()) {
+                server.handle(line);
+            }
+        }
+    }
+
+    private void handle(String line) {
+        JsonNode message;
+        try {
+            message = OBJECT_MAPPER.readTree(line);
+        } catch (Exception e) {
+            System.err.println("无法解析的消息: " + line);
+            return;
+        }
+        JsonNode id = message.get("id");
+        String method = message.path("method").asText();
+        if (id == null || id.isNull()) {
+            // 通知（如 notifications/initialized）无需应答
+            return;
+        }
+        JsonNode params = message.path("params");
+        switch (method) {
+            case "initialize" -> reply(id, initialize(params));
+            case "ping" -> reply(id, OBJECT_MAPPER.createObjectNode());
+            case "tools/list" -> reply(id, listTools());
+            // 工具调用各自在虚拟线程上执行，慢调用不阻塞同一连接上的其他请求
+            case "tools/call" -> Thread.startVirtualThread(() -> reply(id, callTool(params)));
+            default -> error(id, -32601, "Method not found: " + method);
+        }
+    }
+
+    private ObjectNode initialize(JsonNode params) {
+        ObjectNode result = OBJECT_MAPPER.createObjectNode();
+        result.put("protocolVersion", params.path("protocolVersion").asText(DEFAULT_PROTOCOL_VERSION));
+        result.putObject("capabilities").putObject("tools").put("listChanged", false);
+        result.putObject("serverInfo").put("name", "mock-mcp").put("version", "1.0.0");
+        return result;
+    }
+
+    private ObjectNode listTools() {
+        ObjectNode result = OBJECT_MAPPER.createObjectNode();
+        ArrayNode tools = result.putArray("tools");
+        tools.add(tool("echo", "原样返回输入的文本", "text", "string", "要返回的文本"));
+        tools.add(tool("current_time", "返回服务器当前时间", null, null, null));
+        tools.add(tool("sleep", "休眠指定毫秒后返回", "millis", "integer", "休眠时长（毫秒）"));
+        return result;
+    }
+
+    private ObjectNode tool(String name, String description, String parameter, String type,
+                            String parameterDescription) {
+        ObjectNode tool = OBJECT_MAPPER.createObjectNode().put("name", name).put("description", description);
+        ObjectNode schema = tool.putObject("inputSchema").put("type", "object");
+        ObjectNode properties = schema.putObject("properties");
+        if (parameter != null) {
+            properties.putObject(parameter).put("type", type).put("description", parameterDescription);
+            schema.putArray("required").add(parameter);
+        }
+        return tool;
+    }
+
+    private ObjectNode callTool(JsonNode params) {
+        String name = params.path("name").asText();
+        JsonNode arguments = params.path("arguments");
+        return switch (name) {
+            case "echo" -> content(arguments.path("text").asText(), false);
+            case "current_time" -> content(OffsetDateTime.now().toString(), false);
+            case "sleep" -> {
+                long millis = arguments.path("millis").asLong();
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                yield content("slept " + millis + "ms", false);
+            }
+            default -> content("未知工具: " + name, true);
+        };
+    }
+
+    private ObjectNode content(String text, boolean isError) {
+        ObjectNode result = OBJECT_MAPPER.createObjectNode();
+        result.putArray("content").addObject().put("type", "text").put("text", text);
+        result.put("isError", isError);
+        return result;
+    }
+
+    private void reply(JsonNode id, JsonNode result) {
+        ObjectNode response = OBJECT_MAPPER.createObjectNode().put("jsonrpc", "2.0");
+        response.set("id", id);
+        response.set("result", result);
+        out.println(response);
+    }
+
+    private void error(JsonNode id, int code, String message) {
+        ObjectNode response = OBJECT_MAPPER.createObjectNode().put("jsonrpc", "2.0");
+        response.set("id", id);
+        response.putObject("error").put("code", code).put("message", message);
+        out.println(response);
+    }
+}
@@ -0,0 +1,48 @@
+package org.joker.agent.mock;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import jakarta.annotation.PreDestroy;
+import org.joker.agent.config.MockProviderProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地模拟模型提供方（MOCK协议）
+ * <p>
+ * 所有模拟流共用一组调度线程按节奏推送token，不为每个会话占用线程，便于在单机上模拟数千并发会话
+ */
+@Component
+public class MockProvider {
+
+    private final MockProviderProperties properties;
+    private final ScheduledExecutorService scheduler;
+
+    public MockProvider(MockProviderProperties properties) {
+        this.properties = properties;
+        int threads = properties.getSchedulerThreads() > 0 ? properties.getSchedulerThreads()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger index = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mock-llm-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public StreamingChatModel streamingModel(String modelName) {
+        return new MockStreamingChatModel(modelName, properties, scheduler);
+    }
+
+    public ChatModel chatModel(String modelName) {
+        return new MockChatModel(modelName, properties);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,135 @@
+package org.joker.agent.mock;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.exception.InternalServerException;
+import dev.langchain4j.exception.RateLimitException;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+import org.joker.agent.config.MockProviderProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 模拟模型单次调用的输出计划
+ * <p>
+ * 随机数以配置种子与请求内容共同决定，同样的请求在同样的配置下总是得到同样的输出、时序与错误
+ */
+final class MockResponsePlan {
+
+    private static final String[] VOCABULARY = {"模拟", "输出", "的", "内容", "用于", "压测", "对话", "链路", "，",
+            "。", " load", " test", " token", " stream", " latency", " agent", " response", "\n"};
+
+    /**
+     * 中英文混合文本平均每token字符数，用于估算输入token
+     */
+    private static final double CHARS_PER_TOKEN = 3.0;
+
+    final String modelName;
+    final long firstTokenMillis;
+    final long tokenIntervalNanos;
+    final List<String> tokens;
+    final ToolExecutionRequest toolCall;
+    final int inputTokens;
+
+    /**
+     * 注入错误发生在第几个token之前，-1表示不注入
+     */
+    final int errorAtToken;
+    final boolean rateLimitError;
+
+    private MockResponsePlan(String modelName, long firstTokenMillis, long tokenIntervalNanos, List<String> tokens,
+                             ToolExecutionRequest toolCall, int inputTokens, int errorAtToken,
+                             boolean rateLimitError) {
+        this.modelName = modelName;
+        this.firstTokenMillis = firstTokenMillis;
+        this.tokenIntervalNanos = tokenIntervalNanos;
+        this.tokens = tokens;
+        this.toolCall = toolCall;
+        this.inputTokens = inputTokens;
+        this.errorAtToken = errorAtToken;
+        this.rateLimitError = rateLimitError;
+    }
+
+    static MockResponsePlan create(ChatRequest chatRequest, String modelName, MockProviderProperties properties) {
+        String promptText = promptText(chatRequest.messages());
+        SplittableRandom random = new SplittableRandom(properties.getSeed() ^ promptText.hashCode());
+
+        long jitter = properties.getFirstTokenJitterMillis();
+        long firstToken = Math.max(0, properties.getFirstTokenMillis()
+                + (jitter > 0 ? random.nextLong(-jitter, jitter + 1) : 0));
+        long interval = properties.getTokensPerSecond() > 0 ? (long) (1_000_000_000L / properties.getTokensPerSecond())
+                : 0;
+
+        ToolExecutionRequest toolCall = null;
+        List<ToolSpecification> tools = chatRequest.toolSpecifications();
+        boolean afterToolResult = !chatRequest.messages().isEmpty()
+                && chatRequest.messages().getLast() instanceof ToolExecutionResultMessage;
+        if (tools != null && !tools.isEmpty() && !afterToolResult
+                && random.nextDouble() < properties.getToolCallProbability()) {
+            ToolSpecification tool = tools.get(random.nextInt(tools.size()));
+            toolCall = ToolExecutionRequest.builder().id("mock_call_" + Long.toHexString(random.nextLong()))
+                    .name(tool.name()).arguments("{}").build();
+        }
+
+        List<String> tokens = new ArrayList<>();
+        if (toolCall == null) {
+            double gaussian = random.nextDouble() * 2 - 1 + random.nextDouble() * 2 - 1 + random.nextDouble() * 2 - 1;
+            int length = (int) Math.round(properties.getResponseTokensMean() + gaussian * properties.getResponseTokensStdDev());
+            length = Math.min(properties.getMaxResponseTokens(), Math.max(properties.getMinResponseTokens(), length));
+            for (int i = 0; i < length; i++) {
+                tokens.add(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            }
+        }
+
+        int errorAt = -1;
+        boolean rateLimit = false;
+        if (random.nextDouble() < properties.getErrorRate()) {
+            boolean beforeFirstToken = tokens.isEmpty() || random.nextDouble() < properties.getErrorBeforeFirstTokenRatio();
+            errorAt = beforeFirstToken ? 0 : 1 + random.nextInt(tokens.size());
+            rateLimit = random.nextDouble() < properties.getRateLimitErrorRatio();
+        }
+
+        int inputTokens = (int) Math.ceil(promptText.length() / CHARS_PER_TOKEN) + 1;
+        return new MockResponsePlan(modelName, firstToken, interval, tokens, toolCall, inputTokens, errorAt,
+                rateLimit);
+    }
+
+    RuntimeException injectedError() {
+        return rateLimitError ? new RateLimitException("mock provider: injected rate limit (429)")
+                : new InternalServerException("mock provider: injected server error (500)");
+    }
+
+    ChatResponse toResponse() {
+        AiMessage aiMessage = toolCall != null ? AiMessage.from(List.of(toolCall)) : AiMessage.from(String.join("", tokens));
+        int outputTokens = toolCall != null ? 16 : tokens.size();
+        return ChatResponse.builder().aiMessage(aiMessage).modelName(modelName)
+                .tokenUsage(new TokenUsage(inputTokens, outputTokens))
+                .finishReason(toolCall != null ? FinishReason.TOOL_EXECUTION : FinishReason.STOP).build();
+    }
+
+    private static String promptText(List<ChatMessage> messages) {
+        StringBuilder builder = new StringBuilder();
+        for (ChatMessage message : messages) {
+            if (message instanceof SystemMessage systemMessage) {
+                builder.append(systemMessage.text());
+            } else if (message instanceof UserMessage userMessage && userMessage.hasSingleText()) {
+                builder.append(userMessage.singleText());
+            } else if (message instanceof AiMessage aiMessage && aiMessage.text() != null) {
+                builder.append(aiMessage.text());
+            } else if (message instanceof ToolExecutionResultMessage resultMessage) {
+                builder.append(resultMessage.text());
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package org.joker.agent.mock;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.joker.agent.config.MockProviderProperties;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟流式模型，按配置的首token时间与输出速度推送token
+ */
+public class MockStreamingChatModel implements StreamingChatModel {
+
+    private final String modelName;
+    private final MockProviderProperties properties;
+    private final ScheduledExecutorService scheduler;
+
+    MockStreamingChatModel(String modelName, MockProviderProperties properties, ScheduledExecutorService scheduler) {
+        this.modelName = modelName;
+        this.properties = properties;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        MockResponsePlan plan = MockResponsePlan.create(chatRequest, modelName, properties);
+        scheduler.schedule(() -> emit(plan, handler, 0), plan.firstTokenMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 推送第index个token，并按输出速度调度下一个
+     */
+    private void emit(MockResponsePlan plan, StreamingChatResponseHandler handler, int index) {
+        try {
+            if (index == plan.errorAtToken) {
+                handler.onError(plan.injectedError());
+                return;
+            }
+            if (index >= plan.tokens.size()) {
+                handler.onCompleteResponse(plan.toResponse());
+                return;
+            }
+            if (plan.tokenIntervalNanos <= 0) {
+                // 不限速时一次性推送剩余输出
+                for (int i = index; i < plan.tokens.size(); i++) {
+                    if (i == plan.errorAtToken) {
+                        handler.onError(plan.injectedError());
+                        return;
+                    }
+                    handler.onPartialResponse(plan.tokens.get(i));
+                }
+                handler.onCompleteResponse(plan.toResponse());
+                return;
+            }
+            handler.onPartialResponse(plan.tokens.get(index));
+            scheduler.schedule(() -> emit(plan, handler, index + 1), plan.tokenIntervalNanos, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            handler.onError(e);
+        }
+    }
+}
@@ -45,4 +45,9 @@ public class AgentEntity {
      */
     private Boolean multiModal;
 
+    /**
+     * 配置版本号，工具相关配置变更时递增，用于失效按Agent缓存的工具目录
+     */
+    private long version;
+
 }
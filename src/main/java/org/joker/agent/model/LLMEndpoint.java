@@ -0,0 +1,27 @@
+package org.joker.agent.model;
+
+import lombok.Data;
+import org.joker.agent.enums.ProviderProtocol;
+
+/**
+ * 与主端点等价的备用模型端点，未配置的字段沿用主端点的值
+ */
+@Data
+public class LLMEndpoint {
+    /**
+     * 模型apiKey
+     */
+    private String apiKey;
+    /**
+     * 模型调用url
+     */
+    private String baseUrl;
+    /**
+     * 模型部署名称
+     */
+    private String modelEndpoint;
+    /**
+     * 模型调用协议
+     */
+    private ProviderProtocol protocol;
+}
@@ -4,6 +4,9 @@ import lombok.Data;
 import org.joker.agent.enums.ProviderProtocol;
 import org.joker.agent.enums.TokenOverflowStrategyEnum;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 public class LLMModelConfig {
     /**
@@ -27,6 +30,11 @@ public class LLMModelConfig {
      */
     private ProviderProtocol protocol;
 
+    /**
+     * 按优先顺序排列的等价备用端点，用于对冲请求与故障转移
+     */
+    private List<LLMEndpoint> endpoints = new ArrayList<>();
+
     /**
      * 温度参数，范围0-2，值越大创造性越强，越小则越保守
      */
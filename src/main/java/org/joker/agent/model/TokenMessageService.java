@@ -3,6 +3,7 @@ package org.joker.agent.model;
 import org.joker.agent.dto.TokenOverflowConfig;
 import org.joker.agent.dto.TokenProcessResult;
 import org.joker.agent.factory.TokenOverflowStrategyFactory;
+import org.joker.agent.token.TokenLedger;
 import org.joker.agent.token.TokenOverflowStrategy;
 import org.springframework.stereotype.Service;
 
@@ -31,6 +32,25 @@ public class TokenMessageService {
         return strategy.process(messages, config);
     }
 
+    /** 基于会话Token账本判断是否需要处理，不构造消息列表
+     *
+     * @param ledger 会话Token账本
+     * @param config 处理配置
+     * @return 是否需要处理 */
+    public boolean needsProcessing(TokenLedger ledger, TokenOverflowConfig config) {
+        return strategyFactory.createStrategy(config).needsProcessing(ledger);
+    }
+
+    /** 基于会话Token账本处理活跃消息
+     *
+     * @param ledger 会话Token账本
+     * @param config 处理配置
+     * @return 处理结果 */
+    public TokenProcessResult processMessages(TokenLedger ledger, TokenOverflowConfig config) {
+        TokenOverflowStrategy strategy = strategyFactory.createStrategy(config);
+        return strategy.process(ledger, config);
+    }
+
     /** 计算消息列表的总Token数
      *
      * @param messages 消息列表
@@ -0,0 +1,96 @@
+package org.joker.agent.monitor;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.ExecutionProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程钉住诊断
+ * <p>
+ * 订阅JFR的 jdk.VirtualThreadPinned 事件，记录在synchronized块或本地方法中阻塞而钉住载体线程的调用栈
+ */
+@Component
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * 日志中最多输出的栈帧数
+     */
+    private static final int MAX_STACK_FRAMES = 12;
+
+    private final ExecutionProperties properties;
+    private final LongAdder pinnedCount = new LongAdder();
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(ExecutionProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isPinningDiagnostics()) {
+            return;
+        }
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(properties.getPinnedThreshold()))
+                    .withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+            recordingStream.startAsync();
+            log.info("虚拟线程钉住诊断已开启，阈值={}ms", properties.getPinnedThreshold());
+        } catch (Exception e) {
+            log.warn("虚拟线程钉住诊断开启失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * 已记录的钉住次数
+     */
+    public long getPinnedCount() {
+        return pinnedCount.sum();
+    }
+
+    public boolean isEnabled() {
+        return recordingStream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.increment();
+        String threadName = event.getThread() != null ? event.getThread().getJavaName() : "未知";
+        log.warn("虚拟线程被钉住 {}ms: thread={}\n{}", event.getDuration().toMillis(), threadName,
+                formatStackTrace(event.getStackTrace()));
+    }
+
+    private String formatStackTrace(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(无调用栈)";
+        }
+        StringBuilder sb = new StringBuilder();
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (int i = 0; i < frames.size() && i < MAX_STACK_FRAMES; i++) {
+            RecordedFrame frame = frames.get(i);
+            sb.append("\tat ").append(frame.getMethod().getType().getName()).append('.')
+                    .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package org.joker.agent.monitor.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * 后台任务执行事件（记忆抽取、标题生成、工具执行等执行器上的任务）
+ */
+@Name("org.joker.agent.BackgroundJob")
+@Label("Background Job")
+@Category({"Agent", "Executor"})
+@Description("执行器上单个任务的执行区间")
+@StackTrace(false)
+@Enabled(false)
+public class BackgroundJobEvent extends Event {
+
+    @Label("Executor")
+    String executor;
+
+    @Label("Queue Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueNanos;
+
+    @Label("Success")
+    boolean success;
+
+    /**
+     * 包装任务：提交时记录时间，执行期间记录事件，事件未开启时只有一次判断
+     */
+    public static Runnable wrap(String executor, Runnable task) {
+        long submitNanos = System.nanoTime();
+        return () -> {
+            BackgroundJobEvent event = new BackgroundJobEvent();
+            if (!event.isEnabled()) {
+                task.run();
+                return;
+            }
+            event.queueNanos = System.nanoTime() - submitNanos;
+            event.begin();
+            boolean success = false;
+            try {
+                task.run();
+                success = true;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.executor = executor;
+                    event.success = success;
+                    event.commit();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package org.joker.agent.monitor.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * 对话执行阶段事件
+ */
+@Name("org.joker.agent.ChatPhase")
+@Label("Chat Phase")
+@Category({"Agent", "Chat"})
+@Description("对话某一执行阶段（ExecutionPhase）的执行区间")
+@StackTrace(false)
+@Enabled(false)
+public class ChatPhaseEvent extends Event {
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Model")
+    String model;
+
+    @Label("Phase")
+    String phase;
+}
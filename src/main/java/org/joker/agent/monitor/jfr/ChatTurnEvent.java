@@ -0,0 +1,39 @@
+package org.joker.agent.monitor.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * 对话轮次事件，持续时间为一轮对话从开始执行到结束（成功或失败）
+ * <p>
+ * 本包下的事件默认关闭，通过 src/main/resources/jfr/chat-pipeline.jfc 开启，例如：
+ * -XX:StartFlightRecording:settings=default,settings=chat-pipeline.jfc,maxage=6h
+ */
+@Name("org.joker.agent.ChatTurn")
+@Label("Chat Turn")
+@Category({"Agent", "Chat"})
+@Description("一轮对话的执行区间")
+@StackTrace(false)
+@Enabled(false)
+public class ChatTurnEvent extends Event {
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Model")
+    String model;
+
+    @Label("Token Strategy")
+    String strategy;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Error Phase")
+    String errorPhase;
+
+    @Label("Input Tokens")
+    long inputTokens;
+
+    @Label("Output Tokens")
+    long outputTokens;
+}
@@ -0,0 +1,21 @@
+package org.joker.agent.monitor.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * 模型首token事件，持续时间为模型流开始到收到首个片段
+ */
+@Name("org.joker.agent.ModelFirstToken")
+@Label("Model First Token")
+@Category({"Agent", "Chat"})
+@Description("模型流式调用的首token等待区间")
+@StackTrace(false)
+@Enabled(false)
+public class ModelFirstTokenEvent extends Event {
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Model")
+    String model;
+}
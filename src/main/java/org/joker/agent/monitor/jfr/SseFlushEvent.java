@@ -0,0 +1,38 @@
+package org.joker.agent.monitor.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * SSE帧写出事件，持续时间为单帧写入并刷出到连接的耗时
+ */
+@Name("org.joker.agent.SseFlush")
+@Label("SSE Flush")
+@Category({"Agent", "Transport"})
+@Description("单个SSE帧的写出区间")
+@StackTrace(false)
+@Enabled(false)
+public class SseFlushEvent extends Event {
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Frame Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Success")
+    boolean success;
+
+    /**
+     * 结束计时，满足阈值时填充字段并提交
+     */
+    public void end(String sessionId, long bytes, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.sessionId = sessionId;
+            this.bytes = bytes;
+            this.success = success;
+            commit();
+        }
+    }
+}
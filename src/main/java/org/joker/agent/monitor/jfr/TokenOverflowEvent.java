@@ -0,0 +1,51 @@
+package org.joker.agent.monitor.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Token超限处理事件（摘要策略包含同步的模型调用）
+ */
+@Name("org.joker.agent.TokenOverflow")
+@Label("Token Overflow")
+@Category({"Agent", "Chat"})
+@Description("历史消息的Token超限处理区间")
+@StackTrace(false)
+@Enabled(false)
+public class TokenOverflowEvent extends Event {
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Model")
+    String model;
+
+    @Label("Strategy")
+    String strategy;
+
+    @Label("Processed")
+    boolean processed;
+
+    @Label("Input Messages")
+    int inputMessages;
+
+    @Label("Retained Messages")
+    int retainedMessages;
+
+    @Label("Retained Tokens")
+    long retainedTokens;
+
+    /**
+     * 填充字段并提交，调用方在 {@link #shouldCommit()} 为true时调用
+     */
+    public void commit(String sessionId, String model, String strategy, boolean processed, int inputMessages,
+                       int retainedMessages, long retainedTokens) {
+        this.sessionId = sessionId;
+        this.model = model;
+        this.strategy = strategy;
+        this.processed = processed;
+        this.inputMessages = inputMessages;
+        this.retainedMessages = retainedMessages;
+        this.retainedTokens = retainedTokens;
+        commit();
+    }
+}
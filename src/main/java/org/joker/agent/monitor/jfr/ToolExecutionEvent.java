@@ -0,0 +1,47 @@
+package org.joker.agent.monitor.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * 工具执行事件
+ */
+@Name("org.joker.agent.ToolExecution")
+@Label("Tool Execution")
+@Category({"Agent", "Tool"})
+@Description("单次工具执行区间")
+@StackTrace(false)
+@Enabled(false)
+public class ToolExecutionEvent extends Event {
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Tool")
+    String toolName;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Argument Length")
+    @Description("工具参数字符数")
+    long argumentChars;
+
+    @Label("Result Length")
+    @Description("工具结果字符数")
+    long resultChars;
+
+    /**
+     * 结束计时，满足阈值时填充字段并提交
+     */
+    public void end(String sessionId, String toolName, boolean success, String arguments, String result) {
+        end();
+        if (shouldCommit()) {
+            this.sessionId = sessionId;
+            this.toolName = toolName;
+            this.success = success;
+            this.argumentChars = arguments != null ? arguments.length() : 0;
+            this.resultChars = result != null ? result.length() : 0;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.joker.agent.monitor.jfr;
+
+import org.joker.agent.context.ChatContext;
+import org.joker.agent.enums.ExecutionPhase;
+import org.joker.agent.model.LLMModelConfig;
+
+/**
+ * 单轮对话的JFR事件记录器
+ * <p>
+ * 事件在轮次开始时按开关一次性创建，未开启的事件不保留实例，逐token路径只做一次判空
+ */
+public final class TurnEvents {
+
+    /**
+     * 未接入JFR时使用的空记录器
+     */
+    public static final TurnEvents NOOP = new TurnEvents(null, null, null);
+
+    private static final ExecutionPhase[] PHASES = ExecutionPhase.values();
+
+    private final String sessionId;
+    private final String model;
+    private final String strategy;
+    private final ChatTurnEvent turnEvent;
+    private final ChatPhaseEvent[] phaseEvents = new ChatPhaseEvent[PHASES.length];
+
+    private volatile ModelFirstTokenEvent firstTokenEvent;
+    private volatile ExecutionPhase errorPhase;
+    private long inputTokens;
+    private long outputTokens;
+
+    private TurnEvents(String sessionId, String model, String strategy) {
+        this.sessionId = sessionId;
+        this.model = model;
+        this.strategy = strategy;
+        ChatTurnEvent event = sessionId == null ? null : new ChatTurnEvent();
+        if (event != null && event.isEnabled()) {
+            event.begin();
+            this.turnEvent = event;
+        } else {
+            this.turnEvent = null;
+        }
+    }
+
+    /**
+     * 开始记录一轮对话
+     */
+    public static TurnEvents begin(ChatContext chatContext) {
+        LLMModelConfig modelConfig = chatContext.getLlmModelConfig();
+        String model = modelConfig != null ? modelConfig.getModelEndpoint() : null;
+        String strategy = modelConfig != null && modelConfig.getStrategyType() != null
+                ? modelConfig.getStrategyType().name() : null;
+        return new TurnEvents(chatContext.getSessionId(), model, strategy);
+    }
+
+    /**
+     * 阶段开始
+     */
+    public void phaseStarted(ExecutionPhase phase) {
+        if (sessionId == null) {
+            return;
+        }
+        ChatPhaseEvent event = new ChatPhaseEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            phaseEvents[phase.ordinal()] = event;
+        }
+    }
+
+    /**
+     * 阶段结束，未开始或未开启的阶段忽略
+     */
+    public void phaseCompleted(ExecutionPhase phase) {
+        ChatPhaseEvent event = sessionId == null ? null : phaseEvents[phase.ordinal()];
+        if (event == null) {
+            return;
+        }
+        phaseEvents[phase.ordinal()] = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.sessionId = sessionId;
+            event.model = model;
+            event.phase = phase.name();
+            event.commit();
+        }
+    }
+
+    /**
+     * 模型流开始，作为首token事件的起点
+     */
+    public void onModelCallStart() {
+        if (sessionId == null) {
+            return;
+        }
+        ModelFirstTokenEvent event = new ModelFirstTokenEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            firstTokenEvent = event;
+        }
+    }
+
+    /**
+     * 收到流式片段（逐token调用），仅首个片段提交事件
+     */
+    public void onToken() {
+        ModelFirstTokenEvent event = firstTokenEvent;
+        if (event == null) {
+            return;
+        }
+        firstTokenEvent = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.sessionId = sessionId;
+            event.model = model;
+            event.commit();
+        }
+    }
+
+    /**
+     * 模型调用完成，记录输入/输出token数
+     */
+    public void onModelCallCompleted(Integer inputTokens, Integer outputTokens) {
+        this.inputTokens = inputTokens != null ? inputTokens : 0;
+        this.outputTokens = outputTokens != null ? outputTokens : 0;
+    }
+
+    /**
+     * 记录阶段错误，本轮以失败结束
+     */
+    public void onError(ExecutionPhase phase) {
+        if (errorPhase == null) {
+            errorPhase = phase;
+        }
+    }
+
+    /**
+     * 本轮结束（成功或失败），提交轮次事件
+     */
+    public void finish() {
+        if (turnEvent == null) {
+            return;
+        }
+        turnEvent.end();
+        if (turnEvent.shouldCommit()) {
+            ExecutionPhase phase = errorPhase;
+            turnEvent.sessionId = sessionId;
+            turnEvent.model = model;
+            turnEvent.strategy = strategy;
+            turnEvent.success = phase == null;
+            turnEvent.errorPhase = phase != null ? phase.name() : null;
+            turnEvent.inputTokens = inputTokens;
+            turnEvent.outputTokens = outputTokens;
+            turnEvent.commit();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.joker.agent.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.CircuitBreakerProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个模型端点的熔断器
+ * <p>
+ * 关闭状态下按最近N次调用的失败率与慢调用比例判断是否熔断；打开状态下直接拒绝；
+ * 打开持续一段时间后进入半开状态，放行少量探测请求，全部成功则关闭，任一失败则重新打开
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final CircuitBreakerProperties properties;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+
+    /**
+     * 最近调用结果的环形窗口
+     */
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int windowIndex;
+    private int windowCount;
+
+    private int probesIssued;
+    private int probesSucceeded;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    CircuitBreaker(String name, CircuitBreakerProperties properties) {
+        this.name = name;
+        this.properties = properties;
+        int windowSize = Math.max(1, properties.getWindowSize());
+        this.failures = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 申请调用，熔断打开或半开探测名额已满时返回false
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN
+                    && System.nanoTime() - openedAtNanos >= TimeUnit.MILLISECONDS.toNanos(properties.getOpenDuration())) {
+                transitionTo(State.HALF_OPEN);
+            }
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    if (probesIssued < properties.getHalfOpenProbes()) {
+                        probesIssued++;
+                        return true;
+                    }
+                    rejected.increment();
+                    return false;
+                default:
+                    rejected.increment();
+                    return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用成功
+     *
+     * @param slow 是否为慢调用
+     */
+    public void onSuccess(boolean slow) {
+        record(false, slow);
+    }
+
+    /**
+     * 调用失败
+     */
+    public void onFailure() {
+        record(true, false);
+    }
+
+    /**
+     * 调用结果与端点健康无关（如请求参数错误、本地限流），仅归还半开探测名额
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && probesIssued > 0) {
+                probesIssued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 熔断打开且尚未到半开时间，此时调用必然被拒绝；只查询，不占用探测名额
+     */
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return state == State.OPEN
+                    && System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(properties.getOpenDuration());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            snapshot.put("state", state.name());
+            snapshot.put("windowCalls", windowCount);
+            snapshot.put("failureRate", rate(failures));
+            snapshot.put("slowCallRate", rate(slowCalls));
+        } finally {
+            lock.unlock();
+        }
+        snapshot.put("rejected", rejected.sum());
+        snapshot.put("opened", opened.sum());
+        return snapshot;
+    }
+
+    private void record(boolean failure, boolean slow) {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                if (failure || slow) {
+                    transitionTo(State.OPEN);
+                } else if (++probesSucceeded >= properties.getHalfOpenProbes()) {
+                    transitionTo(State.CLOSED);
+                }
+                return;
+            }
+            if (state == State.OPEN) {
+                // 熔断前已放行的调用，结果不再计入
+                return;
+            }
+            failures[windowIndex] = failure;
+            slowCalls[windowIndex] = slow;
+            windowIndex = (windowIndex + 1) % failures.length;
+            windowCount = Math.min(windowCount + 1, failures.length);
+            if (windowCount >= properties.getMinimumCalls()
+                    && (rate(failures) >= properties.getFailureRateThreshold()
+                    || rate(slowCalls) >= properties.getSlowCallRateThreshold())) {
+                transitionTo(State.OPEN);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double rate(boolean[] outcomes) {
+        if (windowCount == 0) {
+            return 0;
+        }
+        int hits = 0;
+        for (int i = 0; i < windowCount; i++) {
+            if (outcomes[i]) {
+                hits++;
+            }
+        }
+        return (double) hits / windowCount;
+    }
+
+    private void transitionTo(State newState) {
+        if (state == newState) {
+            return;
+        }
+        log.warn("模型端点熔断状态变更: endpoint={}, {} -> {}", name, state, newState);
+        state = newState;
+        probesIssued = 0;
+        probesSucceeded = 0;
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+            opened.increment();
+        } else if (newState == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.joker.agent.resilience;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.joker.agent.exception.CircuitOpenException;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 受熔断保护的非流式模型，熔断打开时快速失败
+ * <p>
+ * 直接包装上游模型、位于调用限制之内，延迟不含等待API Key预算与端点许可的时间
+ */
+public class CircuitBreakerChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final CircuitBreaker breaker;
+    private final CircuitBreakerRegistry registry;
+
+    public CircuitBreakerChatModel(ChatModel delegate, CircuitBreaker breaker, CircuitBreakerRegistry registry) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.registry = registry;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        if (!breaker.tryAcquire()) {
+            throw new CircuitOpenException(breaker.getName());
+        }
+        long startNanos = System.nanoTime();
+        try {
+            ChatResponse chatResponse = delegate.chat(chatRequest);
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            breaker.onSuccess(latency > registry.getProperties().getSlowCallThreshold());
+            return chatResponse;
+        } catch (RuntimeException e) {
+            if (ProviderFailures.isProviderFailure(e)) {
+                breaker.onFailure();
+            } else {
+                breaker.onIgnored();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
@@ -0,0 +1,120 @@
+package org.joker.agent.resilience;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import org.joker.agent.config.CircuitBreakerProperties;
+import org.joker.agent.enums.ProviderProtocol;
+import org.joker.agent.model.LLMEndpoint;
+import org.joker.agent.model.ProviderConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 模型端点熔断器注册表，以 (协议, baseUrl, 模型) 区分端点，对话流、摘要、标题与记忆抽取共享同一熔断状态
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+    private final CircuitBreakerProperties properties;
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final LongAdder fallbackCalls = new LongAdder();
+
+    public CircuitBreakerRegistry(CircuitBreakerProperties properties) {
+        this.properties = properties;
+    }
+
+    public CircuitBreakerProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * 为流式模型套上熔断保护，应直接包装上游模型（位于调用限制之内）
+     */
+    public StreamingChatModel protect(StreamingChatModel model, ProviderProtocol protocol,
+                                      ProviderConfig providerConfig) {
+        if (model == null || !properties.isEnabled()) {
+            return model;
+        }
+        return new CircuitBreakerStreamingChatModel(model, getBreaker(protocol, providerConfig), this);
+    }
+
+    /**
+     * 为非流式模型套上熔断保护，应直接包装上游模型（位于调用限制之内）
+     */
+    public ChatModel protect(ChatModel model, ProviderProtocol protocol, ProviderConfig providerConfig) {
+        if (model == null || !properties.isEnabled()) {
+            return model;
+        }
+        return new CircuitBreakerChatModel(model, getBreaker(protocol, providerConfig), this);
+    }
+
+    /**
+     * 端点熔断时改用备用模型，包装在调用限制之外
+     *
+     * @param fallback 备用模型，为null时不包装
+     */
+    public StreamingChatModel withFallback(StreamingChatModel model, ProviderProtocol protocol,
+                                           ProviderConfig providerConfig, Supplier<StreamingChatModel> fallback) {
+        if (model == null || fallback == null || !properties.isEnabled()) {
+            return model;
+        }
+        return new FallbackStreamingChatModel(model, getBreaker(protocol, providerConfig), this, fallback);
+    }
+
+    /**
+     * 端点熔断时改用备用模型，包装在调用限制之外
+     *
+     * @param fallback 备用模型，为null时不包装
+     */
+    public ChatModel withFallback(ChatModel model, ProviderProtocol protocol, ProviderConfig providerConfig,
+                                  Supplier<ChatModel> fallback) {
+        if (model == null || fallback == null || !properties.isEnabled()) {
+            return model;
+        }
+        return new FallbackChatModel(model, getBreaker(protocol, providerConfig), this, fallback);
+    }
+
+    /**
+     * 获取备用模型的端点配置，未配置或与当前端点相同时返回null
+     */
+    public ProviderConfig fallbackConfig(ProviderConfig current) {
+        LLMEndpoint fallback = properties.getFallback();
+        if (fallback == null || fallback.getBaseUrl() == null) {
+            return null;
+        }
+        ProviderConfig fallbackConfig = new ProviderConfig(
+                fallback.getApiKey() != null ? fallback.getApiKey() : current.getApiKey(), fallback.getBaseUrl(),
+                fallback.getModelEndpoint() != null ? fallback.getModelEndpoint() : current.getModel(),
+                fallback.getProtocol() != null ? fallback.getProtocol() : current.getProtocol());
+        boolean sameEndpoint = Objects.equals(fallbackConfig.getBaseUrl(), current.getBaseUrl())
+                && Objects.equals(fallbackConfig.getModel(), current.getModel());
+        return sameEndpoint ? null : fallbackConfig;
+    }
+
+    public CircuitBreaker getBreaker(ProviderProtocol protocol, ProviderConfig providerConfig) {
+        String key = protocol + "|" + providerConfig.getBaseUrl() + "|" + providerConfig.getModel();
+        return breakers.computeIfAbsent(key, name -> new CircuitBreaker(name, properties));
+    }
+
+    void fallbackUsed() {
+        fallbackCalls.increment();
+    }
+
+    /**
+     * 各端点熔断状态与统计
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("fallbackCalls", fallbackCalls.sum());
+        Map<String, Object> states = new LinkedHashMap<>();
+        breakers.forEach((key, breaker) -> states.put(key, breaker.snapshot()));
+        snapshot.put("breakers", states);
+        return snapshot;
+    }
+}
@@ -0,0 +1,109 @@
+package org.joker.agent.resilience;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.joker.agent.exception.CircuitOpenException;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 受熔断保护的流式模型，熔断打开时快速失败
+ * <p>
+ * 直接包装上游模型、位于调用限制之内：首token时间从真正发起请求时计时，不含等待API Key预算与端点许可的时间，
+ * 本地限流造成的排队不会被误判为端点慢调用
+ */
+public class CircuitBreakerStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    private final CircuitBreaker breaker;
+    private final CircuitBreakerRegistry registry;
+
+    public CircuitBreakerStreamingChatModel(StreamingChatModel delegate, CircuitBreaker breaker,
+                                            CircuitBreakerRegistry registry) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.registry = registry;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        if (!breaker.tryAcquire()) {
+            handler.onError(new CircuitOpenException(breaker.getName()));
+            return;
+        }
+        try {
+            delegate.chat(chatRequest, new BreakerRecordingHandler(handler));
+        } catch (RuntimeException e) {
+            recordError(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    private void recordError(Throwable error) {
+        if (ProviderFailures.isProviderFailure(error)) {
+            breaker.onFailure();
+        } else {
+            breaker.onIgnored();
+        }
+    }
+
+    /**
+     * 以首token时间判断慢调用，流结束时记录结果
+     */
+    private final class BreakerRecordingHandler implements StreamingChatResponseHandler {
+
+        private final StreamingChatResponseHandler delegate;
+        private final long startNanos = System.nanoTime();
+        private volatile long firstTokenMillis = -1;
+
+        private BreakerRecordingHandler(StreamingChatResponseHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            if (firstTokenMillis < 0) {
+                firstTokenMillis = elapsedMillis();
+            }
+            delegate.onPartialResponse(partialResponse);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            long ttft = firstTokenMillis >= 0 ? firstTokenMillis : elapsedMillis();
+            breaker.onSuccess(ttft > registry.getProperties().getSlowFirstTokenThreshold());
+            delegate.onCompleteResponse(completeResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            recordError(error);
+            delegate.onError(error);
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+    }
+}
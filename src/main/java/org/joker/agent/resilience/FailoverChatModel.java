@@ -0,0 +1,61 @@
+package org.joker.agent.resilience;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 多端点故障转移非流式模型，按顺序尝试各等价端点直到成功
+ */
+@Slf4j
+public class FailoverChatModel implements ChatModel {
+
+    private final List<ChatModel> models;
+    private final List<String> endpoints;
+    private final HedgePolicy hedgePolicy;
+
+    public FailoverChatModel(List<ChatModel> models, List<String> endpoints, HedgePolicy hedgePolicy) {
+        this.models = List.copyOf(models);
+        this.endpoints = List.copyOf(endpoints);
+        this.hedgePolicy = hedgePolicy;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        RuntimeException lastError = null;
+        for (int i = 0; i < models.size(); i++) {
+            try {
+                if (i > 0) {
+                    hedgePolicy.failover();
+                }
+                return models.get(i).chat(chatRequest);
+            } catch (RuntimeException e) {
+                log.warn("端点{}调用失败: {}", endpoints.get(i), e.getMessage());
+                lastError = e;
+            }
+        }
+        throw lastError != null ? lastError : new IllegalStateException("没有可用的模型端点");
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return models.getFirst().defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return models.getFirst().provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return models.getFirst().supportedCapabilities();
+    }
+}
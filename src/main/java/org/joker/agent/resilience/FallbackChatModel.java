@@ -0,0 +1,68 @@
+package org.joker.agent.resilience;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.joker.agent.exception.CircuitOpenException;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 熔断时改用备用模型的非流式模型，位于调用限制之外，熔断打开时不占用主端点的预算与许可
+ */
+public class FallbackChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final CircuitBreaker breaker;
+    private final CircuitBreakerRegistry registry;
+    private final Supplier<ChatModel> fallback;
+
+    public FallbackChatModel(ChatModel delegate, CircuitBreaker breaker, CircuitBreakerRegistry registry,
+                             Supplier<ChatModel> fallback) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.registry = registry;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        if (breaker.isOpen()) {
+            ChatModel fallbackModel = fallback.get();
+            if (fallbackModel != null) {
+                registry.fallbackUsed();
+                return fallbackModel.chat(chatRequest);
+            }
+        }
+        try {
+            return delegate.chat(chatRequest);
+        } catch (CircuitOpenException e) {
+            // 半开探测名额已满
+            ChatModel fallbackModel = fallback.get();
+            if (fallbackModel == null) {
+                throw e;
+            }
+            registry.fallbackUsed();
+            return fallbackModel.chat(chatRequest);
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
@@ -0,0 +1,100 @@
+package org.joker.agent.resilience;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.joker.agent.exception.CircuitOpenException;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 熔断时改用备用模型的流式模型
+ * <p>
+ * 位于调用限制之外：熔断打开时直接转到备用模型，不占用主端点的API Key预算与并发许可；
+ * 半开探测名额已满时主端点以 {@link CircuitOpenException} 快速失败（尚未输出任何内容），同样转到备用模型
+ */
+public class FallbackStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    private final CircuitBreaker breaker;
+    private final CircuitBreakerRegistry registry;
+    private final Supplier<StreamingChatModel> fallback;
+
+    public FallbackStreamingChatModel(StreamingChatModel delegate, CircuitBreaker breaker,
+                                      CircuitBreakerRegistry registry, Supplier<StreamingChatModel> fallback) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.registry = registry;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        if (breaker.isOpen() && chatFallback(chatRequest, handler)) {
+            return;
+        }
+        delegate.chat(chatRequest, new FallbackOnOpenHandler(chatRequest, handler));
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    private boolean chatFallback(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        StreamingChatModel fallbackModel = fallback.get();
+        if (fallbackModel == null) {
+            return false;
+        }
+        registry.fallbackUsed();
+        fallbackModel.chat(chatRequest, handler);
+        return true;
+    }
+
+    /**
+     * 主端点熔断拒绝时转到备用模型，其余回调原样转发
+     */
+    private final class FallbackOnOpenHandler implements StreamingChatResponseHandler {
+
+        private final ChatRequest chatRequest;
+        private final StreamingChatResponseHandler delegate;
+
+        private FallbackOnOpenHandler(ChatRequest chatRequest, StreamingChatResponseHandler delegate) {
+            this.chatRequest = chatRequest;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            delegate.onPartialResponse(partialResponse);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            delegate.onCompleteResponse(completeResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (error instanceof CircuitOpenException && chatFallback(chatRequest, delegate)) {
+                return;
+            }
+            delegate.onError(error);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.joker.agent.resilience;
+
+import org.joker.agent.config.HedgeProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对冲策略 按端点记录最近的首token时间，以其分位数作为发出对冲请求的延迟
+ */
+@Component
+public class HedgePolicy {
+
+    private final HedgeProperties properties;
+    private final ConcurrentHashMap<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    private final LongAdder hedgesIssued = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+
+    public HedgePolicy(HedgeProperties properties) {
+        this.properties = properties;
+    }
+
+    public HedgeProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * 计算端点的对冲延迟（毫秒）
+     */
+    public long hedgeDelay(String endpoint) {
+        LatencyWindow window = windows.get(endpoint);
+        long delay = window == null ? -1 : window.percentile(properties.getPercentile(), properties.getMinSamples());
+        if (delay < 0) {
+            delay = properties.getInitialDelay();
+        }
+        return Math.min(properties.getMaxDelay(), Math.max(properties.getMinDelay(), delay));
+    }
+
+    /**
+     * 记录端点的首token时间
+     */
+    public void recordFirstToken(String endpoint, long ttftMillis) {
+        windows.computeIfAbsent(endpoint, key -> new LatencyWindow(properties.getSampleWindow())).add(ttftMillis);
+    }
+
+    void hedgeIssued() {
+        hedgesIssued.increment();
+    }
+
+    void hedgeWon() {
+        hedgesWon.increment();
+    }
+
+    void failover() {
+        failovers.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("hedgesIssued", hedgesIssued.sum());
+        snapshot.put("hedgesWon", hedgesWon.sum());
+        snapshot.put("failovers", failovers.sum());
+        Map<String, Object> delays = new LinkedHashMap<>();
+        windows.keySet().forEach(endpoint -> delays.put(endpoint, hedgeDelay(endpoint)));
+        snapshot.put("hedgeDelayMillis", delays);
+        return snapshot;
+    }
+
+    /**
+     * 固定大小的采样环，写入无锁，读取时复制后排序
+     */
+    private static final class LatencyWindow {
+
+        private final AtomicLongArray samples;
+        private final AtomicLong count = new AtomicLong();
+
+        private LatencyWindow(int size) {
+            this.samples = new AtomicLongArray(Math.max(1, size));
+        }
+
+        private void add(long value) {
+            long index = count.getAndIncrement();
+            samples.set((int) (index % samples.length()), value);
+        }
+
+        private long percentile(double percentile, int minSamples) {
+            int size = (int) Math.min(count.get(), samples.length());
+            if (size == 0 || size < minSamples) {
+                return -1;
+            }
+            long[] copy = new long[size];
+            for (int i = 0; i < size; i++) {
+                copy[i] = samples.get(i);
+            }
+            Arrays.sort(copy);
+            int rank = (int) Math.ceil(percentile * size) - 1;
+            return copy[Math.min(size - 1, Math.max(0, rank))];
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.joker.agent.resilience;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.exception.CircuitOpenException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 多端点对冲流式模型
+ * <p>
+ * 先请求首个端点，若在首token时间分位数内仍无输出，则向下一个端点发出对冲请求，哪个流先产出token就采用哪个，
+ * 另一个流被摘除（其后续输出全部丢弃）；首token前的端点故障（过载、连接失败、熔断拒绝）转移到下一个端点，
+ * 请求参数错误等其他错误换端点也不会成功，直接报告给调用方
+ */
+@Slf4j
+public class HedgingStreamingChatModel implements StreamingChatModel {
+
+    private final List<StreamingChatModel> models;
+    private final List<String> endpoints;
+    private final HedgePolicy hedgePolicy;
+
+    /**
+     * @param models    按优先顺序排列的等价端点模型
+     * @param endpoints 与models一一对应的端点标识
+     */
+    public HedgingStreamingChatModel(List<StreamingChatModel> models, List<String> endpoints, HedgePolicy hedgePolicy) {
+        this.models = List.copyOf(models);
+        this.endpoints = List.copyOf(endpoints);
+        this.hedgePolicy = hedgePolicy;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        new HedgedCall(chatRequest, handler).start();
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return models.getFirst().defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return models.getFirst().provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return models.getFirst().supportedCapabilities();
+    }
+
+    /**
+     * 单次调用的对冲状态
+     */
+    private final class HedgedCall {
+
+        private final ChatRequest chatRequest;
+        private final StreamingChatResponseHandler handler;
+        private final long startNanos = System.nanoTime();
+
+        /**
+         * 下一个待请求的端点下标
+         */
+        private final AtomicInteger nextEndpoint = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger hedges = new AtomicInteger();
+        private final AtomicReference<Attempt> winner = new AtomicReference<>();
+        private final AtomicBoolean failed = new AtomicBoolean(false);
+        private final AtomicReference<Throwable> lastError = new AtomicReference<>();
+
+        private HedgedCall(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            this.chatRequest = chatRequest;
+            this.handler = handler;
+        }
+
+        private void start() {
+            launch();
+        }
+
+        /**
+         * 向下一个端点发起请求，没有可用端点时返回false
+         */
+        private boolean launch() {
+            // 先计入进行中再占用端点，保证并发的失败判断不会看到短暂的0
+            inFlight.incrementAndGet();
+            int index = nextEndpoint.getAndIncrement();
+            if (index >= models.size()) {
+                release();
+                return false;
+            }
+            Attempt attempt = new Attempt(index);
+            scheduleHedge(index);
+            try {
+                models.get(index).chat(chatRequest, attempt);
+            } catch (RuntimeException e) {
+                attempt.onError(e);
+            }
+            return true;
+        }
+
+        private void scheduleHedge(int index) {
+            if (!hedgePolicy.getProperties().isEnabled() || index + 1 >= models.size()) {
+                return;
+            }
+            long delay = hedgePolicy.hedgeDelay(endpoints.get(index));
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+                // 仍无首token且未超出对冲次数时发出对冲请求
+                if (winner.get() != null || failed.get() || nextEndpoint.get() != index + 1) {
+                    return;
+                }
+                if (hedges.incrementAndGet() > hedgePolicy.getProperties().getMaxHedges()) {
+                    return;
+                }
+                hedgePolicy.hedgeIssued();
+                log.info("端点{}在{}ms内无首token，发出对冲请求: {}", endpoints.get(index), delay,
+                        endpoints.get(index + 1));
+                launch();
+            });
+        }
+
+        /**
+         * 一个请求结束，全部失败且无胜者时向调用方报告最后一个错误
+         */
+        private void release() {
+            if (inFlight.decrementAndGet() == 0 && winner.get() == null && failed.compareAndSet(false, true)) {
+                Throwable error = lastError.get();
+                log.error("所有端点均失败，耗时{}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                handler.onError(error != null ? error : new IllegalStateException("没有可用的模型端点"));
+            }
+        }
+
+        /**
+         * 尝试成为胜出的流，已有胜者时返回是否为自身
+         */
+        private boolean claim(Attempt attempt) {
+            attempt.recordFirstOutput();
+            if (winner.compareAndSet(null, attempt)) {
+                if (attempt.index > 0 && inFlight.get() > 1) {
+                    hedgePolicy.hedgeWon();
+                }
+                return true;
+            }
+            return winner.get() == attempt;
+        }
+
+        /**
+         * 单个端点上的请求
+         */
+        private final class Attempt implements StreamingChatResponseHandler {
+
+            private final int index;
+            private final long attemptStartNanos = System.nanoTime();
+            private final AtomicBoolean firstOutput = new AtomicBoolean(false);
+
+            private Attempt(int index) {
+                this.index = index;
+            }
+
+            /**
+             * 记录本端点的首token时间，落败的流同样记录：只采样胜者会让对冲延迟的分位数偏向快的一侧，
+             * 慢端点的长尾永远进不了统计
+             */
+            private void recordFirstOutput() {
+                if (firstOutput.compareAndSet(false, true)) {
+                    long ttftMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attemptStartNanos);
+                    hedgePolicy.recordFirstToken(endpoints.get(index), ttftMillis);
+                }
+            }
+
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                if (claim(this)) {
+                    handler.onPartialResponse(partialResponse);
+                }
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                // 仅含工具调用的响应没有部分输出，以完整响应作为首个产出
+                if (claim(this)) {
+                    handler.onCompleteResponse(completeResponse);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                Attempt current = winner.get();
+                if (current == this) {
+                    handler.onError(error);
+                    return;
+                }
+                if (current != null) {
+                    // 落败的流在产出前结束，以结束时已耗费的时间作为其首token时间的下限
+                    recordFirstOutput();
+                }
+                if (current == null && !isFailoverable(error)) {
+                    // 非端点故障，占用胜者位置摘除其他流后直接报告
+                    if (winner.compareAndSet(null, this)) {
+                        handler.onError(error);
+                        release();
+                        return;
+                    }
+                    current = winner.get();
+                    recordFirstOutput();
+                }
+                if (current == null) {
+                    // 首token前端点故障，转移到下一个端点
+                    log.warn("端点{}首token前失败: {}", endpoints.get(index), error.getMessage());
+                    lastError.set(error);
+                    if (launch()) {
+                        hedgePolicy.failover();
+                    }
+                }
+                // 已被摘除的流直接忽略
+                release();
+            }
+        }
+    }
+
+    /**
+     * 端点故障或熔断拒绝时才值得换端点
+     */
+    private static boolean isFailoverable(Throwable error) {
+        return error instanceof CircuitOpenException || ProviderFailures.isProviderFailure(error);
+    }
+}
@@ -0,0 +1,58 @@
+package org.joker.agent.resilience;
+
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.exception.InternalServerException;
+import dev.langchain4j.exception.RateLimitException;
+import org.joker.agent.exception.BusinessException;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 模型调用异常分类
+ */
+public final class ProviderFailures {
+
+    private ProviderFailures() {
+    }
+
+    /**
+     * 是否为上游过载（限流、服务端错误或超时）
+     */
+    public static boolean isOverload(Throwable throwable) {
+        Throwable current = throwable;
+        while (current != null) {
+            if (current instanceof RateLimitException || current instanceof InternalServerException
+                    || current instanceof TimeoutException || current instanceof HttpTimeoutException) {
+                return true;
+            }
+            if (current instanceof HttpException httpException) {
+                int status = httpException.statusCode();
+                return status == 429 || status >= 500;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 是否为端点故障（过载或连接失败），本地限流/业务拒绝与请求参数错误不计入
+     */
+    public static boolean isProviderFailure(Throwable throwable) {
+        if (throwable instanceof BusinessException) {
+            return false;
+        }
+        if (isOverload(throwable)) {
+            return true;
+        }
+        Throwable current = throwable;
+        while (current != null) {
+            if (current instanceof IOException) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+}
@@ -1,13 +1,39 @@
 package org.joker.agent.service;
 
+import org.joker.agent.exception.BusinessException;
+import org.joker.agent.model.AgentEntity;
 import org.joker.agent.repository.AgentRepository;
+import org.joker.agent.tool.BuiltInToolRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.function.Consumer;
+
 @Service
 public class AgentService {
 
     @Autowired
     private AgentRepository agentRepository;
+    @Autowired
+    private BuiltInToolRegistry builtInToolRegistry;
+
+    /**
+     * 更新Agent的工具相关配置（工具列表、知识库、预设参数等），递增版本号并失效已缓存的工具目录
+     * <p>
+     * 目前Agent只在创建会话时写入，修改Agent工具配置的入口都应经过此方法，不要直接更新仓库
+     *
+     * @param agentId Agent ID
+     * @param update  配置变更
+     */
+    public void updateToolConfig(String agentId, Consumer<AgentEntity> update) {
+        int updated = agentRepository.updateById(agentId, agent -> {
+            update.accept(agent);
+            agent.setVersion(agent.getVersion() + 1);
+        });
+        if (updated == 0) {
+            throw new BusinessException("Agent不存在: " + agentId);
+        }
+        builtInToolRegistry.invalidate(agentId);
+    }
 
 }
@@ -1,30 +1,49 @@
 package org.joker.agent.service;
 
 import cn.hutool.core.bean.BeanUtil;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.admission.AdmissionControl;
+import org.joker.agent.admission.AdmissionPermit;
 import org.apache.commons.lang3.StringUtils;
 import org.joker.agent.context.ChatContext;
 import org.joker.agent.dto.ChatRequest;
 import org.joker.agent.dto.NewSessionDTO;
 import org.joker.agent.dto.TokenOverflowConfig;
 import org.joker.agent.dto.TokenProcessResult;
+import org.joker.agent.enums.ExecutionPhase;
 import org.joker.agent.enums.MessageType;
 import org.joker.agent.enums.Role;
 import org.joker.agent.enums.TokenOverflowStrategyEnum;
 import org.joker.agent.factory.MessageHandlerFactory;
 import org.joker.agent.factory.MessageTransportFactory;
+import org.joker.agent.limit.ProviderLimiterRegistry;
 import org.joker.agent.message.AbstractMessageHandler;
 import org.joker.agent.message.MessageTransport;
+import org.joker.agent.metrics.ChatMetrics;
+import org.joker.agent.metrics.TurnMetrics;
 import org.joker.agent.model.*;
+import org.joker.agent.monitor.jfr.TokenOverflowEvent;
+import org.joker.agent.monitor.jfr.TurnEvents;
 import org.joker.agent.repository.AgentRepository;
 import org.joker.agent.repository.MessageRepository;
 import org.joker.agent.repository.SessionRepository;
+import org.joker.agent.token.TokenLedger;
+import org.joker.agent.token.TokenLedgerRegistry;
+import org.joker.agent.tracing.ChatTracing;
+import org.joker.agent.tracing.TurnTrace;
+import org.joker.agent.transport.SseStreamChannel;
+import org.joker.agent.transport.SseStreamRendezvous;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class AiChatService {
 
@@ -42,27 +61,129 @@ public class AiChatService {
     private ChatSessionManager chatSessionManager;
     @Autowired
     private TokenMessageService tokenMessageService;
+    @Autowired
+    private TokenLedgerRegistry tokenLedgerRegistry;
+    @Autowired
+    private SessionActorRegistry sessionActorRegistry;
+    @Autowired
+    private SseStreamRendezvous streamRendezvous;
+    @Autowired
+    private AdmissionControl admissionControl;
+    @Autowired
+    private ProviderLimiterRegistry providerLimiterRegistry;
+    @Autowired
+    private ChatMetrics chatMetrics;
+    @Autowired
+    private ChatTracing chatTracing;
 
     public void chat(ChatRequest chatRequest) {
         // 获取聊天上下文
         ChatContext chatContext = createChatContext(chatRequest);
 
-        // 初始化上下文
-        setupContextAndHistory(chatContext, chatRequest);
+        // 本轮必然发送的内容加预留输出已超出上下文窗口时同步返回413，不再排队执行
+        LLMModelConfig modelConfig = chatContext.getLlmModelConfig();
+        if (modelConfig != null) {
+            providerLimiterRegistry.checkContextWindow(modelConfig.getModelEndpoint(), modelConfig.getMaxTokens(),
+                    chatContext.getAgent().getSystemPrompt(), chatRequest.getMessage());
+        }
+
+        // 准入控制的入口检查，明显过载时在此快速拒绝；许可在轮次开始执行时才申请
+        admissionControl.checkAdmissible(AdmissionControl.providerKey(chatContext.getLlmModelConfig()),
+                chatRequest.getPriority());
+
+        // 受理时即为本轮预留通道：上一轮仍在输出时，本轮的订阅方接入自己的通道，而不是接管上一轮的通道
+        SseStreamChannel channel = streamRendezvous.reserve(chatRequest.getSessionId());
+        try {
+            // 同一会话的轮次在会话执行体中串行执行，历史消息在轮到本轮时才读取
+            sessionActorRegistry.submit(chatRequest.getSessionId(),
+                    () -> executeTurn(chatContext, chatRequest, channel));
+        } catch (RuntimeException e) {
+            // 已接入预留通道的订阅方收到拒绝原因后结束
+            transportFactory.<SseStreamChannel>getTransport(MessageTransportFactory.TRANSPORT_TYPE_SSE)
+                    .handleError(channel, e);
+            throw e;
+        }
+    }
 
+    /**
+     * 执行一轮对话
+     *
+     * @param reserved 受理时为本轮预留的通道
+     * @return 本轮模型流结束时完成的Future
+     */
+    private CompletableFuture<Void> executeTurn(ChatContext chatContext, ChatRequest chatRequest,
+                                                SseStreamChannel reserved) {
         // 获取输方式（协议扩展点）
-        MessageTransport<SseEmitter> transport = transportFactory
+        MessageTransport<SseStreamChannel> transport = transportFactory
                 .getTransport(MessageTransportFactory.TRANSPORT_TYPE_SSE);
 
-        // 根据请求类型获取适合的消息处理器
-        AbstractMessageHandler handler = messageHandlerFactory.getHandler(chatRequest);
+        // 准入许可在轮到执行时才申请，会话内排队的轮次不占用进行中名额；执行体运行在虚拟线程上，排队等待许可不占用平台线程
+        AdmissionPermit permit;
+        try {
+            permit = admissionControl.acquire(
+                    AdmissionControl.providerKey(chatContext.getLlmModelConfig()), chatRequest.getPriority());
+        } catch (RuntimeException e) {
+            log.warn("对话轮次未获准入: sessionId={}, error={}", chatContext.getSessionId(), e.getMessage());
+            // 请求已异步受理，通过本轮的通道告知订阅方，错误帧携带重试间隔
+            transport.handleError(streamRendezvous.open(reserved, 0), e);
+            chatContext.getTurnCompletion().complete(null);
+            return chatContext.getTurnCompletion();
+        }
+        chatContext.getTurnCompletion().whenComplete((result, throwable) -> permit.release());
+
+        // 轮到执行时在预留的通道上绑定生产方，首帧超时从此刻开始计算
+        SseStreamChannel connection = streamRendezvous.open(reserved, AbstractMessageHandler.CONNECTION_TIMEOUT);
+
+        // 本轮指标从轮到执行时开始计时，会话内排队时间不计入
+        TurnMetrics turnMetrics = chatMetrics.startTurn(chatContext);
+        chatContext.setTurnMetrics(turnMetrics);
+        TurnTrace turnTrace = chatTracing.startTurn(chatContext);
+        chatContext.setTurnTrace(turnTrace);
+        TurnEvents turnEvents = TurnEvents.begin(chatContext);
+        chatContext.setTurnEvents(turnEvents);
+        chatContext.getTurnCompletion().whenComplete((result, throwable) -> {
+            turnMetrics.finish();
+            turnTrace.finish();
+            turnEvents.finish();
+        });
+
+        long phaseStart = System.nanoTime();
+        turnEvents.phaseStarted(ExecutionPhase.ENVIRONMENT_PREPARATION);
+        Span setupSpan = turnTrace.startSpan("chat.context_setup");
+        try (Scope ignored = setupSpan.makeCurrent()) {
+            // 初始化上下文（含Token溢出处理）
+            setupContextAndHistory(chatContext, chatRequest);
+            turnMetrics.recordPhase(ExecutionPhase.ENVIRONMENT_PREPARATION, System.nanoTime() - phaseStart);
+            turnEvents.phaseCompleted(ExecutionPhase.ENVIRONMENT_PREPARATION);
+        } catch (RuntimeException e) {
+            log.error("初始化对话上下文失败: sessionId={}, error={}", chatContext.getSessionId(), e.getMessage(), e);
+            turnMetrics.onError(ExecutionPhase.ENVIRONMENT_PREPARATION);
+            setupSpan.setStatus(StatusCode.ERROR);
+            turnTrace.onError(ExecutionPhase.ENVIRONMENT_PREPARATION, e);
+            turnEvents.onError(ExecutionPhase.ENVIRONMENT_PREPARATION);
+            // 请求已异步受理，通过会话通道告知订阅方
+            transport.handleError(connection, e);
+            chatContext.getTurnCompletion().complete(null);
+            return chatContext.getTurnCompletion();
+        } finally {
+            setupSpan.end();
+        }
 
-        // 处理对话
-        SseEmitter emitter = handler.chat(chatContext, transport);
+        try {
+            // 根据请求类型获取适合的消息处理器
+            AbstractMessageHandler handler = messageHandlerFactory.getHandler(chatRequest);
 
-        // 注册会话到会话管理器（支持中断功能）
-        chatSessionManager.registerSession(chatRequest.getSessionId(), emitter);
+            // 处理对话，订阅方未到达前输出会缓冲在会话通道中
+            SseStreamChannel channel = handler.chat(chatContext, transport, connection);
+
+            // 注册会话到会话管理器（支持中断功能）
+            chatSessionManager.registerSession(chatRequest.getSessionId(), channel);
+        } catch (RuntimeException e) {
+            chatContext.getTurnCompletion().complete(null);
+            throw e;
+        }
 
+        return chatContext.getTurnCompletion();
     }
 
     /**
@@ -73,12 +194,12 @@ public class AiChatService {
     private void setupContextAndHistory(ChatContext environment, ChatRequest chatRequest) {
         String sessionId = environment.getSessionId();
 
-        // 获取活跃消息(包括摘要)
-        List<MessageEntity> messageEntities = messageRepository.selectList(messageEntity -> StringUtils.equals(sessionId, messageEntity.getSessionId()) && Boolean.TRUE.equals(messageEntity.getIsActive()));
-        messageEntities.sort(Comparator.comparing(MessageEntity::getCreatedAt));
+        // 获取活跃消息(包括摘要)，会话Token账本按创建时间升序维护
+        TokenLedger ledger = tokenLedgerRegistry.ledger(sessionId);
+        List<MessageEntity> messageEntities = ledger.activeMessages();
 
         // 应用Token溢出策略, 上下文历史消息以token策略返回的为准
-        messageEntities = applyTokenOverflowStrategy(environment, messageEntities);
+        messageEntities = applyTokenOverflowStrategy(environment, ledger, messageEntities);
 
         // 特殊处理当前对话的文件，因为在后续的对话中无法发送文件
         List<String> fileUrls = chatRequest.getFileUrls();
@@ -94,30 +215,21 @@ public class AiChatService {
 
     /**
      * 应用Token溢出策略，返回处理后的历史消息
+     * <p>
+     * 是否需要处理先按会话Token账本判断，不需要时直接返回活跃消息，不再逐条转换与累加Token
      *
      * @param environment     对话环境
+     * @param ledger          会话Token账本
      * @param messageEntities 消息实体列表
      */
-    private List<MessageEntity> applyTokenOverflowStrategy(ChatContext environment, List<MessageEntity> messageEntities) {
+    private List<MessageEntity> applyTokenOverflowStrategy(ChatContext environment, TokenLedger ledger,
+                                                           List<MessageEntity> messageEntities) {
 
         LLMModelConfig llmModelConfig = environment.getLlmModelConfig();
 
         // 处理Token溢出
         TokenOverflowStrategyEnum strategyType = llmModelConfig.getStrategyType();
 
-        // Token处理
-        List<TokenMessage> tokenMessages = messageEntities.stream().map(message -> {
-            TokenMessage tokenMessage = new TokenMessage();
-            tokenMessage.setId(message.getId());
-            tokenMessage.setRole(message.getRole().name());
-            tokenMessage.setContent(message.getContent());
-            tokenMessage.setTokenCount(message.getTokenCount());
-            tokenMessage.setBodyTokenCount(message.getBodyTokenCount());
-            tokenMessage.setCreatedAt(message.getCreatedAt());
-            return tokenMessage;
-        }).collect(Collectors.toList());
-        ;
-
         // 构造Token配置
         TokenOverflowConfig tokenOverflowConfig = new TokenOverflowConfig();
         tokenOverflowConfig.setStrategyType(strategyType);
@@ -129,26 +241,61 @@ public class AiChatService {
         tokenOverflowConfig.setProviderConfig(new ProviderConfig(llmModelConfig.getApiKey(),
                 llmModelConfig.getBaseUrl(), llmModelConfig.getModelId(), llmModelConfig.getProtocol()));
 
-        // 处理Token
-        TokenProcessResult result = tokenMessageService.processMessages(tokenMessages, tokenOverflowConfig);
-        List<TokenMessage> retainedMessages = new ArrayList<>(tokenMessages);
-        TokenMessage newSummaryMessage = null;
-        // 更新上下文
-        if (result.isProcessed()) {
-            retainedMessages = result.getRetainedMessages();
-            // 统一对 活跃消息进行时间升序排序
-            List<String> retainedMessageIds = retainedMessages.stream()
-                    .sorted(Comparator.comparing(TokenMessage::getCreatedAt)).map(TokenMessage::getId)
-                    .toList();
-            if (strategyType == TokenOverflowStrategyEnum.SUMMARIZE
-                    && !retainedMessages.isEmpty() && retainedMessages.getFirst().getRole().equals(Role.SUMMARY.name())) {
-                newSummaryMessage = retainedMessages.getFirst();
+        // 处理Token（摘要策略会同步调用模型）
+        TokenProcessResult result = null;
+        Span overflowSpan = environment.getTurnTrace().startSpan("chat.token_overflow");
+        TokenOverflowEvent overflowEvent = new TokenOverflowEvent();
+        overflowEvent.begin();
+        try {
+            if (tokenMessageService.needsProcessing(ledger, tokenOverflowConfig)) {
+                result = tokenMessageService.processMessages(ledger, tokenOverflowConfig);
             }
+            overflowSpan.setAttribute("chat.token_strategy", String.valueOf(strategyType));
+            overflowSpan.setAttribute("chat.history_messages", messageEntities.size());
+            overflowSpan.setAttribute("chat.overflow_processed", result != null && result.isProcessed());
+        } catch (RuntimeException e) {
+            overflowSpan.recordException(e);
+            overflowSpan.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            overflowSpan.end();
+        }
+        overflowEvent.end();
+
+        if (result == null || !result.isProcessed()) {
+            if (overflowEvent.shouldCommit()) {
+                long retainedTokens = messageEntities.stream()
+                        .mapToLong(message -> message.getTokenCount() != null ? message.getTokenCount() : 0).sum();
+                overflowEvent.commit(environment.getSessionId(), llmModelConfig.getModelEndpoint(),
+                        String.valueOf(strategyType), false, messageEntities.size(), messageEntities.size(),
+                        retainedTokens);
+            }
+            return messageEntities.stream().filter(message -> !message.isSummaryMessage())
+                    .collect(Collectors.toList());
+        }
 
-            messageRepository.update(messageEntity -> retainedMessageIds.contains(messageEntity.getId()), messageEntity -> messageEntity.setIsActive(false));
+        List<TokenMessage> retainedMessages = result.getRetainedMessages();
+        if (overflowEvent.shouldCommit()) {
+            long retainedTokens = retainedMessages.stream()
+                    .mapToLong(message -> message.getTokenCount() != null ? message.getTokenCount() : 0).sum();
+            overflowEvent.commit(environment.getSessionId(), llmModelConfig.getModelEndpoint(),
+                    String.valueOf(strategyType), true, messageEntities.size(), retainedMessages.size(),
+                    retainedTokens);
+        }
+        TokenMessage newSummaryMessage = null;
+        if (strategyType == TokenOverflowStrategyEnum.SUMMARIZE
+                && !retainedMessages.isEmpty() && retainedMessages.getFirst().getRole().equals(Role.SUMMARY.name())) {
+            newSummaryMessage = retainedMessages.getFirst();
         }
         Set<String> retainedMessageIdSet = retainedMessages.stream().map(TokenMessage::getId)
                 .collect(Collectors.toSet());
+
+        // 停用移出上下文的消息（被截断或已摘要的消息、旧摘要），保留的消息继续参与后续轮次
+        List<String> droppedMessageIds = messageEntities.stream().map(MessageEntity::getId)
+                .filter(id -> !retainedMessageIdSet.contains(id)).toList();
+        droppedMessageIds.forEach(id -> messageRepository.updateById(id, messageEntity -> messageEntity.setIsActive(false)));
+        tokenLedgerRegistry.onDeactivated(environment.getSessionId(), droppedMessageIds);
+
         // 从messageEntity中过滤出保留的消息，防止Entity字段丢失
         List<MessageEntity> newHistoryMessages = messageEntities.stream()
                 .filter(message -> retainedMessageIdSet.contains(message.getId()) && !message.isSummaryMessage())
@@ -188,9 +335,7 @@ public class AiChatService {
     }
 
     public List<MessageEntity> queryHistoryMessages(String sessionId) {
-        List<MessageEntity> messageEntities = messageRepository.selectList(messageEntity -> StringUtils.equals(sessionId, messageEntity.getSessionId()) && Boolean.TRUE.equals(messageEntity.getIsActive()));
-        messageEntities.sort(Comparator.comparing(MessageEntity::getCreatedAt));
-        return messageEntities;
+        return tokenLedgerRegistry.ledger(sessionId).activeMessages();
     }
 
     private ChatContext createChatContext(ChatRequest chatRequest) {
@@ -203,6 +348,8 @@ public class AiChatService {
         chatContext.setUserMessage(chatRequest.getMessage());
         chatContext.setAgent(agent);
         chatContext.setLlmModelConfig(agent.getAgentModelConfig());
+        // Agent工具列表中与已配置MCP服务器同名的项即本轮使用的MCP服务器
+        chatContext.setMcpServerNames(agent.getToolIds());
         return chatContext;
     }
 
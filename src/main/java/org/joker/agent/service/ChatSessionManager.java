@@ -2,7 +2,7 @@ package org.joker.agent.service;
 
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
-import org.joker.agent.utils.SseEmitterUtils;
+import org.joker.agent.transport.SseStreamChannel;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
@@ -19,13 +19,13 @@ public class ChatSessionManager {
     @Data
     public static class SessionInfo {
         private final String sessionId;
-        private final SseEmitter emitter;
+        private final SseStreamChannel channel;
         private final AtomicBoolean interrupted;
         private final long startTime;
 
-        public SessionInfo(String sessionId, SseEmitter emitter) {
+        public SessionInfo(String sessionId, SseStreamChannel channel) {
             this.sessionId = sessionId;
-            this.emitter = emitter;
+            this.channel = channel;
             this.interrupted = new AtomicBoolean(false);
             this.startTime = System.currentTimeMillis();
         }
@@ -44,26 +44,18 @@ public class ChatSessionManager {
 
     /** 注册一个新的对话会话
      * @param sessionId 会话ID
-     * @param emitter SSE发送器 */
-    public void registerSession(String sessionId, SseEmitter emitter) {
-        SessionInfo sessionInfo = new SessionInfo(sessionId, emitter);
+     * @param channel 会话流通道 */
+    public void registerSession(String sessionId, SseStreamChannel channel) {
+        SessionInfo sessionInfo = new SessionInfo(sessionId, channel);
         activeSessions.put(sessionId, sessionInfo);
         log.info("注册对话会话: sessionId={}", sessionId);
 
-        // 设置SSE完成和超时回调，自动清理会话
-        emitter.onCompletion(() -> {
-            removeSession(sessionId);
-            log.info("对话会话完成: sessionId={}", sessionId);
-        });
-
-        emitter.onTimeout(() -> {
-            removeSession(sessionId);
-            log.warn("对话会话超时: sessionId={}", sessionId);
-        });
-
-        emitter.onError((throwable) -> {
-            removeSession(sessionId);
-            log.error("对话会话错误: sessionId={}, error={}", sessionId, throwable.getMessage());
+        // 通道关闭（完成、超时、出错）时自动清理会话，仅移除本次注册的会话信息
+        channel.onClose(() -> {
+            if (activeSessions.remove(sessionId, sessionInfo)) {
+                long duration = System.currentTimeMillis() - sessionInfo.getStartTime();
+                log.info("对话会话结束: sessionId={}, 持续时间={}ms", sessionId, duration);
+            }
         });
     }
 
@@ -95,14 +87,13 @@ public class ChatSessionManager {
         activeSessions.remove(sessionId);
 
         try {
-            SseEmitter emitter = sessionInfo.getEmitter();
+            SseStreamChannel channel = sessionInfo.getChannel();
 
             // 直接尝试发送中断消息，如果连接已关闭会自动处理
-            SseEmitterUtils.safeSend(emitter,
-                    SseEmitter.event().name("interrupt").data("{\"interrupted\": true, \"message\": \"对话已被中断\"}"));
+            channel.send(SseEmitter.event().name("interrupt").data("{\"interrupted\": true, \"message\": \"对话已被中断\"}"));
 
-            // 安全完成SSE连接
-            SseEmitterUtils.safeComplete(emitter);
+            // 完成会话通道
+            channel.complete();
             log.info("对话会话已中断: sessionId={}", sessionId);
             return true;
 
@@ -111,7 +102,7 @@ public class ChatSessionManager {
             return true;
         }
     }
-    /** 获取活跃会话Map（仅供Controller使用） */
+    /** 获取活跃会话Map */
     public ConcurrentHashMap<String, SessionInfo> getActiveSessions() {
         return activeSessions;
     }
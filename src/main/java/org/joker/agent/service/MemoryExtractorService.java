@@ -7,12 +7,16 @@ import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
 import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.ExecutorConfig;
 import org.joker.agent.dto.CandidateMemory;
 import org.joker.agent.enums.MemoryType;
 import org.joker.agent.factory.LLMProviderService;
 import org.joker.agent.model.LLMModelConfig;
 import org.joker.agent.model.ProviderConfig;
+import org.joker.agent.tracing.ChatTracing;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -107,20 +111,29 @@ public class MemoryExtractorService {
     private MemoryService memoryService;
     @Autowired
     private ModelConfigResolver modelConfigResolver;
+    @Autowired
+    private ChatTracing chatTracing;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
      * 异步抽取并持久化（供外部直接调用，无需处理返回值）
      */
-    @Async("memoryTaskExecutor")
+    @Async(ExecutorConfig.MEMORY_TASK_EXECUTOR)
     public void extractAndPersistAsync(String sessionId, String userMessage) {
+        // 父上下文由执行器从提交方传播，span归属发起本次抽取的对话链路
+        Span span = chatTracing.startBackgroundSpan("chat.memory_extraction", sessionId);
         try {
             List<CandidateMemory> candidates = extract(sessionId, userMessage);
+            span.setAttribute("chat.memory_candidates", candidates == null ? 0 : candidates.size());
             if (candidates != null && !candidates.isEmpty()) {
                 memoryService.saveMemories(sessionId, candidates);
             }
         } catch (Exception e) {
             log.warn("async extract&persist failed, sessionId={}, err={}", sessionId, e.getMessage());
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+        } finally {
+            span.end();
         }
     }
 
@@ -56,7 +56,8 @@ public class MemoryService {
         // 构造嵌入模型
         var embeddingCfg = modelConfigResolver.getEmbeddingModelConfig(sessionId);
         var embeddingModel = embeddingModelFactory.createEmbeddingModel(new EmbeddingModelFactory.EmbeddingConfig(
-                embeddingCfg.getApiKey(), embeddingCfg.getBaseUrl(), embeddingCfg.getModelEndpoint()));
+                embeddingCfg.getApiKey(), embeddingCfg.getBaseUrl(), embeddingCfg.getModelEndpoint(),
+                embeddingCfg.getProtocol()));
 
         List<String> itemIds = new ArrayList<>();
         for (CandidateMemory c : candidates) {
@@ -132,7 +133,8 @@ public class MemoryService {
         // 构造嵌入模型
         var embeddingCfg = modelConfigResolver.getEmbeddingModelConfig(sessionId);
         var embeddingModel = embeddingModelFactory.createEmbeddingModel(new EmbeddingModelFactory.EmbeddingConfig(
-                embeddingCfg.getApiKey(), embeddingCfg.getBaseUrl(), embeddingCfg.getModelEndpoint()));
+                embeddingCfg.getApiKey(), embeddingCfg.getBaseUrl(), embeddingCfg.getModelEndpoint(),
+                embeddingCfg.getProtocol()));
 
         try {
             Embedding queryEmbedding = embeddingModel.embed(query).content();
@@ -188,11 +190,11 @@ public class MemoryService {
         }
     }
 
-    private static String normalizeText(String s) {
+    static String normalizeText(String s) {
         return s == null ? "" : s.replaceAll("\n+", "\n").replaceAll("\s+", " ").trim().toLowerCase();
     }
 
-    private static String sha256(String s) {
+    static String sha256(String s) {
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
             byte[] digest = md.digest(s.getBytes(StandardCharsets.UTF_8));
@@ -3,6 +3,8 @@ package org.joker.agent.service;
 import org.apache.commons.lang3.StringUtils;
 import org.joker.agent.model.MessageEntity;
 import org.joker.agent.repository.MessageRepository;
+import org.joker.agent.token.TokenCountService;
+import org.joker.agent.token.TokenLedgerRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +16,10 @@ public class MessageService {
 
     @Autowired
     private MessageRepository messageRepository;
+    @Autowired
+    private TokenLedgerRegistry tokenLedgerRegistry;
+    @Autowired
+    private TokenCountService tokenCountService;
 
     public boolean isFirstConversation(String sessionId) {
         return messageRepository
@@ -27,11 +33,32 @@ public class MessageService {
                 messageEntity.setCreatedAt(LocalDateTime.now());
             }
             messageRepository.insert(messageEntity);
+            tokenLedgerRegistry.onSaved(messageEntity);
+            countBodyTokens(messageEntity);
         });
     }
 
     public void updateMessage(MessageEntity message) {
         messageRepository.updateById(message);
+        tokenLedgerRegistry.onUpdated(message);
+    }
+
+    /**
+     * 用户、AI与摘要消息保存后在后台按本地分词器计算本体Token数，完成后更新消息与会话Token账本
+     */
+    private void countBodyTokens(MessageEntity message) {
+        String content = message.getContent();
+        if (StringUtils.isEmpty(content)
+                || !(message.isUserMessage() || message.isAIMessage() || message.isSummaryMessage())) {
+            return;
+        }
+        tokenCountService.countAsync(content).thenAccept(count -> {
+            // 计数期间同一实体被改写内容后再次保存时，以再次保存触发的计数为准
+            if (content.equals(message.getContent())) {
+                message.setBodyTokenCount(count);
+                updateMessage(message);
+            }
+        });
     }
 
 }
@@ -0,0 +1,203 @@
+package org.joker.agent.service;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.ExecutionProperties;
+import org.joker.agent.config.ExecutorConfig;
+import org.joker.agent.enums.TurnConcurrencyPolicy;
+import org.joker.agent.exception.BusinessException;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 会话执行体注册表
+ * <p>
+ * 每个会话对应一个单写者执行体，轮次进入邮箱后在虚拟线程上按序执行，上一轮的模型流结束后才开始下一轮；
+ * 不同会话之间完全并行。会话的热状态只由其执行体访问，无需加锁
+ */
+@Component
+@Slf4j
+public class SessionActorRegistry {
+
+    /**
+     * 会话繁忙错误码
+     */
+    public static final String SESSION_BUSY = "SESSION_BUSY";
+
+    /**
+     * 会话执行体无法调度（执行器拒绝）错误码
+     */
+    public static final String ACTOR_UNAVAILABLE = "SESSION_ACTOR_UNAVAILABLE";
+
+    private final ConcurrentHashMap<String, SessionActor> actors = new ConcurrentHashMap<>();
+
+    @Resource
+    private ExecutionProperties executionProperties;
+
+    @Resource(name = ExecutorConfig.SESSION_ACTOR_EXECUTOR)
+    private AsyncTaskExecutor actorExecutor;
+
+    /**
+     * 提交一个对话轮次
+     *
+     * @param sessionId 会话ID
+     * @param turn      轮次逻辑，返回的Future在本轮模型流结束时完成
+     * @throws BusinessException 会话繁忙且按策略拒绝，或执行器拒绝调度执行体时抛出
+     */
+    public void submit(String sessionId, Supplier<CompletableFuture<Void>> turn) {
+        TurnConcurrencyPolicy policy = executionProperties.getTurnPolicy();
+        int capacity = policy == TurnConcurrencyPolicy.REJECT ? 1 : executionProperties.getMailboxCapacity() + 1;
+        AtomicReference<SessionActor> accepted = new AtomicReference<>();
+
+        // 入队与空闲回收都在同一key的compute中进行，保证每个会话始终只有一个执行体；
+        // 调度执行体可能阻塞或被拒绝，放在compute之外进行，不持有映射的桶锁
+        actors.compute(sessionId, (key, actor) -> {
+            SessionActor target = actor != null ? actor : new SessionActor(key);
+            if (target.offer(turn, capacity)) {
+                accepted.set(target);
+            }
+            return target;
+        });
+
+        SessionActor actor = accepted.get();
+        if (actor == null) {
+            log.warn("会话繁忙，拒绝新的对话轮次: sessionId={}, policy={}", sessionId, policy);
+            throw new BusinessException(SESSION_BUSY, "当前会话正在处理上一轮对话，请稍后再试");
+        }
+        if (!actor.schedule()) {
+            actor.withdraw(turn);
+            removeIfIdle(actor);
+            log.warn("执行器拒绝调度会话执行体: sessionId={}", sessionId);
+            throw new BusinessException(ACTOR_UNAVAILABLE, "服务繁忙，请稍后再试");
+        }
+    }
+
+    /**
+     * 当前存活的会话执行体数量
+     */
+    public int getActiveActorCount() {
+        return actors.size();
+    }
+
+    /**
+     * 执行体空闲后从注册表移除
+     */
+    private void removeIfIdle(SessionActor actor) {
+        actors.computeIfPresent(actor.sessionId, (key, current) -> current == actor && actor.isIdle() ? null : current);
+    }
+
+    /**
+     * 单会话执行体
+     */
+    private final class SessionActor {
+
+        private final String sessionId;
+
+        /**
+         * 邮箱，多生产者单消费者
+         */
+        private final Queue<Supplier<CompletableFuture<Void>>> mailbox = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 已接收但尚未完成的轮次数（含正在执行的一轮）
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private SessionActor(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        private boolean offer(Supplier<CompletableFuture<Void>> turn, int capacity) {
+            if (pending.incrementAndGet() > capacity) {
+                pending.decrementAndGet();
+                return false;
+            }
+            mailbox.add(turn);
+            return true;
+        }
+
+        /**
+         * 未在运行时提交邮箱处理任务
+         *
+         * @return false 表示执行器拒绝了处理任务，此时运行标记保持置位，由调用方撤回轮次后复位
+         */
+        private boolean schedule() {
+            if (!running.compareAndSet(false, true)) {
+                return true;
+            }
+            try {
+                actorExecutor.execute(this::processMailbox);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 撤回未能调度的轮次并复位运行标记；运行标记置位期间没有处理任务在消费邮箱，撤回不会与执行竞争。
+         * 期间并发入队的其他轮次再尝试调度一次，仍被拒绝时留在邮箱中，由该会话下一次提交重新调度
+         */
+        private void withdraw(Supplier<CompletableFuture<Void>> turn) {
+            if (mailbox.remove(turn)) {
+                pending.decrementAndGet();
+            }
+            running.set(false);
+            if (!mailbox.isEmpty() && !schedule()) {
+                running.set(false);
+            }
+        }
+
+        private boolean isIdle() {
+            return pending.get() == 0;
+        }
+
+        private void processMailbox() {
+            while (true) {
+                Supplier<CompletableFuture<Void>> turn = mailbox.poll();
+                if (turn == null) {
+                    running.set(false);
+                    // 释放运行标记后再次检查，避免与并发入队错过
+                    if (!mailbox.isEmpty() && running.compareAndSet(false, true)) {
+                        continue;
+                    }
+                    break;
+                }
+                try {
+                    runTurn(turn);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+            removeIfIdle(this);
+        }
+
+        private void runTurn(Supplier<CompletableFuture<Void>> turn) {
+            long timeout = executionProperties.getTurnTimeout();
+            CompletableFuture<Void> completion = null;
+            try {
+                completion = turn.get();
+                if (completion != null) {
+                    // 执行体运行在虚拟线程上，阻塞等待本轮结束不会占用平台线程
+                    completion.get(timeout, TimeUnit.MILLISECONDS);
+                }
+            } catch (TimeoutException e) {
+                log.warn("对话轮次超过{}ms未结束，继续处理后续轮次: sessionId={}", timeout, sessionId);
+                // 视为本轮结束，释放其占用的资源（如准入许可）
+                completion.cancel(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("对话轮次执行失败: sessionId={}, error={}", sessionId, e.getMessage(), e);
+            }
+        }
+    }
+}
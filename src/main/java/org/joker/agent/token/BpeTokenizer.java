@@ -0,0 +1,140 @@
+package org.joker.agent.token;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 字节级BPE分词器，词表为 tiktoken 格式（每行为 base64编码的token字节与rank）
+ * <p>
+ * 文本先按预分词正则切成片段，片段的UTF-8字节整体在词表中时计为一个token，否则按rank从小到大合并相邻字节对。
+ * token字节以 ISO-8859-1 字符串表示（每个字节对应一个字符），可直接作为哈希表的键。只用于计数，不输出token ID
+ */
+public class BpeTokenizer {
+
+    private final Map<String, Integer> ranks;
+    private final Pattern pattern;
+
+    BpeTokenizer(Map<String, Integer> ranks, Pattern pattern) {
+        this.ranks = ranks;
+        this.pattern = pattern;
+    }
+
+    /**
+     * 从词表文件加载
+     *
+     * @param vocabulary 词表文件
+     * @param pattern    预分词正则
+     * @return 分词器
+     */
+    public static BpeTokenizer load(Path vocabulary, String pattern) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(vocabulary, StandardCharsets.UTF_8)) {
+            return load(reader, pattern);
+        }
+    }
+
+    /**
+     * 从词表输入流加载（如类路径下的词表），调用方负责关闭输入流
+     *
+     * @param vocabulary 词表输入流
+     * @param pattern    预分词正则
+     * @return 分词器
+     */
+    public static BpeTokenizer load(InputStream vocabulary, String pattern) throws IOException {
+        return load(new BufferedReader(new InputStreamReader(vocabulary, StandardCharsets.UTF_8)), pattern);
+    }
+
+    private static BpeTokenizer load(BufferedReader reader, String pattern) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>(200_000);
+        Base64.Decoder decoder = Base64.getDecoder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int separator = line.indexOf(' ');
+            if (separator <= 0) {
+                continue;
+            }
+            byte[] token = decoder.decode(line.substring(0, separator));
+            ranks.put(new String(token, StandardCharsets.ISO_8859_1),
+                    Integer.parseInt(line.substring(separator + 1).trim()));
+        }
+        return new BpeTokenizer(ranks, Pattern.compile(pattern, Pattern.UNICODE_CHARACTER_CLASS));
+    }
+
+    /**
+     * 词表大小
+     */
+    public int vocabularySize() {
+        return ranks.size();
+    }
+
+    /**
+     * 计算文本的token数
+     */
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            String piece = new String(matcher.group().getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+            count += ranks.containsKey(piece) ? 1 : mergedLength(piece);
+        }
+        return count;
+    }
+
+    /**
+     * 按rank合并相邻字节对直到无法合并，返回剩余的token数
+     */
+    private int mergedLength(String piece) {
+        int parts = piece.length();
+        if (parts <= 1) {
+            return parts;
+        }
+        // bounds[i] 为第 i 个token的起始位置，pairRanks[i] 为第 i 与 i+1 个token合并后的rank
+        int[] bounds = new int[parts + 1];
+        for (int i = 0; i <= parts; i++) {
+            bounds[i] = i;
+        }
+        int[] pairRanks = new int[parts - 1];
+        for (int i = 0; i < parts - 1; i++) {
+            pairRanks[i] = rank(piece, bounds[i], bounds[i + 2]);
+        }
+        while (parts > 1) {
+            int min = 0;
+            for (int i = 1; i < parts - 1; i++) {
+                if (pairRanks[i] < pairRanks[min]) {
+                    min = i;
+                }
+            }
+            if (pairRanks[min] == Integer.MAX_VALUE) {
+                break;
+            }
+            // 合并第 min 与 min+1 个token
+            System.arraycopy(bounds, min + 2, bounds, min + 1, parts - min - 1);
+            System.arraycopy(pairRanks, min + 1, pairRanks, min, parts - min - 2);
+            parts--;
+            if (min < parts - 1) {
+                pairRanks[min] = rank(piece, bounds[min], bounds[min + 2]);
+            }
+            if (min > 0) {
+                pairRanks[min - 1] = rank(piece, bounds[min - 1], bounds[min + 1]);
+            }
+        }
+        return parts;
+    }
+
+    private int rank(String piece, int start, int end) {
+        Integer rank = ranks.get(piece.substring(start, end));
+        return rank != null ? rank : Integer.MAX_VALUE;
+    }
+}
@@ -74,6 +74,17 @@ public class NoTokenOverflowStrategy implements TokenOverflowStrategy {
         return false;
     }
 
+    /**
+     * 无策略实现始终返回false，表示不需要处理
+     *
+     * @param ledger 会话Token账本
+     * @return 始终返回false
+     */
+    @Override
+    public boolean needsProcessing(TokenLedger ledger) {
+        return false;
+    }
+
     /**
      * 计算消息列表的总token数
      */
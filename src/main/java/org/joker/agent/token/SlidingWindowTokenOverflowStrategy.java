@@ -89,6 +89,31 @@ public class SlidingWindowTokenOverflowStrategy implements TokenOverflowStrategy
         return result;
     }
 
+    /**
+     * 基于会话Token账本应用滑动窗口：截断位置按前缀和二分查找，只为保留的消息构造Token视图
+     *
+     * @param ledger 会话Token账本
+     * @return 处理后保留的消息列表
+     */
+    @Override
+    public TokenProcessResult process(TokenLedger ledger, TokenOverflowConfig tokenOverflowConfig) {
+        if (!needsProcessing(ledger)) {
+            return process(ledger.toTokenMessages(), tokenOverflowConfig);
+        }
+
+        // 计算可用token数（考虑预留空间）
+        int maxTokens = getMaxTokens();
+        int availableTokens = maxTokens - (int) (maxTokens * getReserveRatio());
+        List<TokenMessage> retainedMessages = ledger.newestWithin(availableTokens);
+
+        TokenProcessResult result = new TokenProcessResult();
+        result.setRetainedMessages(retainedMessages);
+        result.setStrategyName(getName());
+        result.setProcessed(true);
+        result.setTotalTokens(calculateTotalTokens(retainedMessages));
+        return result;
+    }
+
     /**
      * 获取策略名称
      *
@@ -116,6 +141,17 @@ public class SlidingWindowTokenOverflowStrategy implements TokenOverflowStrategy
         return totalTokens > maxTokens;
     }
 
+    /**
+     * 按账本中的本体Token累计判断是否超出窗口
+     *
+     * @param ledger 会话Token账本
+     * @return 是否需要处理
+     */
+    @Override
+    public boolean needsProcessing(TokenLedger ledger) {
+        return ledger.getTotalBodyTokens() > getMaxTokens();
+    }
+
     /**
      * 计算消息列表的总token数
      */
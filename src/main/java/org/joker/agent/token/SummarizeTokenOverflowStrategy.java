@@ -9,6 +9,7 @@ import dev.langchain4j.model.chat.response.ChatResponse;
 import org.joker.agent.context.AgentPromptTemplates;
 import org.joker.agent.dto.TokenOverflowConfig;
 import org.joker.agent.dto.TokenProcessResult;
+import org.joker.agent.enums.RequestPriority;
 import org.joker.agent.enums.Role;
 import org.joker.agent.enums.TokenOverflowStrategyEnum;
 import org.joker.agent.factory.LLMProviderService;
@@ -122,6 +123,17 @@ public class SummarizeTokenOverflowStrategy implements TokenOverflowStrategy {
         return messages.size() > config.getSummaryThreshold();
     }
 
+    /**
+     * 按账本中的活跃消息数判断是否需要摘要
+     *
+     * @param ledger 会话Token账本
+     * @return 是否需要处理
+     */
+    @Override
+    public boolean needsProcessing(TokenLedger ledger) {
+        return ledger.size() > config.getSummaryThreshold();
+    }
+
     /**
      * 获取需要摘要的消息列表（按时间排序） 这是应用层应该使用的方法，用于获取需要进行摘要处理的消息对象
      *
@@ -140,8 +152,9 @@ public class SummarizeTokenOverflowStrategy implements TokenOverflowStrategy {
         ProviderConfig providerConfig = tokenOverflowConfig.getProviderConfig();
         String summaryPrefixPrompt = "。最后请你以这段话作为生成摘要的开头返回，开头：" + AgentPromptTemplates.getSummaryPrefix();
 
-        // 使用当前服务商调用大模型
-        ChatModel chatLanguageModel = LLMProviderService.getStrand(providerConfig.getProtocol(), providerConfig);
+        // 使用当前服务商调用大模型，摘要阻塞本轮对话，按交互式优先级占用端点并发
+        ChatModel chatLanguageModel = LLMProviderService.getStrand(providerConfig.getProtocol(), providerConfig,
+                RequestPriority.INTERACTIVE);
         SystemMessage systemMessage = new SystemMessage("你是一个专业的对话摘要生成器，请严格按照以下要求工作：\n"
                 + "1. 只基于提供的对话内容生成客观摘要，不得添加任何原对话中没有的信息\n" + "2. 特别关注：用户问题、回答中的关键信息、重要事实\n" + "3. 去除所有寒暄、表情符号和情感表达\n"
                 + "4. 使用简洁的第三人称陈述句\n" + "5. 保持时间顺序和逻辑关系\n" + "6. 示例格式：[用户]问... [AI]回答...\n" + "禁止使用任何表情符号或拟人化表达"
@@ -0,0 +1,183 @@
+package org.joker.agent.token;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.joker.agent.config.ExecutorConfig;
+import org.joker.agent.config.TokenizerProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 消息Token计数服务
+ * <p>
+ * 使用本地BPE词表逐条计算消息本体的Token数，结果按内容哈希缓存（历史消息每次调用都会重新计数，命中缓存时只需计算哈希）；
+ * 未配置词表或加载失败时Token数为按字符数的估算值（required 为true时启动失败）。命中/未命中数以 chat.tokenizer.cache.requests 指标暴露
+ */
+@Slf4j
+@Component
+public class TokenCountService {
+
+    /**
+     * 未加载词表时中英文混合文本平均每token字符数，与调用限流的估算保持一致
+     */
+    private static final double CHARS_PER_TOKEN = 3.0;
+
+    private final TokenizerProperties properties;
+    private final AsyncTaskExecutor executor;
+    private final BpeTokenizer tokenizer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Integer> cache = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public TokenCountService(TokenizerProperties properties,
+                             @Qualifier(ExecutorConfig.BACKGROUND_TASK_EXECUTOR) AsyncTaskExecutor executor,
+                             MeterRegistry registry) {
+        this.properties = properties;
+        this.executor = executor;
+        this.tokenizer = loadTokenizer(properties);
+        this.hits = cacheCounter(registry, "hit");
+        this.misses = cacheCounter(registry, "miss");
+        Gauge.builder("chat.tokenizer.cache.entries", this, TokenCountService::getCacheSize)
+                .description("Token计数缓存条目数").register(registry);
+    }
+
+    /**
+     * 是否使用词表精确计数
+     */
+    public boolean isExact() {
+        return tokenizer != null;
+    }
+
+    /**
+     * 计算文本的Token数
+     */
+    public int count(String text) {
+        if (StringUtils.isEmpty(text)) {
+            return 0;
+        }
+        if (tokenizer == null) {
+            return (int) Math.ceil(text.length() / CHARS_PER_TOKEN);
+        }
+        String key = DigestUtil.sha256Hex(text);
+        Integer cached = get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        int count = tokenizer.count(text);
+        put(key, count);
+        return count;
+    }
+
+    /**
+     * 在后台线程计算文本的Token数
+     */
+    public CompletableFuture<Integer> countAsync(String text) {
+        return CompletableFuture.supplyAsync(() -> count(text), executor);
+    }
+
+    /**
+     * 模型的上下文窗口，未配置时为默认值，0为不检查
+     *
+     * @param modelId 模型ID
+     * @return 上下文窗口Token数
+     */
+    public int contextWindow(String modelId) {
+        Integer contextWindow = modelId != null ? properties.getContextWindows().get(modelId) : null;
+        return contextWindow != null ? contextWindow : properties.getDefaultContextWindow();
+    }
+
+    public int getCacheSize() {
+        lock.lock();
+        try {
+            return cache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 计数方式、词表与缓存统计
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("exact", isExact());
+        snapshot.put("vocabulary", properties.getVocabulary());
+        snapshot.put("vocabularySize", tokenizer != null ? tokenizer.vocabularySize() : 0);
+        snapshot.put("cacheEntries", getCacheSize());
+        snapshot.put("cacheHits", (long) hits.count());
+        snapshot.put("cacheMisses", (long) misses.count());
+        return snapshot;
+    }
+
+    private Integer get(String key) {
+        lock.lock();
+        try {
+            return cache.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String key, int count) {
+        lock.lock();
+        try {
+            cache.put(key, count);
+            if (cache.size() > properties.getCacheMaxEntries()) {
+                cache.pollFirstEntry();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static BpeTokenizer loadTokenizer(TokenizerProperties properties) {
+        if (StringUtils.isBlank(properties.getVocabulary())) {
+            return estimate(properties, "未配置分词词表", null);
+        }
+        try (InputStream vocabulary = ResourceUtils.getURL(properties.getVocabulary()).openStream()) {
+            BpeTokenizer tokenizer = BpeTokenizer.load(vocabulary, properties.getPattern());
+            log.info("分词词表已加载: {}，共 {} 个token", properties.getVocabulary(), tokenizer.vocabularySize());
+            return tokenizer;
+        } catch (Exception e) {
+            return estimate(properties, "加载分词词表失败: " + properties.getVocabulary(), e);
+        }
+    }
+
+    /**
+     * 无可用词表：要求精确计数时启动失败，否则按字符数估算，配置了上下文窗口检查时提示检查结果同为估算
+     */
+    private static BpeTokenizer estimate(TokenizerProperties properties, String reason, Exception cause) {
+        if (properties.isRequired()) {
+            throw new IllegalStateException(reason + "，chat.tokenizer.required=true 要求精确计数", cause);
+        }
+        if (properties.getDefaultContextWindow() > 0 || !properties.getContextWindows().isEmpty()) {
+            log.warn("{}，消息Token数与上下文窗口检查均按字符数估算，与模型实际计数可能有较大偏差: {}", reason,
+                    cause != null ? cause.getMessage() : "");
+        } else {
+            log.info("{}，消息Token数按字符数估算: {}", reason, cause != null ? cause.getMessage() : "");
+        }
+        return null;
+    }
+
+    private static Counter cacheCounter(MeterRegistry registry, String result) {
+        return Counter.builder("chat.tokenizer.cache.requests").description("Token计数缓存查询次数")
+                .tag("result", result).register(registry);
+    }
+}
@@ -0,0 +1,233 @@
+package org.joker.agent.token;
+
+import org.joker.agent.model.MessageEntity;
+import org.joker.agent.model.TokenMessage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个会话的Token账本，随消息写入增量维护
+ * <p>
+ * 按创建时间升序记录活跃消息及写入时的本体Token数，同时维护前缀和数组与累计值：
+ * 追加与末尾附近的更新为O(1)，判断是否超限为O(1)，滑动窗口的截断位置按前缀和二分查找为O(log n)。
+ * 只有插入到中间（摘要消息）和停用消息时从变化位置起重算前缀和
+ */
+public class TokenLedger {
+
+    private static final Comparator<MessageEntity> ORDER_BY_CREATED_AT = Comparator
+            .comparing(MessageEntity::getCreatedAt, Comparator.nullsLast(LocalDateTime::compareTo));
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * prefix[i] 为前 i 条消息的本体Token之和，prefix[size] 即累计值
+     */
+    private long[] prefix = new long[16];
+
+    TokenLedger(List<MessageEntity> activeMessages) {
+        List<MessageEntity> sorted = new ArrayList<>(activeMessages);
+        sorted.sort(ORDER_BY_CREATED_AT);
+        for (MessageEntity message : sorted) {
+            entries.add(new Entry(message.getId(), message, bodyTokens(message)));
+        }
+        recomputeFrom(0);
+    }
+
+    /**
+     * 活跃消息数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 活跃消息（含摘要）的本体Token累计
+     */
+    public long getTotalBodyTokens() {
+        lock.lock();
+        try {
+            return prefix[entries.size()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按创建时间升序的活跃消息
+     */
+    public List<MessageEntity> activeMessages() {
+        lock.lock();
+        try {
+            List<MessageEntity> messages = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                messages.add(entry.message());
+            }
+            return messages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 全部活跃消息的Token视图，供需要完整列表的策略（如摘要）使用
+     */
+    public List<TokenMessage> toTokenMessages() {
+        lock.lock();
+        try {
+            return toTokenMessages(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 本体Token累计不超过预算的最新一段消息（滑动窗口），截断位置二分查找，只为保留的消息构造Token视图
+     *
+     * @param budget 可用Token数
+     * @return 保留的消息，按创建时间升序
+     */
+    public List<TokenMessage> newestWithin(long budget) {
+        lock.lock();
+        try {
+            int size = entries.size();
+            long total = prefix[size];
+            // 后缀和 total - prefix[i] 随 i 单调不增，找到第一个不超过预算的位置
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (total - prefix[mid] <= budget) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return toTokenMessages(low);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录新写入的活跃消息，创建时间不早于末尾时直接追加
+     */
+    void add(MessageEntity message) {
+        Entry entry = new Entry(message.getId(), message, bodyTokens(message));
+        lock.lock();
+        try {
+            int index = entries.size();
+            while (index > 0 && ORDER_BY_CREATED_AT.compare(entries.get(index - 1).message(), message) > 0) {
+                index--;
+            }
+            entries.add(index, entry);
+            recomputeFrom(index);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 消息更新后同步本体Token数，按消息ID从末尾查找（更新的几乎总是本轮消息）
+     */
+    void update(MessageEntity message) {
+        lock.lock();
+        try {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                Entry entry = entries.get(i);
+                if (entry.id().equals(message.getId())) {
+                    if (!Boolean.TRUE.equals(message.getIsActive())) {
+                        entries.remove(i);
+                    } else {
+                        entries.set(i, new Entry(entry.id(), message, bodyTokens(message)));
+                    }
+                    recomputeFrom(i);
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除已停用的消息
+     */
+    void remove(Collection<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        Set<String> ids = new HashSet<>(messageIds);
+        lock.lock();
+        try {
+            int first = -1;
+            for (int i = 0; i < entries.size(); i++) {
+                if (ids.contains(entries.get(i).id())) {
+                    first = i;
+                    break;
+                }
+            }
+            if (first < 0) {
+                return;
+            }
+            entries.subList(first, entries.size()).removeIf(entry -> ids.contains(entry.id()));
+            recomputeFrom(first);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<TokenMessage> toTokenMessages(int from) {
+        List<TokenMessage> messages = new ArrayList<>(entries.size() - from);
+        for (int i = from; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            MessageEntity message = entry.message();
+            TokenMessage tokenMessage = new TokenMessage();
+            tokenMessage.setId(entry.id());
+            tokenMessage.setRole(message.getRole().name());
+            tokenMessage.setContent(message.getContent());
+            tokenMessage.setTokenCount(message.getTokenCount());
+            tokenMessage.setBodyTokenCount(entry.bodyTokens());
+            tokenMessage.setCreatedAt(message.getCreatedAt());
+            messages.add(tokenMessage);
+        }
+        return messages;
+    }
+
+    private void recomputeFrom(int index) {
+        int size = entries.size();
+        if (prefix.length < size + 1) {
+            prefix = Arrays.copyOf(prefix, Math.max(size + 1, prefix.length * 2));
+        }
+        for (int i = index; i < size; i++) {
+            prefix[i + 1] = prefix[i] + entries.get(i).bodyTokens();
+        }
+    }
+
+    private static int bodyTokens(MessageEntity message) {
+        return message.getBodyTokenCount() != null ? message.getBodyTokenCount() : 0;
+    }
+
+    /**
+     * 账本条目，消息ID与本体Token数按写入（或更新）时记录
+     *
+     * @param id         消息ID
+     * @param message    消息实体
+     * @param bodyTokens 本体Token数
+     */
+    private record Entry(String id, MessageEntity message, int bodyTokens) {
+    }
+}
@@ -0,0 +1,72 @@
+package org.joker.agent.token;
+
+import org.apache.commons.lang3.StringUtils;
+import org.joker.agent.model.MessageEntity;
+import org.joker.agent.repository.MessageRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 会话Token账本注册表
+ * <p>
+ * 账本在会话首次需要时从消息仓库的活跃消息构建一次，之后由消息写入（新增、更新、停用）增量维护，
+ * 每轮对话不再扫描仓库、逐条累加Token。尚未构建账本的会话忽略写入通知，构建时会读到这些消息
+ */
+@Component
+public class TokenLedgerRegistry {
+
+    private final MessageRepository messageRepository;
+    private final Map<String, TokenLedger> ledgers = new ConcurrentHashMap<>();
+
+    public TokenLedgerRegistry(MessageRepository messageRepository) {
+        this.messageRepository = messageRepository;
+    }
+
+    /**
+     * 获取会话的Token账本，不存在时从仓库构建
+     *
+     * @param sessionId 会话ID
+     * @return Token账本
+     */
+    public TokenLedger ledger(String sessionId) {
+        return ledgers.computeIfAbsent(sessionId, id -> new TokenLedger(messageRepository.selectList(
+                message -> StringUtils.equals(id, message.getSessionId())
+                        && Boolean.TRUE.equals(message.getIsActive()))));
+    }
+
+    /**
+     * 消息已写入仓库
+     */
+    public void onSaved(MessageEntity message) {
+        TokenLedger ledger = ledgers.get(message.getSessionId());
+        if (ledger != null && Boolean.TRUE.equals(message.getIsActive())) {
+            ledger.add(message);
+        }
+    }
+
+    /**
+     * 消息已更新（Token数变化或被停用）
+     */
+    public void onUpdated(MessageEntity message) {
+        TokenLedger ledger = ledgers.get(message.getSessionId());
+        if (ledger != null) {
+            ledger.update(message);
+        }
+    }
+
+    /**
+     * 消息已被停用（移出上下文）
+     *
+     * @param sessionId  会话ID
+     * @param messageIds 停用的消息ID
+     */
+    public void onDeactivated(String sessionId, Collection<String> messageIds) {
+        TokenLedger ledger = ledgers.get(sessionId);
+        if (ledger != null) {
+            ledger.remove(messageIds);
+        }
+    }
+}
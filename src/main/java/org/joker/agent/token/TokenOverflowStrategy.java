@@ -32,4 +32,22 @@ public interface TokenOverflowStrategy {
      * @return 是否需要处理
      */
     boolean needsProcessing(List<TokenMessage> messages);
+
+    /**
+     * 基于会话Token账本检查是否需要处理，账本维护了活跃消息数与本体Token累计，判断不需要遍历消息
+     *
+     * @param ledger 会话Token账本
+     * @return 是否需要处理
+     */
+    boolean needsProcessing(TokenLedger ledger);
+
+    /**
+     * 基于会话Token账本处理，默认取出全部活跃消息后按 {@link #process(List, TokenOverflowConfig)} 处理
+     *
+     * @param ledger 会话Token账本
+     * @return 处理结果
+     */
+    default TokenProcessResult process(TokenLedger ledger, TokenOverflowConfig tokenOverflowConfig) {
+        return process(ledger.toTokenMessages(), tokenOverflowConfig);
+    }
 }
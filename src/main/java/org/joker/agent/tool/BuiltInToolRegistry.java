@@ -4,6 +4,8 @@ package org.joker.agent.tool;
 import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.service.tool.ToolExecutor;
 import org.joker.agent.annotation.BuiltInTool;
+import org.joker.agent.dto.ToolCachePolicy;
+import org.joker.agent.dto.ToolDefinition;
 import org.joker.agent.model.AgentEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +16,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 内置工具注册器
@@ -25,20 +28,41 @@ public class BuiltInToolRegistry {
 
     private static final Logger logger = LoggerFactory.getLogger(BuiltInToolRegistry.class);
 
+    // 工具目录缓存上限
+    private static final int MAX_TOOL_CATALOGS = 1024;
+
     private final ApplicationContext applicationContext;
 
+    private final ToolResultCache toolResultCache;
+
+    private final ToolBulkheadRegistry bulkheadRegistry;
+
     /**
      * 所有已注册的内置工具提供者，按优先级排序
+     * <p>
+     * 不可变快照，初始化时整体替换引用，读路径无需加锁，避免synchronized在虚拟线程上钉住载体线程
      */
-    private final List<BuiltInToolProvider> toolProviders = new ArrayList<>();
+    private volatile List<BuiltInToolProvider> toolProviders = List.of();
 
     /**
      * 工具提供者的元数据缓存
      */
     private final Map<String, BuiltInToolMetadata> toolMetadataCache = new ConcurrentHashMap<>();
 
-    public BuiltInToolRegistry(ApplicationContext applicationContext) {
+    /**
+     * 按Agent缓存的工具目录
+     * <p>
+     * 目录本身不可变，记录构建时的Agent版本和工具提供者快照，两者任一变化即视为失效；
+     * 每个会话创建一个Agent，按访问顺序淘汰最久未用的目录，锁内只做查找和写入，构建在锁外进行
+     */
+    private final LinkedHashMap<String, ToolCatalog> toolCatalogs = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock toolCatalogsLock = new ReentrantLock();
+
+    public BuiltInToolRegistry(ApplicationContext applicationContext, ToolResultCache toolResultCache,
+                               ToolBulkheadRegistry bulkheadRegistry) {
         this.applicationContext = applicationContext;
+        this.toolResultCache = toolResultCache;
+        this.bulkheadRegistry = bulkheadRegistry;
     }
 
     /**
@@ -82,10 +106,13 @@ public class BuiltInToolRegistry {
         // 按优先级排序（优先级数值越小越优先）
         providers.sort(Comparator.comparingInt(BuiltInToolProvider::getPriority));
 
-        // 线程安全地更新工具提供者列表
-        synchronized (toolProviders) {
-            toolProviders.clear();
-            toolProviders.addAll(providers);
+        // 整体替换为不可变快照，已缓存的工具目录随快照变化失效
+        toolProviders = List.copyOf(providers);
+        toolCatalogsLock.lock();
+        try {
+            toolCatalogs.clear();
+        } finally {
+            toolCatalogsLock.unlock();
         }
 
         logger.info("内置工具注册器初始化完成，共注册 {} 个内置工具", toolProviders.size());
@@ -99,35 +126,124 @@ public class BuiltInToolRegistry {
     }
 
     /**
-     * 为指定Agent创建所有适用的内置工具
+     * 获取指定Agent所有适用的内置工具
+     * <p>
+     * 命中缓存时只做一次查找；Agent版本或工具提供者变化后首次调用时重新构建
      *
      * @param agent Agent实体
-     * @return 所有内置工具的合并映射
+     * @return 所有内置工具的合并映射（不可变）
      */
     public Map<ToolSpecification, ToolExecutor> createToolsForAgent(AgentEntity agent) {
-        Map<ToolSpecification, ToolExecutor> allTools = new HashMap<>();
+        if (agent == null || agent.getId() == null) {
+            return Map.of();
+        }
+        List<BuiltInToolProvider> providers = toolProviders;
+        ToolCatalog catalog = getCatalog(agent.getId());
+        if (catalog != null && catalog.version() == agent.getVersion() && catalog.providers() == providers) {
+            return catalog.tools();
+        }
+
+        // 并发未命中时可能重复构建，结果等价，后写入者覆盖
+        catalog = new ToolCatalog(agent.getVersion(), providers, buildTools(agent, providers));
+        putCatalog(agent.getId(), catalog);
+        return catalog.tools();
+    }
+
+    /**
+     * 使指定Agent的工具目录失效，Agent工具配置变更后调用
+     *
+     * @param agentId Agent ID
+     */
+    public void invalidate(String agentId) {
+        if (agentId == null) {
+            return;
+        }
+        toolCatalogsLock.lock();
+        try {
+            toolCatalogs.remove(agentId);
+        } finally {
+            toolCatalogsLock.unlock();
+        }
+    }
+
+    private ToolCatalog getCatalog(String agentId) {
+        toolCatalogsLock.lock();
+        try {
+            return toolCatalogs.get(agentId);
+        } finally {
+            toolCatalogsLock.unlock();
+        }
+    }
+
+    private void putCatalog(String agentId, ToolCatalog catalog) {
+        toolCatalogsLock.lock();
+        try {
+            toolCatalogs.put(agentId, catalog);
+            if (toolCatalogs.size() > MAX_TOOL_CATALOGS) {
+                toolCatalogs.pollFirstEntry();
+            }
+        } finally {
+            toolCatalogsLock.unlock();
+        }
+    }
+
+    /**
+     * 构建Agent的工具目录
+     */
+    private Map<ToolSpecification, ToolExecutor> buildTools(AgentEntity agent, List<BuiltInToolProvider> providers) {
+        Map<ToolSpecification, ToolExecutor> allTools = new LinkedHashMap<>();
 
-        synchronized (toolProviders) {
-            for (BuiltInToolProvider provider : toolProviders) {
-                try {
-                    if (provider.supports(agent)) {
-                        Map<ToolSpecification, ToolExecutor> providerTools = provider.createTools(agent);
+        for (BuiltInToolProvider provider : providers) {
+            try {
+                if (provider.supports(agent)) {
+                    Map<ToolSpecification, ToolExecutor> providerTools = provider.createTools(agent);
 
-                        if (providerTools != null && !providerTools.isEmpty()) {
-                            allTools.putAll(providerTools);
+                    if (providerTools != null && !providerTools.isEmpty()) {
+                        putGuardedTools(allTools, provider, agent, providerTools);
 
-                            logger.debug("为Agent {} 添加内置工具 {} 的 {} 个工具", agent.getId(), provider.getName(),
-                                    providerTools.size());
-                        }
+                        logger.debug("为Agent {} 添加内置工具 {} 的 {} 个工具", agent.getId(), provider.getName(),
+                                providerTools.size());
                     }
-                } catch (Exception e) {
-                    logger.error("为Agent {} 创建内置工具 {} 时发生异常: {}", agent.getId(), provider.getName(), e.getMessage(), e);
                 }
+            } catch (Exception e) {
+                logger.error("为Agent {} 创建内置工具 {} 时发生异常: {}", agent.getId(), provider.getName(), e.getMessage(), e);
             }
         }
 
-        logger.info("为Agent {} 创建了 {} 个内置工具", agent.getId(), allTools.size());
-        return allTools;
+        logger.info("为Agent {} (版本: {}) 构建了 {} 个内置工具", agent.getId(), agent.getVersion(), allTools.size());
+        // 无工具时返回共享的空目录，不同Agent可复用同一个Agent代理
+        return allTools.isEmpty() ? Map.of() : Collections.unmodifiableMap(allTools);
+    }
+
+    /**
+     * 加入提供者的工具：执行器套上提供者的隔离舱，声明了缓存策略的再包装结果缓存（命中时不占用隔离舱）
+     * <p>
+     * 缓存策略以工具定义上的声明优先，其次是提供者@BuiltInTool上的cacheTtl，都未声明时按配置的工具名规则
+     */
+    private void putGuardedTools(Map<ToolSpecification, ToolExecutor> allTools, BuiltInToolProvider provider,
+                                 AgentEntity agent, Map<ToolSpecification, ToolExecutor> providerTools) {
+        if (toolResultCache == null || bulkheadRegistry == null) {
+            allTools.putAll(providerTools);
+            return;
+        }
+        BuiltInTool annotation = provider.getClass().getAnnotation(BuiltInTool.class);
+        ToolCachePolicy providerPolicy = annotation != null && annotation.cacheTtl() > 0
+                ? new ToolCachePolicy(annotation.cacheTtl(), annotation.cacheScope()) : null;
+        Map<String, ToolCachePolicy> declaredPolicies = new HashMap<>();
+        List<ToolDefinition> definitions = provider.defineTools(agent);
+        if (definitions != null) {
+            for (ToolDefinition definition : definitions) {
+                if (definition.getCachePolicy() != null) {
+                    declaredPolicies.put(definition.getName(), definition.getCachePolicy());
+                }
+            }
+        }
+        providerTools.forEach((specification, executor) -> {
+            String toolName = specification.name();
+            ToolExecutor guarded = bulkheadRegistry.guard(provider.getName(), annotation, toolName, executor);
+            ToolCachePolicy policy = declaredPolicies.getOrDefault(toolName, providerPolicy);
+            allTools.put(specification, toolResultCache.cached(toolName, policy, agent.getId(), guarded));
+        });
     }
 
     /**
@@ -136,9 +252,7 @@ public class BuiltInToolRegistry {
      * @return 工具提供者列表的副本
      */
     public List<BuiltInToolProvider> getAllProviders() {
-        synchronized (toolProviders) {
-            return new ArrayList<>(toolProviders);
-        }
+        return new ArrayList<>(toolProviders);
     }
 
     /**
@@ -148,9 +262,7 @@ public class BuiltInToolRegistry {
      * @return 工具提供者，如果不存在则返回null
      */
     public BuiltInToolProvider getProviderByName(String name) {
-        synchronized (toolProviders) {
-            return toolProviders.stream().filter(provider -> name.equals(provider.getName())).findFirst().orElse(null);
-        }
+        return toolProviders.stream().filter(provider -> name.equals(provider.getName())).findFirst().orElse(null);
     }
 
     /**
@@ -168,9 +280,7 @@ public class BuiltInToolRegistry {
      * @return 工具数量
      */
     public int getToolCount() {
-        synchronized (toolProviders) {
-            return toolProviders.size();
-        }
+        return toolProviders.size();
     }
 
     /**
@@ -180,9 +290,18 @@ public class BuiltInToolRegistry {
      * @return 如果有工具支持该Agent则返回true
      */
     public boolean hasToolsForAgent(AgentEntity agent) {
-        synchronized (toolProviders) {
-            return toolProviders.stream().anyMatch(provider -> provider.supports(agent));
-        }
+        return !createToolsForAgent(agent).isEmpty();
+    }
+
+    /**
+     * Agent的工具目录
+     *
+     * @param version   构建时的Agent版本
+     * @param providers 构建时的工具提供者快照
+     * @param tools     工具规范和执行器的不可变映射
+     */
+    private record ToolCatalog(long version, List<BuiltInToolProvider> providers,
+                               Map<ToolSpecification, ToolExecutor> tools) {
     }
 
     /**
@@ -0,0 +1,277 @@
+package org.joker.agent.tool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.service.tool.ToolExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.ExecutorConfig;
+import org.joker.agent.config.ToolExecutionProperties;
+import org.joker.agent.exception.BusinessException;
+import org.joker.agent.exception.ToolRejectedException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * 工具批量执行器
+ * <p>
+ * langchain4j 在一步响应的回调线程上按顺序逐个执行工具。经 {@link #batching} 包装的模型在回调前登记本步的全部工具调用，
+ * 第一个工具执行时整批提交到工具执行器（虚拟线程）并发执行，之后各调用按原顺序取回自己的结果，
+ * 回填给模型的结果顺序不变，一步的耗时约等于最慢的工具
+ * <p>
+ * 同一轮的各步依次执行，单步的并发上限即单轮的并发上限；每个工具调用从提交起按工具超时计时（含在提供者隔离舱中的排队时间），
+ * 超时或被隔离舱拒绝的调用以结构化的错误结果返回给模型，不阻塞工具循环
+ */
+@Slf4j
+@Component
+public class ToolBatchExecutor {
+
+    /**
+     * 当前回调线程上正在执行的一步
+     */
+    private static final ThreadLocal<ToolStep> CURRENT_STEP = new ThreadLocal<>();
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String TOOL_TIMEOUT = "TOOL_TIMEOUT";
+
+    private final ToolExecutionProperties properties;
+    private final AsyncTaskExecutor toolTaskExecutor;
+    private final ToolBulkheadRegistry bulkheadRegistry;
+
+    public ToolBatchExecutor(ToolExecutionProperties properties,
+                             @Qualifier(ExecutorConfig.TOOL_TASK_EXECUTOR) AsyncTaskExecutor toolTaskExecutor,
+                             ToolBulkheadRegistry bulkheadRegistry) {
+        this.properties = properties;
+        this.toolTaskExecutor = toolTaskExecutor;
+        this.bulkheadRegistry = bulkheadRegistry;
+    }
+
+    /**
+     * 包装流式模型，一步响应包含多个工具调用时登记本步，供工具执行时整批并发
+     */
+    public StreamingChatModel batching(StreamingChatModel model) {
+        return properties.isParallel() ? new BatchingStreamingChatModel(model) : model;
+    }
+
+    /**
+     * 执行单个工具调用
+     *
+     * @param request   工具调用请求
+     * @param memoryId  记忆ID
+     * @param executors 按工具名解析执行器（本步其他工具调用也通过它解析）
+     * @return 工具结果，超时或被拒绝时为结构化的错误结果
+     */
+    public String execute(ToolExecutionRequest request, Object memoryId, Function<String, ToolExecutor> executors) {
+        ToolStep step = CURRENT_STEP.get();
+        int index = step != null ? step.indexOf(request) : -1;
+        if (index < 0) {
+            ToolExecutor executor = executors.apply(request.name());
+            if (executor == null) {
+                throw new BusinessException("未找到工具执行器: " + request.name());
+            }
+            return await(request, submit(request, memoryId, executor, null));
+        }
+        step.start(memoryId, executors);
+        return await(request, step.calls[index]);
+    }
+
+    private PendingCall submit(ToolExecutionRequest request, Object memoryId, ToolExecutor executor,
+                               Semaphore permits) {
+        long timeoutMillis = bulkheadRegistry.timeoutOf(request.name());
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Future<String> future = toolTaskExecutor.submit(() -> {
+            if (permits != null) {
+                permits.acquire();
+            }
+            try {
+                return executor.execute(request, memoryId);
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        });
+        return new PendingCall(future, deadlineNanos, timeoutMillis);
+    }
+
+    private String await(ToolExecutionRequest request, PendingCall call) {
+        try {
+            return call.future().get(Math.max(0, call.deadlineNanos() - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            call.future().cancel(true);
+            bulkheadRegistry.timedOut(request.name());
+            log.warn("工具执行超时: tool={}, timeout={}ms", request.name(), call.timeoutMillis());
+            return toolError(TOOL_TIMEOUT, request.name(),
+                    "工具执行超时（" + call.timeoutMillis() + "ms），未返回结果，可稍后重试或改用其他方式");
+        } catch (InterruptedException e) {
+            call.future().cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException("工具执行被中断: " + request.name(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ToolRejectedException) {
+                log.warn("工具调用被隔离舱拒绝: tool={}", request.name());
+                return toolError(ToolRejectedException.TOOL_REJECTED, request.name(),
+                        "工具当前繁忙，调用未执行，可稍后重试");
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BusinessException("工具执行失败: " + request.name(), e.getCause());
+        }
+    }
+
+    /**
+     * 返回给模型的结构化工具错误，如 {"error":"TOOL_TIMEOUT","tool":"search","message":"..."}
+     */
+    static String toolError(String error, String toolName, String message) {
+        return OBJECT_MAPPER.createObjectNode().put("error", error).put("tool", toolName).put("message", message)
+                .toString();
+    }
+
+    private record PendingCall(Future<String> future, long deadlineNanos, long timeoutMillis) {
+    }
+
+    /**
+     * 一步响应中的工具调用批次，只在回调线程上访问
+     */
+    private final class ToolStep {
+
+        private final List<ToolExecutionRequest> requests;
+        private PendingCall[] calls;
+
+        private ToolStep(List<ToolExecutionRequest> requests) {
+            this.requests = requests;
+        }
+
+        private int indexOf(ToolExecutionRequest request) {
+            for (int i = 0; i < requests.size(); i++) {
+                if (requests.get(i) == request) {
+                    return i;
+                }
+            }
+            return requests.indexOf(request);
+        }
+
+        /**
+         * 首次执行时整批提交，未注册的工具名不提交（由langchain4j按幻觉工具处理，不会回调到这里）
+         */
+        private void start(Object memoryId, Function<String, ToolExecutor> executors) {
+            if (calls != null) {
+                return;
+            }
+            Semaphore permits = new Semaphore(Math.max(1, properties.getMaxConcurrencyPerTurn()));
+            calls = new PendingCall[requests.size()];
+            for (int i = 0; i < requests.size(); i++) {
+                ToolExecutionRequest request = requests.get(i);
+                ToolExecutor executor = executors.apply(request.name());
+                if (executor != null) {
+                    calls[i] = submit(request, memoryId, executor, permits);
+                }
+            }
+        }
+
+        /**
+         * 本步结束（含异常中断）时取消未取回的调用
+         */
+        private void cancel() {
+            if (calls == null) {
+                return;
+            }
+            for (PendingCall call : calls) {
+                if (call != null) {
+                    call.future().cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * 登记工具调用批次的流式模型
+     */
+    private final class BatchingStreamingChatModel implements StreamingChatModel {
+
+        private final StreamingChatModel delegate;
+
+        private BatchingStreamingChatModel(StreamingChatModel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            delegate.chat(chatRequest, new StepHandler(handler));
+        }
+
+        @Override
+        public ChatRequestParameters defaultRequestParameters() {
+            return delegate.defaultRequestParameters();
+        }
+
+        @Override
+        public ModelProvider provider() {
+            return delegate.provider();
+        }
+
+        @Override
+        public Set<Capability> supportedCapabilities() {
+            return delegate.supportedCapabilities();
+        }
+    }
+
+    /**
+     * 完整响应回调期间（langchain4j在其中执行工具）登记本步批次
+     */
+    private final class StepHandler implements StreamingChatResponseHandler {
+
+        private final StreamingChatResponseHandler delegate;
+
+        private StepHandler(StreamingChatResponseHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            delegate.onPartialResponse(partialResponse);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            List<ToolExecutionRequest> requests = completeResponse.aiMessage() != null
+                    ? completeResponse.aiMessage().toolExecutionRequests() : null;
+            if (requests == null || requests.size() < 2) {
+                delegate.onCompleteResponse(completeResponse);
+                return;
+            }
+            ToolStep previous = CURRENT_STEP.get();
+            ToolStep step = new ToolStep(requests);
+            CURRENT_STEP.set(step);
+            try {
+                delegate.onCompleteResponse(completeResponse);
+            } finally {
+                step.cancel();
+                if (previous != null) {
+                    CURRENT_STEP.set(previous);
+                } else {
+                    CURRENT_STEP.remove();
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            delegate.onError(error);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.joker.agent.tool;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.service.tool.ToolExecutor;
+import org.joker.agent.exception.BusinessException;
+import org.joker.agent.exception.ToolRejectedException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 工具提供者隔离舱
+ * <p>
+ * 限制同一提供者同时执行的工具调用数，超出的调用在有界队列中等待许可，队列满时立即拒绝；
+ * 等待中的调用被取消（超时）时以中断退出，不占用许可
+ */
+public class ToolBulkhead {
+
+    private final String name;
+    private final int maxConcurrency;
+    private final int maxQueue;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    ToolBulkhead(String name, int maxConcurrency, int maxQueue, long timeoutMillis) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueue = maxQueue;
+        this.timeoutMillis = timeoutMillis;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * 在隔离舱内执行工具调用
+     *
+     * @throws ToolRejectedException 并发与等待队列均已满
+     */
+    String execute(ToolExecutionRequest request, Object memoryId, ToolExecutor executor) {
+        if (!permits.tryAcquire()) {
+            if (queued.incrementAndGet() > maxQueue) {
+                queued.decrementAndGet();
+                rejected.increment();
+                throw new ToolRejectedException(name, request.name());
+            }
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("等待工具执行许可时被中断: " + request.name(), e);
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+        try {
+            return executor.execute(request, memoryId);
+        } finally {
+            permits.release();
+            completed.increment();
+        }
+    }
+
+    void timedOut() {
+        timedOut.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int getActive() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * 饱和度：执行中与排队的调用数占并发与队列总容量的比例
+     */
+    public double getSaturation() {
+        return (double) (getActive() + getQueued()) / (maxConcurrency + maxQueue);
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("maxConcurrency", maxConcurrency);
+        snapshot.put("maxQueue", maxQueue);
+        snapshot.put("timeoutMillis", timeoutMillis);
+        snapshot.put("active", getActive());
+        snapshot.put("queued", getQueued());
+        snapshot.put("completed", completed.sum());
+        snapshot.put("rejected", getRejected());
+        snapshot.put("timedOut", getTimedOut());
+        return snapshot;
+    }
+}
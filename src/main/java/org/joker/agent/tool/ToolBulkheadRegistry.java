@@ -0,0 +1,124 @@
+package org.joker.agent.tool;
+
+import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.joker.agent.annotation.BuiltInTool;
+import org.joker.agent.config.ToolExecutionProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 工具隔离舱注册表
+ * <p>
+ * 每个工具提供者一个隔离舱，配置优先级：chat.tool-execution.bulkheads > @BuiltInTool 声明 > 全局默认值；
+ * 外部工具提供者（ToolProvider）的工具共用 {@link #EXTERNAL_PROVIDER} 隔离舱。
+ * 各隔离舱的执行数、排队数、饱和度、拒绝与超时次数以 chat.tool.bulkhead.* 指标按提供者暴露
+ */
+@Component
+public class ToolBulkheadRegistry {
+
+    /**
+     * 外部工具提供者的隔离舱名称
+     */
+    public static final String EXTERNAL_PROVIDER = "external";
+
+    private final ToolExecutionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ToolBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 工具名到所属隔离舱，用于按工具名确定超时；同名工具以最后注册的提供者为准
+     */
+    private final Map<String, ToolBulkhead> toolBulkheads = new ConcurrentHashMap<>();
+
+    public ToolBulkheadRegistry(ToolExecutionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 为工具执行器套上所属提供者的隔离舱
+     *
+     * @param provider   工具提供者名称
+     * @param annotation 提供者的@BuiltInTool声明（外部工具为null）
+     * @param toolName   工具名
+     * @param executor   原执行器
+     * @return 受隔离舱限制的执行器
+     */
+    public ToolExecutor guard(String provider, BuiltInTool annotation, String toolName, ToolExecutor executor) {
+        ToolBulkhead bulkhead = bulkheads.computeIfAbsent(provider, name -> createBulkhead(name, annotation));
+        toolBulkheads.put(toolName, bulkhead);
+        return (request, memoryId) -> bulkhead.execute(request, memoryId, executor);
+    }
+
+    /**
+     * 工具调用的超时时间（毫秒）：按工具名配置 > 所属提供者 > 全局默认值
+     */
+    public long timeoutOf(String toolName) {
+        Long timeout = properties.getTimeouts().get(toolName);
+        if (timeout != null) {
+            return timeout;
+        }
+        ToolBulkhead bulkhead = toolBulkheads.get(toolName);
+        return bulkhead != null ? bulkhead.getTimeoutMillis() : properties.getDefaultTimeout();
+    }
+
+    /**
+     * 记录一次工具调用超时
+     */
+    public void timedOut(String toolName) {
+        ToolBulkhead bulkhead = toolBulkheads.get(toolName);
+        if (bulkhead != null) {
+            bulkhead.timedOut();
+        }
+    }
+
+    /**
+     * 各提供者隔离舱的容量与统计
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        bulkheads.forEach((name, bulkhead) -> snapshot.put(name, bulkhead.snapshot()));
+        return snapshot;
+    }
+
+    private ToolBulkhead createBulkhead(String provider, BuiltInTool annotation) {
+        ToolExecutionProperties.Bulkhead configured = properties.getBulkheads().get(provider);
+        int maxConcurrency = properties.getDefaultMaxConcurrency();
+        int maxQueue = properties.getDefaultMaxQueue();
+        long timeout = properties.getDefaultTimeout();
+        if (annotation != null) {
+            maxConcurrency = annotation.maxConcurrency() > 0 ? annotation.maxConcurrency() : maxConcurrency;
+            maxQueue = annotation.maxQueue() >= 0 ? annotation.maxQueue() : maxQueue;
+            timeout = annotation.timeout() > 0 ? annotation.timeout() : timeout;
+        }
+        if (configured != null) {
+            maxConcurrency = configured.getMaxConcurrency() != null ? configured.getMaxConcurrency() : maxConcurrency;
+            maxQueue = configured.getMaxQueue() != null ? configured.getMaxQueue() : maxQueue;
+            timeout = configured.getTimeout() != null ? configured.getTimeout() : timeout;
+        }
+        ToolBulkhead bulkhead = new ToolBulkhead(provider, Math.max(1, maxConcurrency), Math.max(0, maxQueue),
+                timeout);
+        registerMeters(bulkhead);
+        return bulkhead;
+    }
+
+    private void registerMeters(ToolBulkhead bulkhead) {
+        String provider = bulkhead.getName();
+        Gauge.builder("chat.tool.bulkhead.active", bulkhead, ToolBulkhead::getActive)
+                .description("工具提供者执行中的调用数").tag("provider", provider).register(meterRegistry);
+        Gauge.builder("chat.tool.bulkhead.queued", bulkhead, ToolBulkhead::getQueued)
+                .description("工具提供者等待执行的调用数").tag("provider", provider).register(meterRegistry);
+        Gauge.builder("chat.tool.bulkhead.saturation", bulkhead, ToolBulkhead::getSaturation)
+                .description("工具提供者隔离舱饱和度").tag("provider", provider).register(meterRegistry);
+        FunctionCounter.builder("chat.tool.bulkhead.rejected", bulkhead, ToolBulkhead::getRejected)
+                .description("工具提供者隔离舱拒绝次数").tag("provider", provider).register(meterRegistry);
+        FunctionCounter.builder("chat.tool.bulkhead.timeouts", bulkhead, ToolBulkhead::getTimedOut)
+                .description("工具提供者调用超时次数").tag("provider", provider).register(meterRegistry);
+    }
+}
@@ -0,0 +1,206 @@
+package org.joker.agent.tool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.joker.agent.config.ToolCacheProperties;
+import org.joker.agent.dto.ToolCachePolicy;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 工具结果缓存
+ * <p>
+ * 键为 (共享范围, 范围ID, 工具名, 规范化后的参数JSON)，参数按字段名排序后序列化，字段顺序与空白不影响命中；
+ * 容量按字节估算，超出时按最近最少使用淘汰，过期条目在访问时移除。
+ * 命中/未命中/淘汰数以 chat.tool.cache.* 指标暴露
+ */
+@Slf4j
+@Component
+public class ToolResultCache {
+
+    /**
+     * 单条缓存的固定开销估算（条目对象、链表节点等）
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    private final ToolCacheProperties properties;
+    private final MeterRegistry registry;
+    private final ObjectMapper canonicalMapper = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).build();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final Map<String, ToolCounters> toolCounters = new ConcurrentHashMap<>();
+    private final Counter evictions;
+
+    public ToolResultCache(ToolCacheProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        this.evictions = Counter.builder("chat.tool.cache.evictions").description("工具结果缓存容量淘汰次数")
+                .register(registry);
+        Gauge.builder("chat.tool.cache.bytes", this, ToolResultCache::getTotalBytes)
+                .description("工具结果缓存占用字节数（估算）").baseUnit("bytes").register(registry);
+        Gauge.builder("chat.tool.cache.entries", this, ToolResultCache::getEntryCount)
+                .description("工具结果缓存条目数").register(registry);
+    }
+
+    /**
+     * 为工具执行器加上结果缓存，未声明策略且未配置规则的工具原样返回
+     *
+     * @param toolName       工具名
+     * @param declaredPolicy 工具声明的缓存策略（可为null，此时按配置规则）
+     * @param agentId        Agent ID（AGENT范围使用）
+     * @param executor       原执行器
+     * @return 带缓存的执行器
+     */
+    public ToolExecutor cached(String toolName, ToolCachePolicy declaredPolicy, String agentId,
+                               ToolExecutor executor) {
+        ToolCachePolicy policy = declaredPolicy != null ? declaredPolicy : configuredPolicy(toolName);
+        if (!properties.isEnabled() || policy == null || policy.ttlSeconds() <= 0 || policy.scope() == null) {
+            return executor;
+        }
+        long ttlNanos = TimeUnit.SECONDS.toNanos(policy.ttlSeconds());
+        ToolCounters counters = toolCounters.computeIfAbsent(toolName, this::createCounters);
+        return (request, memoryId) -> {
+            String key = key(toolName, policy, agentId, memoryId, request.arguments());
+            if (key == null) {
+                return executor.execute(request, memoryId);
+            }
+            String cached = get(key);
+            if (cached != null) {
+                counters.hits().increment();
+                return cached;
+            }
+            counters.misses().increment();
+            String result = executor.execute(request, memoryId);
+            if (result != null) {
+                put(key, result, ttlNanos);
+            }
+            return result;
+        };
+    }
+
+    public long getTotalBytes() {
+        lock.lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getEntryCount() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ToolCachePolicy configuredPolicy(String toolName) {
+        ToolCacheProperties.Rule rule = properties.getTools().get(toolName);
+        return rule != null ? new ToolCachePolicy(rule.getTtl(), rule.getScope()) : null;
+    }
+
+    /**
+     * 构造缓存键，所需的范围ID缺失时返回null（不缓存）
+     */
+    private String key(String toolName, ToolCachePolicy policy, String agentId, Object memoryId, String arguments) {
+        String scopeId = switch (policy.scope()) {
+            case GLOBAL -> "";
+            case AGENT -> agentId;
+            case SESSION -> memoryId != null ? memoryId.toString() : null;
+        };
+        if (scopeId == null) {
+            return null;
+        }
+        return policy.scope().name() + '|' + scopeId + '|' + toolName + '|' + canonicalize(arguments);
+    }
+
+    /**
+     * 参数JSON规范化：对象字段按名称排序，去除无意义空白；无法解析时按原文（去首尾空白）
+     */
+    private String canonicalize(String arguments) {
+        if (StringUtils.isBlank(arguments)) {
+            return "{}";
+        }
+        try {
+            return canonicalMapper.writeValueAsString(canonicalMapper.readValue(arguments, Object.class));
+        } catch (Exception e) {
+            return arguments.trim();
+        }
+    }
+
+    private String get(String key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtNanos() - System.nanoTime() <= 0) {
+                entries.remove(key);
+                totalBytes -= entry.bytes();
+                return null;
+            }
+            return entry.result();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String key, String result, long ttlNanos) {
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * (key.length() + result.length());
+        if (bytes > properties.getMaxEntryBytes() || bytes > properties.getMaxBytes()) {
+            return;
+        }
+        Entry entry = new Entry(result, System.nanoTime() + ttlNanos, bytes);
+        lock.lock();
+        try {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.bytes();
+            }
+            totalBytes += bytes;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (totalBytes > properties.getMaxBytes() && iterator.hasNext()) {
+                totalBytes -= iterator.next().bytes();
+                iterator.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ToolCounters createCounters(String toolName) {
+        return new ToolCounters(cacheCounter(toolName, "hit"), cacheCounter(toolName, "miss"));
+    }
+
+    private Counter cacheCounter(String toolName, String result) {
+        return Counter.builder("chat.tool.cache.requests").description("工具结果缓存查询次数")
+                .tags("tool", toolName, "result", result).register(registry);
+    }
+
+    private record Entry(String result, long expiresAtNanos, long bytes) {
+    }
+
+    private record ToolCounters(Counter hits, Counter misses) {
+    }
+}
@@ -0,0 +1,366 @@
+package org.joker.agent.tool;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.joker.agent.config.ToolRoutingProperties;
+import org.joker.agent.context.ChatContext;
+import org.joker.agent.enums.ProviderProtocol;
+import org.joker.agent.factory.EmbeddingModelFactory;
+import org.joker.agent.model.AgentEntity;
+import org.joker.agent.model.LLMModelConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 工具路由
+ * <p>
+ * 可用工具较多时，按本轮用户消息与工具名称、描述的相关度只向模型提供前 topK 个工具，减少每次请求携带的工具定义token。
+ * 相关度为词项匹配（按候选工具计算IDF）与语义相似度（Agent的Embedding模型）的加权和；固定工具与预设了参数的工具始终提供。
+ * 工具的词项与向量按 (Embedding模型, 工具名, 描述) 缓存，每轮只为用户消息计算一次向量。
+ * 选择结果通过每次请求的工具提供者交给模型，Agent代理只按完整工具目录缓存，不随选择结果变化
+ */
+@Slf4j
+@Component
+public class ToolRouter {
+
+    /**
+     * 中英文混合文本平均每token字符数，用于估算节省的工具定义token
+     */
+    private static final double CHARS_PER_TOKEN = 3.0;
+
+    private static final int MAX_INDEXED_TOOLS = 4096;
+    private static final int MAX_QUERY_VECTORS = 256;
+
+    private final ToolRoutingProperties properties;
+    private final EmbeddingModelFactory embeddingModelFactory;
+
+    private final Map<EmbeddingKey, EmbeddingModel> embeddingModels = new ConcurrentHashMap<>();
+    private final Map<String, IndexedTool> indexedTools = new ConcurrentHashMap<>();
+    private final Map<String, float[]> queryVectors = new ConcurrentHashMap<>();
+
+    private final DistributionSummary offeredTools;
+    private final DistributionSummary selectedTools;
+    private final Counter savedTokens;
+
+    public ToolRouter(ToolRoutingProperties properties, EmbeddingModelFactory embeddingModelFactory,
+                      MeterRegistry registry) {
+        this.properties = properties;
+        this.embeddingModelFactory = embeddingModelFactory;
+        this.offeredTools = DistributionSummary.builder("chat.tool.routing.offered").description("路由前的可用工具数")
+                .register(registry);
+        this.selectedTools = DistributionSummary.builder("chat.tool.routing.selected")
+                .description("路由后提供给模型的工具数").register(registry);
+        this.savedTokens = Counter.builder("chat.tool.routing.saved.tokens")
+                .description("路由省去的工具定义token数（估算，按每轮首次请求计）").register(registry);
+    }
+
+    /**
+     * 选择本轮提供的内置工具
+     *
+     * @param chatContext 对话上下文
+     * @param catalog     Agent的内置工具目录
+     * @return 选中的工具
+     */
+    public Map<ToolSpecification, ToolExecutor> selectBuiltInTools(ChatContext chatContext,
+                                                                   Map<ToolSpecification, ToolExecutor> catalog) {
+        return select(chatContext, catalog);
+    }
+
+    /**
+     * 选择本轮提供的外部工具
+     *
+     * @param chatContext 对话上下文
+     * @param tools       外部工具提供者本轮提供的工具
+     * @return 选中的工具
+     */
+    public Map<ToolSpecification, ToolExecutor> selectExternalTools(ChatContext chatContext,
+                                                                    Map<ToolSpecification, ToolExecutor> tools) {
+        return select(chatContext, tools);
+    }
+
+    private Map<ToolSpecification, ToolExecutor> select(ChatContext chatContext,
+                                                        Map<ToolSpecification, ToolExecutor> tools) {
+        String query = chatContext.getUserMessage();
+        int topK = Math.max(1, properties.getTopK());
+        if (!properties.isEnabled() || tools.size() <= Math.max(properties.getMinTools(), topK)
+                || StringUtils.isBlank(query)) {
+            return tools;
+        }
+
+        Set<String> always = alwaysOffered(chatContext.getAgent());
+        List<ToolSpecification> candidates = new ArrayList<>();
+        for (ToolSpecification specification : tools.keySet()) {
+            if (!always.contains(specification.name())) {
+                candidates.add(specification);
+            }
+        }
+        Set<String> selected = new HashSet<>(always);
+        selected.addAll(rank(chatContext.getAgent(), query, candidates, topK));
+
+        Map<ToolSpecification, ToolExecutor> result = new LinkedHashMap<>();
+        long droppedChars = 0;
+        for (Map.Entry<ToolSpecification, ToolExecutor> entry : tools.entrySet()) {
+            if (selected.contains(entry.getKey().name())) {
+                result.put(entry.getKey(), entry.getValue());
+            } else {
+                droppedChars += schemaChars(entry.getKey());
+            }
+        }
+        offeredTools.record(tools.size());
+        selectedTools.record(result.size());
+        savedTokens.increment(Math.ceil(droppedChars / CHARS_PER_TOKEN));
+        return result;
+    }
+
+    /**
+     * 按相关度从高到低取前 topK 个工具名
+     */
+    private List<String> rank(AgentEntity agent, String query, List<ToolSpecification> candidates, int topK) {
+        if (candidates.size() <= topK) {
+            return candidates.stream().map(ToolSpecification::name).toList();
+        }
+        EmbeddingModel embeddingModel = properties.isUseEmbedding() ? embeddingModel(agent) : null;
+        String modelKey = embeddingModel != null ? modelKey(agent.getEmbeddingModelConfig()) : "";
+        List<IndexedTool> indexed = new ArrayList<>(candidates.size());
+        for (ToolSpecification specification : candidates) {
+            indexed.add(index(modelKey, specification));
+        }
+
+        float[] queryVector = null;
+        if (embeddingModel != null) {
+            try {
+                embedMissing(embeddingModel, indexed);
+                queryVector = queryVector(embeddingModel, modelKey, query);
+            } catch (RuntimeException e) {
+                // 向量计算失败时退化为只按词项匹配
+                log.warn("工具路由计算向量失败，仅按词项匹配: {}", e.getMessage());
+            }
+        }
+
+        Set<String> queryTerms = terms(query);
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        for (IndexedTool tool : indexed) {
+            for (String term : tool.terms()) {
+                if (queryTerms.contains(term)) {
+                    documentFrequency.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        double queryWeight = 0;
+        Map<String, Double> idf = new HashMap<>();
+        for (String term : queryTerms) {
+            double weight = Math.log(1 + (double) indexed.size() / documentFrequency.getOrDefault(term, 1));
+            idf.put(term, weight);
+            queryWeight += weight;
+        }
+
+        double lexicalWeight = queryVector != null ? properties.getLexicalWeight() : 1.0;
+        List<Scored> scored = new ArrayList<>(indexed.size());
+        for (IndexedTool tool : indexed) {
+            double lexical = 0;
+            for (String term : tool.terms()) {
+                lexical += idf.getOrDefault(term, 0.0);
+            }
+            lexical = queryWeight > 0 ? lexical / queryWeight : 0;
+            double semantic = queryVector != null && tool.vector() != null ? cosine(queryVector, tool.vector()) : 0;
+            scored.add(new Scored(tool.name(), lexicalWeight * lexical + (1 - lexicalWeight) * semantic));
+        }
+        scored.sort(Comparator.comparingDouble(Scored::score).reversed());
+        return scored.subList(0, topK).stream().map(Scored::name).toList();
+    }
+
+    /**
+     * 固定工具与Agent预设了参数的工具
+     */
+    private Set<String> alwaysOffered(AgentEntity agent) {
+        Set<String> always = new HashSet<>(properties.getPinnedTools());
+        if (agent != null && agent.getToolPresetParams() != null) {
+            agent.getToolPresetParams().values().forEach(tools -> always.addAll(tools.keySet()));
+        }
+        return always;
+    }
+
+    private IndexedTool index(String modelKey, ToolSpecification specification) {
+        String key = modelKey + '\u0000' + specification.name() + '\u0000' + specification.description();
+        IndexedTool tool = indexedTools.get(key);
+        if (tool != null) {
+            return tool;
+        }
+        if (indexedTools.size() >= MAX_INDEXED_TOOLS) {
+            indexedTools.clear();
+        }
+        String text = specification.name() + ": " + StringUtils.defaultString(specification.description());
+        return indexedTools.computeIfAbsent(key, k -> new IndexedTool(specification.name(), text, terms(text)));
+    }
+
+    /**
+     * 为尚无向量的工具批量计算向量
+     */
+    private void embedMissing(EmbeddingModel embeddingModel, List<IndexedTool> indexed) {
+        List<IndexedTool> missing = indexed.stream().filter(tool -> tool.vector() == null).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<TextSegment> segments = missing.stream().map(tool -> TextSegment.from(tool.text())).toList();
+        List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+        for (int i = 0; i < missing.size(); i++) {
+            missing.get(i).setVector(normalize(embeddings.get(i).vector()));
+        }
+    }
+
+    private float[] queryVector(EmbeddingModel embeddingModel, String modelKey, String query) {
+        String key = modelKey + '\u0000' + query;
+        float[] vector = queryVectors.get(key);
+        if (vector != null) {
+            return vector;
+        }
+        if (queryVectors.size() >= MAX_QUERY_VECTORS) {
+            queryVectors.clear();
+        }
+        vector = normalize(embeddingModel.embed(query).content().vector());
+        queryVectors.put(key, vector);
+        return vector;
+    }
+
+    private EmbeddingModel embeddingModel(AgentEntity agent) {
+        LLMModelConfig config = agent != null ? agent.getEmbeddingModelConfig() : null;
+        if (config == null) {
+            return null;
+        }
+        EmbeddingKey key = new EmbeddingKey(config.getProtocol(), config.getBaseUrl(), config.getModelEndpoint(),
+                config.getApiKey());
+        return embeddingModels.computeIfAbsent(key,
+                k -> embeddingModelFactory.createEmbeddingModel(new EmbeddingModelFactory.EmbeddingConfig(
+                        k.apiKey(), k.baseUrl(), k.modelEndpoint(), k.protocol())));
+    }
+
+    private static String modelKey(LLMModelConfig config) {
+        return config.getProtocol() + "|" + config.getBaseUrl() + "|" + config.getModelEndpoint();
+    }
+
+    /**
+     * 词项：英文与数字按非字母数字字符切分并转小写，中文按相邻二字切分（单字时取单字）
+     */
+    static Set<String> terms(String text) {
+        Set<String> terms = new HashSet<>();
+        StringBuilder word = new StringBuilder();
+        int cjkStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean cjk = Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+            if (!cjk && cjkStart >= 0) {
+                addCjkTerms(terms, text, cjkStart, i);
+                cjkStart = -1;
+            }
+            if (cjk) {
+                cjkStart = cjkStart < 0 ? i : cjkStart;
+            } else if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+                continue;
+            }
+            if (!word.isEmpty()) {
+                terms.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    private static void addCjkTerms(Set<String> terms, String text, int start, int end) {
+        if (end - start == 1) {
+            terms.add(text.substring(start, end));
+            return;
+        }
+        for (int i = start; i + 1 < end; i++) {
+            terms.add(text.substring(i, i + 2));
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    private static long schemaChars(ToolSpecification specification) {
+        long chars = specification.name().length() + StringUtils.length(specification.description());
+        if (specification.parameters() != null) {
+            chars += specification.parameters().toString().length();
+        }
+        return chars;
+    }
+
+    /**
+     * 已索引的工具，向量在首次参与语义打分时计算
+     */
+    private static final class IndexedTool {
+
+        private final String name;
+        private final String text;
+        private final Set<String> terms;
+        private volatile float[] vector;
+
+        private IndexedTool(String name, String text, Set<String> terms) {
+            this.name = name;
+            this.text = text;
+            this.terms = terms;
+        }
+
+        private String name() {
+            return name;
+        }
+
+        private String text() {
+            return text;
+        }
+
+        private Set<String> terms() {
+            return terms;
+        }
+
+        private float[] vector() {
+            return vector;
+        }
+
+        private void setVector(float[] vector) {
+            this.vector = vector;
+        }
+    }
+
+    private record Scored(String name, double score) {
+    }
+
+    private record EmbeddingKey(ProviderProtocol protocol, String baseUrl, String modelEndpoint, String apiKey) {
+    }
+}
@@ -0,0 +1,52 @@
+package org.joker.agent.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import org.joker.agent.context.ChatContext;
+import org.joker.agent.model.LLMModelConfig;
+import org.springframework.stereotype.Component;
+
+/**
+ * 对话链路追踪入口 每轮对话一条链路，根span为 chat.turn
+ */
+@Component
+public class ChatTracing {
+
+    private final Tracer tracer;
+
+    public ChatTracing(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * 开始追踪一轮对话
+     *
+     * @param chatContext 对话上下文
+     * @return 本轮链路
+     */
+    public TurnTrace startTurn(ChatContext chatContext) {
+        LLMModelConfig modelConfig = chatContext.getLlmModelConfig();
+        Span turnSpan = tracer.spanBuilder("chat.turn").setParent(Context.root())
+                .setAttribute("chat.session_id", chatContext.getSessionId()).startSpan();
+        if (modelConfig != null) {
+            if (modelConfig.getModelEndpoint() != null) {
+                turnSpan.setAttribute("gen_ai.request.model", modelConfig.getModelEndpoint());
+            }
+            if (modelConfig.getProtocol() != null) {
+                turnSpan.setAttribute("gen_ai.system", modelConfig.getProtocol().name());
+            }
+            if (modelConfig.getStrategyType() != null) {
+                turnSpan.setAttribute("chat.token_strategy", modelConfig.getStrategyType().name());
+            }
+        }
+        return new TurnTrace(tracer, turnSpan);
+    }
+
+    /**
+     * 开始一个后台任务span，父上下文为提交任务时传播过来的当前上下文
+     */
+    public Span startBackgroundSpan(String name, String sessionId) {
+        return tracer.spanBuilder(name).setAttribute("chat.session_id", sessionId).startSpan();
+    }
+}
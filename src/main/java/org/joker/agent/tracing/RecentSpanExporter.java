@@ -0,0 +1,112 @@
+package org.joker.agent.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 内存span导出器 保留最近的span供本地排查，超出容量时丢弃最早的span
+ */
+public class RecentSpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final ArrayDeque<SpanData> spans;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public RecentSpanExporter(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.spans = new ArrayDeque<>(this.capacity);
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> batch) {
+        lock.lock();
+        try {
+            for (SpanData span : batch) {
+                if (spans.size() == capacity) {
+                    spans.pollFirst();
+                }
+                spans.addLast(span);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        lock.lock();
+        try {
+            spans.clear();
+        } finally {
+            lock.unlock();
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * 查询最近的span（按结束顺序），可按traceId过滤
+     *
+     * @param traceId 链路ID，为空时不过滤
+     * @param limit   最多返回条数
+     */
+    public List<Map<String, Object>> recent(String traceId, int limit) {
+        List<SpanData> selected = new ArrayList<>();
+        lock.lock();
+        try {
+            var iterator = spans.descendingIterator();
+            while (iterator.hasNext() && selected.size() < limit) {
+                SpanData span = iterator.next();
+                if (traceId == null || traceId.equals(span.getTraceId())) {
+                    selected.add(span);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        List<Map<String, Object>> result = new ArrayList<>(selected.size());
+        for (SpanData span : selected) {
+            result.add(toMap(span));
+        }
+        return result;
+    }
+
+    private static Map<String, Object> toMap(SpanData span) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("traceId", span.getTraceId());
+        map.put("spanId", span.getSpanId());
+        map.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+        map.put("name", span.getName());
+        map.put("startEpochMillis", TimeUnit.NANOSECONDS.toMillis(span.getStartEpochNanos()));
+        map.put("durationMillis", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0);
+        map.put("status", span.getStatus().getStatusCode().name());
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+        map.put("attributes", attributes);
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (EventData event : span.getEvents()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", event.getName());
+            item.put("offsetMillis", (event.getEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0);
+            events.add(item);
+        }
+        map.put("events", events);
+        return map;
+    }
+}
@@ -0,0 +1,157 @@
+package org.joker.agent.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import org.joker.agent.enums.ExecutionPhase;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 单轮对话的链路追踪
+ * <p>
+ * 本轮根span在轮次开始时创建；模型流、工具执行等回调运行在不同线程上，因此显式以本轮上下文为父，
+ * 不依赖线程上的当前上下文
+ */
+public final class TurnTrace {
+
+    /**
+     * 未接入追踪时使用的空实现
+     */
+    public static final TurnTrace NOOP = new TurnTrace(OpenTelemetry.noop().getTracer(TurnTrace.class.getName()),
+            Span.getInvalid());
+
+    private final Tracer tracer;
+    private final Span turnSpan;
+    private final Context turnContext;
+    private final AtomicReference<Span> modelSpan = new AtomicReference<>();
+    private boolean firstToken;
+
+    TurnTrace(Tracer tracer, Span turnSpan) {
+        this.tracer = tracer;
+        this.turnSpan = turnSpan;
+        this.turnContext = Context.root().with(turnSpan);
+    }
+
+    /**
+     * 本轮上下文，异步任务提交前设为当前上下文即可关联到本轮链路
+     */
+    public Context context() {
+        return turnContext;
+    }
+
+    /**
+     * 开始一个子span：当前线程上已有span时作为其子span，否则挂在本轮根span下
+     */
+    public Span startSpan(String name) {
+        Context parent = Span.current().getSpanContext().isValid() ? Context.current() : turnContext;
+        return tracer.spanBuilder(name).setParent(parent).startSpan();
+    }
+
+    /**
+     * 按已测得的耗时补记执行阶段span，模型调用与工具执行另有实时span
+     */
+    public void recordPhase(ExecutionPhase phase, long durationNanos) {
+        String name = switch (phase) {
+            case INITIALIZATION -> "chat.initialization";
+            case MEMORY_INITIALIZATION -> "chat.history_build";
+            case RESULT_PROCESSING -> "chat.persist";
+            default -> null;
+        };
+        if (name != null) {
+            recordSpan(name, turnContext, durationNanos).end();
+        }
+    }
+
+    /**
+     * 模型流开始
+     */
+    public void onModelCallStart(String model) {
+        Span span = tracer.spanBuilder("chat.model_stream").setParent(turnContext).setSpanKind(SpanKind.CLIENT)
+                .setAttribute("gen_ai.request.model", model).startSpan();
+        firstToken = false;
+        Span previous = modelSpan.getAndSet(span);
+        if (previous != null) {
+            previous.end();
+        }
+    }
+
+    /**
+     * 收到流式片段，首个片段记录首token事件
+     */
+    public void onToken() {
+        if (!firstToken) {
+            firstToken = true;
+            Span span = modelSpan.get();
+            if (span != null) {
+                span.addEvent("first_token");
+            }
+        }
+    }
+
+    /**
+     * 模型调用完成
+     */
+    public void onModelCallCompleted(Integer inputTokens, Integer outputTokens) {
+        Span span = modelSpan.getAndSet(null);
+        if (span == null) {
+            return;
+        }
+        if (inputTokens != null) {
+            span.setAttribute("gen_ai.usage.input_tokens", inputTokens);
+        }
+        if (outputTokens != null) {
+            span.setAttribute("gen_ai.usage.output_tokens", outputTokens);
+        }
+        span.end();
+    }
+
+    /**
+     * 补记单次工具执行span，挂在模型流span下
+     */
+    public void onToolExecuted(String toolName, long durationNanos, Throwable error) {
+        Span parent = modelSpan.get();
+        Span span = recordSpan("chat.tool", parent != null ? turnContext.with(parent) : turnContext, durationNanos);
+        span.setAttribute("tool.name", toolName);
+        if (error != null) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR);
+        }
+        span.end();
+    }
+
+    /**
+     * 记录错误：结束进行中的模型流span，本轮以失败结束
+     */
+    public void onError(ExecutionPhase phase, Throwable throwable) {
+        Span span = modelSpan.getAndSet(null);
+        if (span != null) {
+            span.recordException(throwable);
+            span.setStatus(StatusCode.ERROR);
+            span.end();
+        }
+        turnSpan.setAttribute("chat.error_phase", phase.getCode());
+        turnSpan.recordException(throwable);
+        turnSpan.setStatus(StatusCode.ERROR);
+    }
+
+    /**
+     * 本轮结束
+     */
+    public void finish() {
+        Span span = modelSpan.getAndSet(null);
+        if (span != null) {
+            span.end();
+        }
+        turnSpan.end();
+    }
+
+    private Span recordSpan(String name, Context parent, long durationNanos) {
+        Instant start = Instant.now().minusNanos(durationNanos);
+        return tracer.spanBuilder(name).setParent(parent).setStartTimestamp(start).startSpan();
+    }
+}
@@ -1,135 +1,80 @@
 package org.joker.agent.transport;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
 import org.joker.agent.dto.AgentChatResponse;
+import org.joker.agent.exception.AdmissionRejectedException;
+import org.joker.agent.exception.BusinessException;
 import org.joker.agent.message.MessageTransport;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-
-import java.io.IOException;
 
 /**
  * SSE消息传输实现
+ * <p>
+ * 连接对象为会话级的 {@link SseStreamChannel}，订阅方通过 {@link SseStreamRendezvous#subscribe(String)} 接入
  */
 @Component
 @Slf4j
-public class SseMessageTransport implements MessageTransport<SseEmitter> {
-
-    /**
-     * 系统超时消息
-     */
-    private static final String TIMEOUT_MESSAGE = "\n\n[系统提示：响应超时，请重试]";
-
-    /**
-     * 系统错误消息前缀
-     */
-    private static final String ERROR_MESSAGE_PREFIX = "\n\n[系统错误：";
-
-    @Override
-    public SseEmitter createConnection(long timeout) {
-        SseEmitter emitter = new SseEmitter(timeout);
+public class SseMessageTransport implements MessageTransport<SseStreamChannel> {
 
-        // 添加简单的生命周期回调
-        emitter.onCompletion(() -> {
-            log.debug("SSE连接正常完成");
-        });
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
-        // 添加超时回调
-        emitter.onTimeout(() -> {
-            log.debug("SSE连接超时");
-            try {
-                AgentChatResponse response = new AgentChatResponse();
-                response.setContent(TIMEOUT_MESSAGE);
-                response.setDone(true);
-                safeSendMessage(emitter, response);
-            } finally {
-                safeCompleteEmitter(emitter);
-            }
-        });
+    private final SseStreamRendezvous rendezvous;
 
-        // 添加错误回调
-        emitter.onError((ex) -> {
-            log.debug("SSE连接发生错误: {}", ex.getMessage());
-            try {
-                AgentChatResponse response = new AgentChatResponse();
-                response.setContent(ERROR_MESSAGE_PREFIX + ex.getMessage() + "]");
-                response.setDone(true);
-                safeSendMessage(emitter, response);
-            } finally {
-                safeCompleteEmitter(emitter);
-            }
-        });
+    public SseMessageTransport(SseStreamRendezvous rendezvous) {
+        this.rendezvous = rendezvous;
+    }
 
-        return emitter;
+    @Override
+    public SseStreamChannel createConnection(String sessionId, long timeout) {
+        return rendezvous.open(sessionId, timeout);
     }
 
     @Override
-    public void sendMessage(SseEmitter connection, AgentChatResponse streamChatResponse) {
-        safeSendMessage(connection, streamChatResponse);
+    public void sendMessage(SseStreamChannel connection, AgentChatResponse streamChatResponse) {
+        connection.send(streamChatResponse);
     }
 
     @Override
-    public void sendEndMessage(SseEmitter connection, AgentChatResponse streamChatResponse) {
+    public void sendEndMessage(SseStreamChannel connection, AgentChatResponse streamChatResponse) {
         try {
-            safeSendMessage(connection, streamChatResponse);
+            connection.send(streamChatResponse);
         } finally {
-            safeCompleteEmitter(connection);
+            connection.complete();
         }
     }
 
     @Override
-    public void completeConnection(SseEmitter connection) {
-        safeCompleteEmitter(connection);
+    public void completeConnection(SseStreamChannel connection) {
+        connection.complete();
     }
 
     @Override
-    public void handleError(SseEmitter connection, Throwable error) {
+    public void handleError(SseStreamChannel connection, Throwable error) {
         try {
             AgentChatResponse response = new AgentChatResponse();
             response.setContent(error.getMessage());
+            response.setPayload(errorPayload(error));
             response.setDone(true);
-            safeSendMessage(connection, response);
+            connection.send(response);
         } finally {
-            safeCompleteEmitter(connection);
+            connection.complete();
         }
     }
 
     /**
-     * 安全发送消息，直接处理网络异常
-     *
-     * @param emitter  SSE发送器
-     * @param response 响应消息
+     * 错误帧载荷：业务异常的错误码，准入拒绝时附带建议的重试间隔（秒），与HTTP响应的Retry-After一致
      */
-    private void safeSendMessage(SseEmitter emitter, AgentChatResponse response) {
-        try {
-            emitter.send(response);
-        } catch (IllegalStateException e) {
-            // 连接已关闭，这是正常情况
-            log.debug("SSE连接已关闭，跳过消息发送: {}", e.getMessage());
-        } catch (IOException e) {
-            // 网络问题，这也是正常情况
-            log.debug("SSE网络异常，跳过消息发送: {}", e.getMessage());
-        } catch (Exception e) {
-            // 其他异常，记录但不抛出
-            log.debug("SSE消息发送异常: {}", e.getMessage());
+    private static String errorPayload(Throwable error) {
+        if (!(error instanceof BusinessException businessException)) {
+            return null;
         }
-    }
-
-    /**
-     * 安全完成SSE连接
-     *
-     * @param emitter SSE发送器
-     */
-    private void safeCompleteEmitter(SseEmitter emitter) {
-        try {
-            emitter.complete();
-        } catch (IllegalStateException e) {
-            // 连接已关闭，正常情况
-            log.debug("SSE连接已完成或已关闭: {}", e.getMessage());
-        } catch (Exception e) {
-            // 其他异常，记录但不抛出
-            log.debug("完成SSE连接时异常: {}", e.getMessage());
+        ObjectNode payload = OBJECT_MAPPER.createObjectNode().put("code", businessException.getErrorCode());
+        if (error instanceof AdmissionRejectedException rejected) {
+            payload.put("retryAfter", rejected.getRetryAfterSeconds());
         }
+        return payload.toString();
     }
 }
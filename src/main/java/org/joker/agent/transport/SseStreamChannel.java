@@ -0,0 +1,745 @@
+package org.joker.agent.transport;
+
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.SseStreamProperties;
+import org.joker.agent.dto.AgentChatResponse;
+import org.joker.agent.enums.MessageType;
+import org.joker.agent.enums.SlowConsumerPolicy;
+import org.joker.agent.monitor.jfr.SseFlushEvent;
+import org.joker.agent.utils.SseEmitterUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 会话级SSE流通道
+ * <p>
+ * 由生产方（POST /chat）与订阅方（GET /stream）中先到达的一方创建。所有帧先进入有界出站队列，
+ * 订阅方到达后由独立的写线程按序发送，模型回调线程不会阻塞在客户端socket上。 队列超过上限时按 {@link SlowConsumerPolicy} 处理。
+ * <p>
+ * 每个通道在共享时间轮上只挂一个检查任务，负责心跳、会合等待超时、首帧超时与帧间空闲超时
+ */
+@Slf4j
+public class SseStreamChannel {
+
+    /**
+     * 单帧固定开销估算（字节），包含SSE前缀和JSON字段名
+     */
+    private static final int FRAME_OVERHEAD_BYTES = 128;
+
+    /**
+     * 缓冲溢出提示消息
+     */
+    private static final String OVERFLOW_MESSAGE = "\n\n[系统提示：等待连接期间缓冲已满，请刷新历史消息]";
+
+    /**
+     * 系统超时消息
+     */
+    private static final String TIMEOUT_MESSAGE = "\n\n[系统提示：响应超时，请重试]";
+
+    /**
+     * 心跳注释内容，客户端EventSource会忽略注释行
+     */
+    private static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    /**
+     * 两次检查之间的最小间隔（毫秒）
+     */
+    private static final long MIN_CHECK_DELAY_MILLIS = 100L;
+
+    private final String sessionId;
+    private final long maxBufferBytes;
+    private final int maxBufferFrames;
+    private final long slowSendThreshold;
+    private final SlowConsumerPolicy policy;
+    private final Executor writer;
+    private final SseStreamMetrics metrics;
+    private final HashedTimerWheel timerWheel;
+    private final long subscribeTimeout;
+    private final long heartbeatInterval;
+    private final long firstTokenTimeout;
+    private final long idleTimeout;
+    private final long createTime;
+
+    /**
+     * 保护通道状态，不使用synchronized以免阻塞I/O时钉住虚拟线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 出站队列
+     */
+    private final Deque<Object> queue = new ArrayDeque<>();
+
+    /**
+     * DROP_INTERMEDIATE 策略下暂不发送的文本增量
+     */
+    private final StringBuilder pendingText = new StringBuilder();
+
+    private final List<Runnable> closeCallbacks = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean closeCallbacksFired = new AtomicBoolean(false);
+
+    private long queuedBytes;
+    private long emitterTimeout;
+    private SseEmitter subscriber;
+    private boolean producerBound;
+    private boolean reserved;
+    private boolean producerCompleted;
+    private boolean draining;
+    private boolean dropping;
+    private boolean overflowed;
+    private boolean slow;
+    private boolean firstFrameReceived;
+    private long bindTime;
+    private long lastProducerTime;
+    private HashedTimerWheel.Timeout checkTimeout;
+    private volatile long lastWriteTime;
+    private volatile boolean closed;
+
+    SseStreamChannel(String sessionId, SseStreamProperties properties, Executor writer, SseStreamMetrics metrics,
+                     HashedTimerWheel timerWheel) {
+        this.sessionId = sessionId;
+        this.emitterTimeout = properties.getEmitterTimeout();
+        this.maxBufferBytes = properties.getMaxBufferBytes();
+        this.maxBufferFrames = properties.getMaxBufferFrames();
+        this.slowSendThreshold = properties.getSlowSendThreshold();
+        this.policy = properties.getSlowConsumerPolicy();
+        this.writer = writer;
+        this.metrics = metrics;
+        this.timerWheel = timerWheel;
+        this.subscribeTimeout = properties.getSubscribeTimeout();
+        this.heartbeatInterval = properties.getHeartbeatInterval();
+        this.firstTokenTimeout = properties.getFirstTokenTimeout();
+        this.idleTimeout = properties.getIdleTimeout();
+        this.createTime = System.currentTimeMillis();
+        this.lastWriteTime = createTime;
+        metrics.channelOpened();
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 发送一帧数据，只入队不阻塞，由写线程负责实际发送
+     *
+     * @param frame AgentChatResponse 或 SseEmitter.SseEventBuilder
+     * @return 是否被接收
+     */
+    public boolean send(Object frame) {
+        boolean accepted;
+        boolean kick = false;
+        lock.lock();
+        try {
+            if (closed || producerCompleted) {
+                return false;
+            }
+            accepted = enqueue(frame);
+            firstFrameReceived = true;
+            lastProducerTime = System.currentTimeMillis();
+            if (accepted && subscriber != null && !draining) {
+                draining = true;
+                kick = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (kick) {
+            scheduleDrain();
+        }
+        fireCloseCallbacksIfClosed();
+        return accepted;
+    }
+
+    /**
+     * 生产方结束推送，队列发送完毕后完成订阅方连接；订阅方未到达时保留队列等待回放
+     */
+    public void complete() {
+        boolean kick = false;
+        lock.lock();
+        try {
+            if (closed || producerCompleted) {
+                return;
+            }
+            flushPendingText();
+            producerCompleted = true;
+            if (subscriber != null && !draining) {
+                draining = true;
+                kick = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (kick) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 注册通道关闭回调，通道已关闭时立即执行
+     *
+     * @param callback 回调
+     */
+    public void onClose(Runnable callback) {
+        lock.lock();
+        try {
+            if (!closed) {
+                closeCallbacks.add(callback);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        callback.run();
+    }
+
+    /**
+     * 为已受理、尚在会话内排队的轮次预留通道，订阅方可先接入；首帧超时从绑定生产方时才开始计算
+     *
+     * @return false 表示通道已被其他轮次占用或已关闭
+     */
+    boolean reserve() {
+        lock.lock();
+        try {
+            if (producerBound || reserved || closed) {
+                return false;
+            }
+            reserved = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 是否已为排队中的轮次预留且尚未绑定生产方
+     */
+    boolean isReserved() {
+        lock.lock();
+        try {
+            return reserved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 生产方绑定到通道
+     *
+     * @param connectionTimeout 生产方期望的连接超时时间（毫秒）
+     * @param reservedByCaller  调用方是否为预留该通道的轮次
+     * @return false 表示通道已被其他生产方占用（或为其他轮次预留）或已关闭
+     */
+    boolean bindProducer(long connectionTimeout, boolean reservedByCaller) {
+        lock.lock();
+        try {
+            if (producerBound || closed || reserved != reservedByCaller) {
+                return false;
+            }
+            producerBound = true;
+            reserved = false;
+            bindTime = System.currentTimeMillis();
+            lastProducerTime = bindTime;
+            if (connectionTimeout > 0 && subscriber == null) {
+                emitterTimeout = connectionTimeout;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 订阅方接入通道，由写线程回放队列后继续实时推送
+     *
+     * @return 订阅方的SseEmitter，通道已关闭时返回null
+     */
+    SseEmitter attach() {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        SseEmitter previous;
+        boolean overflowNotice = false;
+        boolean kick = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return null;
+            }
+            previous = subscriber;
+            subscriber = emitter;
+            registerEmitterCallbacks(emitter);
+
+            if (overflowed) {
+                overflowNotice = true;
+                markClosed();
+            } else if ((!queue.isEmpty() || producerCompleted) && !draining) {
+                draining = true;
+                kick = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (previous != null) {
+            // 同一会话的重复订阅，以最新的连接为准
+            log.debug("会话流被新的订阅替换: sessionId={}", sessionId);
+            SseEmitterUtils.safeComplete(previous);
+        }
+        if (overflowNotice) {
+            // SseEmitter 在初始化前会暂存发送内容
+            deliver(emitter, AgentChatResponse.buildEndMessage(OVERFLOW_MESSAGE, MessageType.TEXT));
+            SseEmitterUtils.safeComplete(emitter);
+        }
+        if (kick) {
+            scheduleDrain();
+        }
+        fireCloseCallbacksIfClosed();
+        return emitter;
+    }
+
+    /**
+     * 在时间轮上挂载首个检查任务
+     */
+    void startTimer() {
+        lock.lock();
+        try {
+            if (!closed) {
+                scheduleCheck(Math.min(subscribeTimeout, heartbeatInterval));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 时间轮检查：会合等待超时、首帧超时、帧间空闲超时与心跳，处理后按最近的截止时间重新挂载
+     */
+    private void onTimerCheck() {
+        long now = System.currentTimeMillis();
+        SseEmitter waitingSubscriber = null;
+        boolean kick = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if ((subscriber == null || !hasProducer()) && now - createTime >= subscribeTimeout) {
+                // 一方等待另一方超时，回收通道（包括只有订阅方的孤儿连接）
+                if (subscriber == null) {
+                    log.warn("等待订阅方超时，丢弃缓冲: sessionId={}, frames={}", sessionId, queue.size());
+                } else {
+                    log.debug("等待生产方超时: sessionId={}", sessionId);
+                    waitingSubscriber = subscriber;
+                }
+                metrics.channelReaped();
+                markClosed();
+                return;
+            }
+
+            if (producerBound && !producerCompleted) {
+                boolean firstTokenExpired = !firstFrameReceived && now - bindTime >= firstTokenTimeout;
+                boolean idleExpired = firstFrameReceived && now - lastProducerTime >= idleTimeout;
+                if (firstTokenExpired || idleExpired) {
+                    log.warn("会话流{}超时: sessionId={}", firstTokenExpired ? "首帧" : "空闲", sessionId);
+                    metrics.deadlineExceeded(firstTokenExpired);
+                    flushPendingText();
+                    AgentChatResponse timeoutFrame = AgentChatResponse.buildEndMessage(TIMEOUT_MESSAGE,
+                            MessageType.TEXT);
+                    queue.addLast(timeoutFrame);
+                    adjustQueuedBytes(estimateBytes(timeoutFrame));
+                    producerCompleted = true;
+                    if (subscriber != null && !draining) {
+                        draining = true;
+                        kick = true;
+                    }
+                }
+            }
+
+            if (!producerCompleted && subscriber != null && queue.isEmpty() && !draining
+                    && now - lastWriteTime >= heartbeatInterval) {
+                // 空闲连接发送注释心跳，防止代理在长时间工具调用期间断开连接
+                queue.addLast(SseEmitter.event().comment(HEARTBEAT_COMMENT));
+                adjustQueuedBytes(FRAME_OVERHEAD_BYTES);
+                metrics.heartbeatSent();
+                draining = true;
+                kick = true;
+            }
+
+            scheduleCheck(nextCheckDelay(now));
+        } finally {
+            lock.unlock();
+            SseEmitterUtils.safeComplete(waitingSubscriber);
+            if (kick) {
+                scheduleDrain();
+            }
+            fireCloseCallbacksIfClosed();
+        }
+    }
+
+    /**
+     * 计算距离最近一个截止时间的间隔，需在持有锁时调用
+     */
+    private long nextCheckDelay(long now) {
+        long delay = remaining(lastWriteTime + heartbeatInterval, now);
+        if (subscriber == null || !hasProducer()) {
+            delay = Math.min(delay, remaining(createTime + subscribeTimeout, now));
+        }
+        if (producerBound && !producerCompleted) {
+            long deadline = firstFrameReceived ? lastProducerTime + idleTimeout : bindTime + firstTokenTimeout;
+            delay = Math.min(delay, remaining(deadline, now));
+        }
+        return Math.max(MIN_CHECK_DELAY_MILLIS, delay);
+    }
+
+    /**
+     * 已绑定生产方，或已为排队中的轮次预留（订阅方等待期间由心跳保活，不按会合超时回收）
+     */
+    private boolean hasProducer() {
+        return producerBound || reserved;
+    }
+
+    private long remaining(long deadline, long now) {
+        long remaining = deadline - now;
+        return remaining > 0 ? remaining : heartbeatInterval;
+    }
+
+    private void scheduleCheck(long delayMillis) {
+        try {
+            checkTimeout = timerWheel.schedule(this::onTimerCheck, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("时间轮已停止，跳过检查: sessionId={}", sessionId);
+        }
+    }
+
+    /**
+     * 写线程主循环：按序取出队列中的帧发送，一个通道同时只有一个写任务
+     */
+    private void drain() {
+        while (true) {
+            Object frame;
+            SseEmitter target;
+            long frameBytes = 0;
+            boolean finish = false;
+            lock.lock();
+            try {
+                if (closed) {
+                    draining = false;
+                    break;
+                }
+                frame = queue.pollFirst();
+                target = subscriber;
+                if (frame == null) {
+                    draining = false;
+                    if (!producerCompleted) {
+                        break;
+                    }
+                    finish = true;
+                    markClosed();
+                } else {
+                    frameBytes = estimateBytes(frame);
+                    adjustQueuedBytes(-frameBytes);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (finish) {
+                SseEmitterUtils.safeComplete(target);
+                break;
+            }
+
+            SseFlushEvent flushEvent = new SseFlushEvent();
+            flushEvent.begin();
+            long start = System.nanoTime();
+            boolean sent = deliver(target, frame);
+            long sendMillis = (System.nanoTime() - start) / 1_000_000;
+            flushEvent.end(sessionId, frameBytes, sent);
+            if (!sent) {
+                lock.lock();
+                try {
+                    draining = false;
+                    markClosed();
+                } finally {
+                    lock.unlock();
+                }
+                break;
+            }
+            lastWriteTime = System.currentTimeMillis();
+            metrics.frameSent(sendMillis);
+            if (sendMillis >= slowSendThreshold) {
+                lock.lock();
+                try {
+                    markSlow("单帧发送耗时" + sendMillis + "ms");
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        fireCloseCallbacksIfClosed();
+    }
+
+    private void scheduleDrain() {
+        try {
+            writer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.debug("写线程已关闭，跳过发送: sessionId={}", sessionId);
+            lock.lock();
+            try {
+                draining = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 帧入队并执行上限检查，需在持有锁时调用
+     */
+    private boolean enqueue(Object frame) {
+        if (overflowed) {
+            return false;
+        }
+        if (dropping && isTextDelta(frame)) {
+            String content = ((AgentChatResponse) frame).getContent();
+            pendingText.append(content);
+            adjustQueuedBytes(textBytes(content));
+            metrics.framesDropped(1);
+        } else {
+            flushPendingText();
+            queue.addLast(frame);
+            adjustQueuedBytes(estimateBytes(frame));
+            metrics.frameEnqueued();
+        }
+
+        if (exceedsBound()) {
+            return handleOverflow();
+        }
+        if (subscriber != null && queuedBytes > maxBufferBytes / 2) {
+            markSlow("出站队列积压" + queuedBytes + "字节");
+        }
+        return true;
+    }
+
+    private boolean exceedsBound() {
+        return queue.size() > maxBufferFrames || queuedBytes > maxBufferBytes;
+    }
+
+    private boolean handleOverflow() {
+        if (subscriber != null) {
+            markSlow("出站队列超过上限");
+        }
+        switch (policy) {
+            case COALESCE -> coalesce(false);
+            case DROP_INTERMEDIATE -> coalesce(true);
+            default -> {
+            }
+        }
+        if (!exceedsBound()) {
+            return true;
+        }
+        return disconnect();
+    }
+
+    /**
+     * 合并队列中连续的文本增量
+     *
+     * @param holdTail 是否将队尾的增量移入待发送文本（DROP_INTERMEDIATE），直到下一帧非增量消息到达
+     */
+    private void coalesce(boolean holdTail) {
+        Deque<Object> merged = new ArrayDeque<>(queue.size());
+        StringBuilder run = new StringBuilder();
+        int runFrames = 0;
+        int coalesced = 0;
+        for (Object frame : queue) {
+            if (isTextDelta(frame)) {
+                run.append(((AgentChatResponse) frame).getContent());
+                runFrames++;
+                continue;
+            }
+            if (runFrames > 0) {
+                merged.addLast(AgentChatResponse.build(run.toString(), MessageType.TEXT));
+                coalesced += runFrames - 1;
+                run.setLength(0);
+                runFrames = 0;
+            }
+            merged.addLast(frame);
+        }
+        if (runFrames > 0) {
+            if (holdTail) {
+                // 队尾增量早于已暂存的文本
+                pendingText.insert(0, run);
+                dropping = true;
+                metrics.framesDropped(runFrames);
+            } else {
+                merged.addLast(AgentChatResponse.build(run.toString(), MessageType.TEXT));
+                coalesced += runFrames - 1;
+            }
+        }
+        queue.clear();
+        queue.addAll(merged);
+        metrics.framesCoalesced(coalesced);
+        recountQueuedBytes();
+    }
+
+    /**
+     * 合并后仍超限，断开慢连接；订阅方未到达时仅丢弃缓冲并在其到达时提示
+     */
+    private boolean disconnect() {
+        log.warn("会话流出站队列超限，断开连接: sessionId={}, policy={}, frames={}, bytes={}", sessionId, policy,
+                queue.size(), queuedBytes);
+        metrics.slowConsumerDisconnected();
+        if (subscriber == null) {
+            overflowed = true;
+            queue.clear();
+            pendingText.setLength(0);
+            recountQueuedBytes();
+            return false;
+        }
+        SseEmitter target = subscriber;
+        markClosed();
+        SseEmitterUtils.safeComplete(target);
+        return false;
+    }
+
+    /**
+     * 将待发送文本作为一帧放回队列，需在持有锁时调用
+     */
+    private void flushPendingText() {
+        if (!dropping) {
+            return;
+        }
+        dropping = false;
+        if (pendingText.isEmpty()) {
+            return;
+        }
+        String content = pendingText.toString();
+        pendingText.setLength(0);
+        AgentChatResponse frame = AgentChatResponse.build(content, MessageType.TEXT);
+        queue.addLast(frame);
+        adjustQueuedBytes(estimateBytes(frame) - textBytes(content));
+        metrics.frameEnqueued();
+    }
+
+    private void markSlow(String reason) {
+        if (slow) {
+            return;
+        }
+        slow = true;
+        metrics.slowConsumerDetected();
+        log.warn("检测到慢消费者: sessionId={}, 原因={}", sessionId, reason);
+    }
+
+    private void registerEmitterCallbacks(SseEmitter emitter) {
+        emitter.onCompletion(() -> detach(emitter, false));
+        emitter.onTimeout(() -> detach(emitter, true));
+        emitter.onError(throwable -> {
+            log.debug("SSE连接发生错误: sessionId={}, error={}", sessionId, throwable.getMessage());
+            detach(emitter, false);
+        });
+    }
+
+    /**
+     * 订阅方断开，通道随之关闭
+     */
+    private void detach(SseEmitter emitter, boolean timeout) {
+        lock.lock();
+        try {
+            if (subscriber != emitter || closed) {
+                return;
+            }
+            markClosed();
+        } finally {
+            lock.unlock();
+        }
+        if (timeout) {
+            deliver(emitter, AgentChatResponse.buildEndMessage(TIMEOUT_MESSAGE, MessageType.TEXT));
+            SseEmitterUtils.safeComplete(emitter);
+        }
+        fireCloseCallbacksIfClosed();
+    }
+
+    private boolean deliver(SseEmitter emitter, Object frame) {
+        if (frame instanceof SseEmitter.SseEventBuilder event) {
+            return SseEmitterUtils.safeSend(emitter, event);
+        }
+        return SseEmitterUtils.safeSend(emitter, frame);
+    }
+
+    /**
+     * 标记关闭并释放队列，需在持有锁时调用；回调在释放锁后执行，避免与注册表的锁交叉
+     */
+    private void markClosed() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (checkTimeout != null) {
+            checkTimeout.cancel();
+            checkTimeout = null;
+        }
+        queue.clear();
+        pendingText.setLength(0);
+        recountQueuedBytes();
+        metrics.channelClosed();
+    }
+
+    private void fireCloseCallbacksIfClosed() {
+        if (!closed || !closeCallbacksFired.compareAndSet(false, true)) {
+            return;
+        }
+        for (Runnable callback : closeCallbacks) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                log.debug("执行通道关闭回调异常: sessionId={}, error={}", sessionId, e.getMessage());
+            }
+        }
+        closeCallbacks.clear();
+    }
+
+    private void adjustQueuedBytes(long delta) {
+        queuedBytes += delta;
+        metrics.queuedBytesChanged(delta);
+    }
+
+    private void recountQueuedBytes() {
+        long total = textBytes(pendingText);
+        for (Object frame : queue) {
+            total += estimateBytes(frame);
+        }
+        adjustQueuedBytes(total - queuedBytes);
+    }
+
+    private static boolean isTextDelta(Object frame) {
+        return frame instanceof AgentChatResponse response && !response.isDone()
+                && response.getMessageType() == MessageType.TEXT && response.getContent() != null;
+    }
+
+    private static long estimateBytes(Object frame) {
+        if (frame instanceof AgentChatResponse response && response.getContent() != null) {
+            return FRAME_OVERHEAD_BYTES + textBytes(response.getContent());
+        }
+        return FRAME_OVERHEAD_BYTES;
+    }
+
+    /**
+     * 按UTF-8最坏情况估算文本字节数
+     */
+    private static long textBytes(CharSequence text) {
+        return text == null ? 0 : text.length() * 3L;
+    }
+}
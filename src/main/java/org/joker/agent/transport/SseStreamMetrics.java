@@ -0,0 +1,115 @@
+package org.joker.agent.transport;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SSE流传输指标 统计出站队列、慢消费者及丢弃/合并情况
+ */
+@Component
+public class SseStreamMetrics {
+
+    private final AtomicInteger openChannels = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final LongAdder framesEnqueued = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder framesCoalesced = new LongAdder();
+    private final LongAdder framesDropped = new LongAdder();
+    private final LongAdder slowConsumers = new LongAdder();
+    private final LongAdder slowConsumerDisconnects = new LongAdder();
+    private final LongAdder heartbeatsSent = new LongAdder();
+    private final LongAdder firstTokenTimeouts = new LongAdder();
+    private final LongAdder idleTimeouts = new LongAdder();
+    private final LongAdder reapedChannels = new LongAdder();
+    private final LongAccumulator maxSendMillis = new LongAccumulator(Math::max, 0);
+
+    void channelOpened() {
+        openChannels.incrementAndGet();
+    }
+
+    void channelClosed() {
+        openChannels.decrementAndGet();
+    }
+
+    void frameEnqueued() {
+        framesEnqueued.increment();
+    }
+
+    void queuedBytesChanged(long delta) {
+        queuedBytes.addAndGet(delta);
+    }
+
+    void frameSent(long sendMillis) {
+        framesSent.increment();
+        maxSendMillis.accumulate(sendMillis);
+    }
+
+    void framesCoalesced(int count) {
+        framesCoalesced.add(count);
+    }
+
+    void framesDropped(int count) {
+        framesDropped.add(count);
+    }
+
+    void slowConsumerDetected() {
+        slowConsumers.increment();
+    }
+
+    void slowConsumerDisconnected() {
+        slowConsumerDisconnects.increment();
+    }
+
+    void heartbeatSent() {
+        heartbeatsSent.increment();
+    }
+
+    void deadlineExceeded(boolean firstToken) {
+        if (firstToken) {
+            firstTokenTimeouts.increment();
+        } else {
+            idleTimeouts.increment();
+        }
+    }
+
+    void channelReaped() {
+        reapedChannels.increment();
+    }
+
+    public int getOpenChannels() {
+        return openChannels.get();
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    /**
+     * 获取指标快照
+     *
+     * @return 指标名称到数值的映射
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("openChannels", openChannels.get());
+        snapshot.put("queuedBytes", queuedBytes.get());
+        snapshot.put("framesEnqueued", framesEnqueued.sum());
+        snapshot.put("framesSent", framesSent.sum());
+        snapshot.put("framesCoalesced", framesCoalesced.sum());
+        snapshot.put("framesDropped", framesDropped.sum());
+        snapshot.put("slowConsumers", slowConsumers.sum());
+        snapshot.put("slowConsumerDisconnects", slowConsumerDisconnects.sum());
+        snapshot.put("maxSendMillis", maxSendMillis.get());
+        snapshot.put("heartbeatsSent", heartbeatsSent.sum());
+        snapshot.put("firstTokenTimeouts", firstTokenTimeouts.sum());
+        snapshot.put("idleTimeouts", idleTimeouts.sum());
+        snapshot.put("reapedChannels", reapedChannels.sum());
+        return snapshot;
+    }
+}
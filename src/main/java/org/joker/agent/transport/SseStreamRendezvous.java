@@ -0,0 +1,185 @@
+package org.joker.agent.transport;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.joker.agent.config.SseStreamProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE流会合点
+ * <p>
+ * 解决 POST /chat 与 GET /stream/{sessionId} 的到达顺序竞争：无论哪一方先到，都使用同一个会话通道。
+ * 生产方先到时帧被有界缓冲，订阅方先到时等待生产方绑定，任一方等待超过 subscribeTimeout 则由时间轮回收通道。
+ * 每轮对话在受理时预留自己的通道（{@link #reserve}），上一轮仍在输出时到达的订阅方接入的是新一轮的通道，
+ * 不会接管上一轮的通道；轮到执行时由 {@link #open(SseStreamChannel, long)} 在预留的通道上绑定生产方
+ */
+@Component
+@Slf4j
+public class SseStreamRendezvous {
+
+    private final SseStreamProperties properties;
+
+    private final SseStreamMetrics metrics;
+
+    /**
+     * 每个会话当前可被发现的通道
+     */
+    private final ConcurrentHashMap<String, SseStreamChannel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * 出站队列写线程，每个通道同一时刻最多占用一个写任务；使用虚拟线程，慢连接阻塞时不占用平台线程
+     */
+    private final ExecutorService writerExecutor = Executors
+            .newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-writer-", 0).factory());
+
+    /**
+     * 所有通道共享的时间轮，负责心跳与各类超时
+     */
+    private final HashedTimerWheel timerWheel;
+
+    public SseStreamRendezvous(SseStreamProperties properties, SseStreamMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+        this.timerWheel = new HashedTimerWheel("sse-timer-wheel", properties.getTimerTick(), TimeUnit.MILLISECONDS,
+                properties.getTimerWheelSize(), writerExecutor);
+    }
+
+    /**
+     * 生产方打开会话通道，订阅方已在等待时直接复用其通道
+     *
+     * @param sessionId         会话ID
+     * @param connectionTimeout 连接超时时间（毫秒）
+     * @return 已绑定生产方的通道
+     */
+    public SseStreamChannel open(String sessionId, long connectionTimeout) {
+        SseStreamChannel channel = channels.computeIfAbsent(sessionId, this::newChannel);
+        if (channel.bindProducer(connectionTimeout, false)) {
+            return channel;
+        }
+        // 通道属于上一轮对话或已关闭，换成新通道；旧通道继续服务其已有的订阅方直到结束
+        SseStreamChannel fresh = newChannel(sessionId);
+        fresh.bindProducer(connectionTimeout, false);
+        install(sessionId, channel, fresh);
+        return fresh;
+    }
+
+    /**
+     * 受理一轮对话时为其预留会话通道，之后到达的订阅方接入该通道
+     *
+     * @param sessionId 会话ID
+     * @return 已预留的通道
+     */
+    public SseStreamChannel reserve(String sessionId) {
+        SseStreamChannel channel = channels.computeIfAbsent(sessionId, this::newChannel);
+        if (channel.reserve()) {
+            return channel;
+        }
+        // 通道属于进行中或排队中的其他轮次，换成新通道；旧通道继续服务其已有的订阅方
+        SseStreamChannel fresh = newChannel(sessionId);
+        fresh.reserve();
+        install(sessionId, channel, fresh);
+        return fresh;
+    }
+
+    /**
+     * 以新通道替换会话当前的通道
+     * <p>
+     * 新通道已绑定生产方或已预留并启动了计时，竞争失败时重试安装同一个通道，不再创建第二个，
+     * 避免落败的通道脱离映射后无人使用
+     *
+     * @param sessionId 会话ID
+     * @param expected  预期的当前通道
+     * @param fresh     新通道
+     */
+    private void install(String sessionId, SseStreamChannel expected, SseStreamChannel fresh) {
+        SseStreamChannel current = expected;
+        while (!channels.replace(sessionId, current, fresh)) {
+            current = channels.putIfAbsent(sessionId, fresh);
+            if (current == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 轮到执行时在预留的通道上绑定生产方
+     * <p>
+     * 预留的通道已被回收（订阅方始终未到达）时换成新通道；会话当前的通道已为后续轮次预留时不替换它，
+     * 新通道不对订阅方可见，输出缓冲到会合超时后丢弃
+     *
+     * @param reserved          受理时预留的通道
+     * @param connectionTimeout 连接超时时间（毫秒）
+     * @return 已绑定生产方的通道
+     */
+    public SseStreamChannel open(SseStreamChannel reserved, long connectionTimeout) {
+        if (reserved.bindProducer(connectionTimeout, true)) {
+            return reserved;
+        }
+        String sessionId = reserved.getSessionId();
+        SseStreamChannel fresh = newChannel(sessionId);
+        fresh.bindProducer(connectionTimeout, false);
+        while (true) {
+            SseStreamChannel current = channels.get(sessionId);
+            if (current == null) {
+                if (channels.putIfAbsent(sessionId, fresh) == null) {
+                    return fresh;
+                }
+            } else if (current.isReserved() || channels.replace(sessionId, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * 订阅方接入会话通道，生产方尚未到达时创建等待中的通道
+     *
+     * @param sessionId 会话ID
+     * @return 订阅方的SseEmitter
+     */
+    public SseEmitter subscribe(String sessionId) {
+        while (true) {
+            SseStreamChannel channel = channels.computeIfAbsent(sessionId, this::newChannel);
+            SseEmitter emitter = channel.attach();
+            if (emitter != null) {
+                return emitter;
+            }
+            channels.remove(sessionId, channel);
+        }
+    }
+
+    /**
+     * 获取会话当前的通道
+     *
+     * @param sessionId 会话ID
+     * @return 通道，不存在时返回null
+     */
+    public SseStreamChannel getChannel(String sessionId) {
+        return channels.get(sessionId);
+    }
+
+    private SseStreamChannel newChannel(String sessionId) {
+        SseStreamChannel channel = new SseStreamChannel(sessionId, properties, writerExecutor, metrics, timerWheel);
+        channel.onClose(() -> channels.remove(sessionId, channel));
+        channel.startTimer();
+        return channel;
+    }
+
+    /**
+     * 时间轮上未到期的任务数
+     */
+    public long getPendingTimers() {
+        return timerWheel.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timerWheel.stop();
+        writerExecutor.shutdown();
+    }
+}
@@ -36,6 +36,31 @@ public class SseEmitterUtils {
         }
     }
 
+    /** 安全发送事件，优雅处理连接异常
+     * @param emitter SSE发送器
+     * @param event 要发送的事件（可带事件名、id等）
+     * @return 是否成功发送 */
+    public static boolean safeSend(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        if (emitter == null) {
+            log.debug("SSE连接为null，跳过发送");
+            return false;
+        }
+
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IllegalStateException e) {
+            log.debug("SSE连接已关闭，跳过事件发送: {}", e.getMessage());
+            return false;
+        } catch (IOException e) {
+            log.debug("SSE网络异常，跳过事件发送: {}", e.getMessage());
+            return false;
+        } catch (Exception e) {
+            log.debug("SSE事件发送异常: {}", e.getMessage());
+            return false;
+        }
+    }
+
     /** 安全完成SSE连接
      * @param emitter SSE发送器
      * @return 是否成功完成 */